@@ -0,0 +1,11 @@
+# Adds the table behind the product view and add-to-cart counts to a database created before it existed.
+# New databases get it from create_database.sql.
+
+USE easyshop;
+
+CREATE TABLE product_stats (
+    product_id INT NOT NULL,
+    views BIGINT NOT NULL DEFAULT 0,
+    cart_adds BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id)
+);
@@ -0,0 +1,12 @@
+# Adds the columns behind the ETag and Last-Modified headers to a database created before they existed.
+# New databases get them from create_database.sql.
+
+USE easyshop;
+
+ALTER TABLE categories
+    ADD COLUMN version INT NOT NULL DEFAULT 1,
+    ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE products
+    ADD COLUMN version INT NOT NULL DEFAULT 1,
+    ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
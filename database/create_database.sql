@@ -40,6 +40,8 @@ CREATE TABLE categories (
     category_id INT NOT NULL AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
     description TEXT,
+    version INT NOT NULL DEFAULT 1,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (category_id)
 );
 
@@ -53,6 +55,8 @@ CREATE TABLE products (
     image_url VARCHAR(200),
     stock INT NOT NULL DEFAULT 0,
     featured BOOL NOT NULL DEFAULT 0,
+    version INT NOT NULL DEFAULT 1,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (product_id),
     FOREIGN KEY (category_id) REFERENCES categories(category_id)
 );
@@ -87,11 +91,21 @@ CREATE TABLE shopping_cart (
 	user_id INT NOT NULL,
     product_id INT NOT NULL,
     quantity INT NOT NULL DEFAULT 1,
+    date_added DATETIME,
     PRIMARY KEY (user_id, product_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id),
     FOREIGN KEY (product_id) REFERENCES products(product_id)
 );
 
+-- view and add-to-cart counts, written in batches by the application; no foreign key, so a batch never
+-- fails because one of its products was deleted after it was counted
+CREATE TABLE product_stats (
+    product_id INT NOT NULL,
+    views BIGINT NOT NULL DEFAULT 0,
+    cart_adds BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id)
+);
+
 
 /*  INSERT Users  */
 INSERT INTO users (username, hashed_password, role) 
@@ -0,0 +1,154 @@
+package org.yearup.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with the stored baseline and fails the build when a benchmark got
+ * slower, or allocates more per operation, by more than the tolerance.
+ * <p>
+ * A benchmark only counts as slower when even the low end of its 99.9% confidence interval is past the
+ * tolerance, so noisy timings on a busy machine do not fail the build. Allocation per operation is
+ * almost deterministic and is compared directly.
+ * <p>
+ * Usage: {@code BaselineComparison <jmh-result.json> <baseline.json> <tolerance>}, e.g. a tolerance of
+ * {@code 0.25} allows 25% drift. When the baseline file does not exist it is written from the results,
+ * so deleting it re-records the baseline on the next run.
+ */
+public class BaselineComparison
+{
+    // JMH 1.37 writes "gc.alloc.rate.norm"; older versions prefixed secondary metrics with '·'
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    // allocation is measured per operation and is nearly deterministic; this absorbs rounding noise
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 3)
+        {
+            System.err.println("Usage: BaselineComparison <jmh-result.json> <baseline.json> <tolerance>");
+            System.exit(2);
+        }
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, Result> results = readResults(mapper.readTree(new File(args[0])));
+        File baselineFile = new File(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+
+        if (!baselineFile.exists())
+        {
+            mapper.writeValue(baselineFile, toJson(mapper, results));
+            System.out.println("No baseline found; recorded " + results.size() + " benchmarks to " + baselineFile);
+            return;
+        }
+
+        Map<String, Result> baseline = readBaseline(mapper.readTree(baselineFile));
+        int regressions = 0;
+
+        System.out.printf("%-80s %14s %14s %8s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "Base B/op", "B/op");
+        for (Map.Entry<String, Result> entry : results.entrySet())
+        {
+            Result current = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null)
+            {
+                System.out.printf("%-80s %14s %14.2f %8s %12s %12.1f  (new)%n",
+                        entry.getKey(), "-", current.score, "-", "-", current.allocatedBytes);
+                continue;
+            }
+
+            double change = (current.score - base.score) / base.score;
+            boolean slower = current.score - current.error > base.score * (1 + tolerance);
+            boolean allocatesMore = current.allocatedBytes > base.allocatedBytes * (1 + tolerance) + ALLOCATION_SLACK_BYTES;
+
+            System.out.printf("%-80s %14.2f %14.2f %+7.1f%% %12.1f %12.1f%s%n",
+                    entry.getKey(), base.score, current.score, change * 100,
+                    base.allocatedBytes, current.allocatedBytes,
+                    slower || allocatesMore ? "  REGRESSION" : "");
+
+            if (slower || allocatesMore) regressions++;
+        }
+
+        if (regressions > 0)
+        {
+            System.err.println(regressions + " benchmark(s) regressed by more than " + Math.round(tolerance * 100) + "%.");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> readResults(JsonNode root)
+    {
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode run : root)
+        {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            while (params.hasNext())
+            {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode secondary = run.path("secondaryMetrics");
+            JsonNode allocation = secondary.has(ALLOCATION_METRIC) ? secondary.path(ALLOCATION_METRIC) : secondary.path("·" + ALLOCATION_METRIC);
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(primary.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                    primary.path("scoreUnit").asText(), allocation.path("score").asDouble(0)));
+        }
+        return results;
+    }
+
+    private static Map<String, Result> readBaseline(JsonNode root)
+    {
+        Map<String, Result> baseline = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = root.fields();
+        while (entries.hasNext())
+        {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode node = entry.getValue();
+            baseline.put(entry.getKey(), new Result(node.path("score").asDouble(), 0, node.path("unit").asText(),
+                    node.path("allocatedBytesPerOp").asDouble()));
+        }
+        return baseline;
+    }
+
+    private static ObjectNode toJson(ObjectMapper mapper, Map<String, Result> results)
+    {
+        ObjectNode root = mapper.createObjectNode();
+        for (Map.Entry<String, Result> entry : results.entrySet())
+        {
+            Result result = entry.getValue();
+            root.putObject(entry.getKey())
+                    .put("score", Math.round(result.score * 100) / 100.0)
+                    .put("unit", result.unit)
+                    .put("allocatedBytesPerOp", Math.round(result.allocatedBytes * 10) / 10.0);
+        }
+        return root;
+    }
+
+    private static class Result
+    {
+        private final double score;
+        private final double error;
+        private final String unit;
+        private final double allocatedBytes;
+
+        private Result(double score, double error, String unit, double allocatedBytes)
+        {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.yearup.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing product listings the way GET /products does, with an ObjectMapper configured like
+ * Spring Boot's default one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductJsonBenchmark
+{
+    @Param({"100"})
+    private int productCount;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+
+    @Setup
+    public void setup()
+    {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++)
+        {
+            products.add(new Product(i + 1, "Product " + i, Money.ofCents(1999 + i), 1 + i % 3,
+                    "A dependable product for everyday use, described in a sentence or two.",
+                    "Black", 25, i % 5 == 0, "product-" + i + ".jpg"));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws JsonProcessingException
+    {
+        return objectMapper.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,77 @@
+package org.yearup.data.mysql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.FileSystemResource;
+import org.yearup.configurations.EmbeddedSchema;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping and dynamic SQL assembly in {@link MySqlProductDao}, measured without network I/O: the
+ * result set comes from an embedded H2 database loaded with database/create_database.sql.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductDaoBenchmark
+{
+    private String url;
+    private Connection connection;
+    private ResultSet row;
+
+    // non-final fields so the JIT cannot constant-fold the search arguments
+    private Integer categoryId = 1;
+    private BigDecimal minPrice = new BigDecimal("10.00");
+    private BigDecimal maxPrice = new BigDecimal("500.00");
+    private String color = "Black";
+
+    @Setup
+    public void setup() throws SQLException
+    {
+        url = EmbeddedSchema.newDatabaseUrl("jmh");
+        connection = DriverManager.getConnection(url, EmbeddedSchema.USERNAME, "");
+        EmbeddedSchema.load(connection, new FileSystemResource("database/create_database.sql"));
+
+        row = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+                .executeQuery("SELECT * FROM products WHERE product_id = 1");
+        row.next();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException
+    {
+        connection.close();
+        EmbeddedSchema.shutdown(url);
+    }
+
+    @Benchmark
+    public Product mapRow() throws SQLException
+    {
+        return MySqlProductDao.mapRow(row);
+    }
+
+    @Benchmark
+    public String buildSearchSql_noFilters()
+    {
+        return MySqlProductDao.buildSearchSql(null, null, null, null);
+    }
+
+    @Benchmark
+    public String buildSearchSql_allFilters()
+    {
+        return MySqlProductDao.buildSearchSql(categoryId, minPrice, maxPrice, color);
+    }
+}
@@ -0,0 +1,80 @@
+package org.yearup.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart assembly and totals, the work MySqlShoppingCartDao.getByUserId does for every GET /cart.
+ * <p>
+ * {@link #bigDecimalLineTotals()} replays the BigDecimal math the cart used before {@link Money}, so
+ * {@code -prof gc} shows the allocation difference side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShoppingCartBenchmark
+{
+    @Param({"20"})
+    private int itemCount;
+
+    private Product[] products;
+    private int[] quantities;
+    private BigDecimal[] bigDecimalPrices;
+    private ShoppingCart cart;
+
+    @Setup
+    public void setup()
+    {
+        products = new Product[itemCount];
+        quantities = new int[itemCount];
+        bigDecimalPrices = new BigDecimal[itemCount];
+
+        for (int i = 0; i < itemCount; i++)
+        {
+            Money price = Money.ofCents(999 + i * 1250L);
+            products[i] = new Product(i + 1, "Product " + i, price, 1, "", "Black", 10, false, "");
+            quantities[i] = 1 + i % 4;
+            bigDecimalPrices[i] = price.toBigDecimal();
+        }
+
+        cart = buildCart();
+    }
+
+    @Benchmark
+    public ShoppingCart buildCart()
+    {
+        ShoppingCart shoppingCart = new ShoppingCart();
+        for (int i = 0; i < products.length; i++)
+        {
+            Product product = products[i];
+            shoppingCart.addProduct(new ShoppingCartItem(product, quantities[i], product.getPrice().times(quantities[i])));
+        }
+        return shoppingCart;
+    }
+
+    @Benchmark
+    public Money getTotal()
+    {
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalLineTotals()
+    {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < bigDecimalPrices.length; i++)
+        {
+            total = total.add(bigDecimalPrices[i].multiply(new BigDecimal(quantities[i])));
+        }
+        return total;
+    }
+}
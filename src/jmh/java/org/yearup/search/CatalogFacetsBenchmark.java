@@ -0,0 +1,66 @@
+package org.yearup.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CatalogFacets} counts over a synthetic catalog, unfiltered and with all three filters set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogFacetsBenchmark
+{
+    private static final String[] COLORS = {"Black", "White", "Red", "Blue", "Green", "Gray", "Brown", "Pink"};
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private CatalogFacets facets;
+    private ProductFilter allFilters;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(catalogSize);
+        for (int id = 1; id <= catalogSize; id++)
+        {
+            products.add(new Product(id, "Product " + id, Money.ofCents(100 + random.nextInt(50_000)),
+                    1 + random.nextInt(20), "", COLORS[random.nextInt(COLORS.length)], 10, false, "image.jpg"));
+        }
+
+        facets = new CatalogFacets(Arrays.asList(Money.parse("25"), Money.parse("50"), Money.parse("100"),
+                Money.parse("250"), Money.parse("500")));
+        facets.rebuild(() -> products);
+        allFilters = new ProductFilter(3, new BigDecimal("10"), new BigDecimal("200"), "red");
+    }
+
+    @Benchmark
+    public ProductFacets unfiltered()
+    {
+        return facets.count(ProductFilter.NONE);
+    }
+
+    @Benchmark
+    public ProductFacets allFilters()
+    {
+        return facets.count(allFilters);
+    }
+}
@@ -0,0 +1,88 @@
+package org.yearup.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductIndex} queries over a synthetic catalog whose words follow a Zipf-like distribution, so
+ * some query terms are rare and some match a large share of the catalog, as in real product text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductIndexBenchmark
+{
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private ProductIndex index;
+    private ProductFilter categoryAndPrice;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++)
+        {
+            words[i] = "w" + Integer.toString(i, 36) + "x";
+        }
+
+        List<Product> products = new ArrayList<>(catalogSize);
+        for (int id = 1; id <= catalogSize; id++)
+        {
+            products.add(new Product(id, text(random, words, 3), Money.ofCents(100 + random.nextInt(50_000)),
+                    1 + random.nextInt(20), text(random, words, 20), "Black", 10, false, "image.jpg"));
+        }
+
+        index = new ProductIndex();
+        index.rebuild(() -> products);
+        categoryAndPrice = new ProductFilter(3, new BigDecimal("10"), new BigDecimal("200"), null);
+    }
+
+    // rank 1 is the most frequent word; a Zipf exponent of about 1 via inverse-transform sampling
+    private static String text(Random random, String[] words, int length)
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++)
+        {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            text.append(words[rank]).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public List<Product> rareTerms()
+    {
+        return index.search("w5ksx wa2x", ProductFilter.NONE, 20);
+    }
+
+    @Benchmark
+    public List<Product> commonTerm()
+    {
+        return index.search("w9x", ProductFilter.NONE, 20);
+    }
+
+    @Benchmark
+    public List<Product> commonTermFiltered()
+    {
+        return index.search("w9x", categoryAndPrice, 20);
+    }
+}
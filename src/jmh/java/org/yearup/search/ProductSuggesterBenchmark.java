@@ -0,0 +1,78 @@
+package org.yearup.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductSuggester} lookups over a synthetic catalog of three-word names, for a short prefix that matches
+ * a large share of the catalog and for a longer one that matches a handful of products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductSuggesterBenchmark
+{
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private ProductSuggester suggester;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++)
+        {
+            words[i] = "w" + Integer.toString(i, 36) + "x";
+        }
+
+        List<Product> products = new ArrayList<>(catalogSize);
+        Map<Integer, Integer> unitsSold = new HashMap<>();
+        for (int id = 1; id <= catalogSize; id++)
+        {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 3; i++)
+            {
+                int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+                name.append(words[rank]).append(' ');
+            }
+            products.add(new Product(id, name.toString().trim(), Money.ofCents(1000), 1, "", "Black", 10,
+                    random.nextInt(100) == 0, "image.jpg"));
+            unitsSold.put(id, random.nextInt(1000));
+        }
+
+        suggester = new ProductSuggester();
+        suggester.rebuild(() -> products, unitsSold);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> shortPrefix()
+    {
+        return suggester.suggest("w1", 10);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> longPrefix()
+    {
+        return suggester.suggest("w5ksx w", 10);
+    }
+}
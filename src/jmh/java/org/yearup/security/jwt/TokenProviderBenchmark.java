@@ -0,0 +1,60 @@
+package org.yearup.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT work done on every authenticated request (validate, then build the Authentication) and on login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenProviderBenchmark
+{
+    private static final String SECRET = "sK82mEwXg1oB4ZpQtYcRvUdLpA7jF9hIjKlMnOpQrStUvWxYz0123456789+/=zCj2pW5q7r9t0vX1yZ3wA5bC7dE9fGhIjKlMnOpQrStUvWxYzABcD";
+
+    private TokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setup()
+    {
+        tokenProvider = new TokenProvider(SECRET, 86400, new SimpleMeterRegistry());
+        tokenProvider.afterPropertiesSet();
+
+        authentication = new UsernamePasswordAuthenticationToken("user", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public String createToken()
+    {
+        return tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken()
+    {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication()
+    {
+        return tokenProvider.getAuthentication(token);
+    }
+}
@@ -0,0 +1,179 @@
+package org.yearup.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the embedded database with a synthetic catalog and user base of the size a scenario asks for.
+ * Rows are written with JDBC batches so a million-product catalog loads in seconds rather than minutes.
+ */
+public class CatalogSeeder
+{
+    public static final String PASSWORD = "password";
+    public static final String USERNAME_PREFIX = "loadtest_";
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String[] COLORS = {"Red", "Blue", "Green", "Black", "White", "Gray", "Yellow", "Purple"};
+
+    private final DataSource dataSource;
+    private final SplittableRandom random;
+
+    public CatalogSeeder(DataSource dataSource, long seed)
+    {
+        this.dataSource = dataSource;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public Catalog seed(Scenario scenario) throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            connection.setAutoCommit(false);
+            try
+            {
+                int firstCategory = insertCategories(connection, scenario.getCategories());
+                int firstProduct = insertProducts(connection, scenario.getProducts(), firstCategory, scenario.getCategories());
+                insertUsers(connection, scenario.getUsers());
+
+                return new Catalog(firstCategory, scenario.getCategories(), firstProduct, scenario.getProducts(), scenario.getUsers());
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int insertCategories(Connection connection, int count) throws SQLException
+    {
+        String sql = "INSERT INTO categories (name, description) VALUES (?, ?)";
+        int first = nextId(connection, "categories", "category_id");
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                statement.setString(1, "Load Test Category " + i);
+                statement.setString(2, "Synthetic category " + i);
+                addBatch(connection, statement, i);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return first;
+    }
+
+    private int insertProducts(Connection connection, int count, int firstCategory, int categories) throws SQLException
+    {
+        String sql = "INSERT INTO products (name, price, category_id, description, color, image_url, stock, featured) " +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        int first = nextId(connection, "products", "product_id");
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                statement.setString(1, "Load Test Product " + i);
+                statement.setBigDecimal(2, BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+                statement.setInt(3, firstCategory + i % categories);
+                statement.setString(4, "Synthetic product " + i + " for load testing");
+                statement.setString(5, COLORS[random.nextInt(COLORS.length)]);
+                statement.setString(6, "product-" + i + ".jpg");
+                statement.setInt(7, random.nextInt(500));
+                statement.setBoolean(8, random.nextInt(20) == 0);
+                addBatch(connection, statement, i);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return first;
+    }
+
+    private void insertUsers(Connection connection, int count) throws SQLException
+    {
+        String sql = "INSERT INTO users (username, hashed_password, role) VALUES (?, ?, 'ROLE_USER')";
+        // hashing is deliberately slow, so every synthetic user shares one hash of the same password
+        String hashedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                statement.setString(1, username(i));
+                statement.setString(2, hashedPassword);
+                addBatch(connection, statement, i);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    public static String username(int index)
+    {
+        return USERNAME_PREFIX + index;
+    }
+
+    private static void addBatch(Connection connection, PreparedStatement statement, int index) throws SQLException
+    {
+        statement.addBatch();
+        if ((index + 1) % BATCH_SIZE == 0)
+        {
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static int nextId(Connection connection, String table, String idColumn) throws SQLException
+    {
+        try (Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table))
+        {
+            row.next();
+            return row.getInt(1);
+        }
+    }
+
+    /**
+     * Id ranges of the seeded rows, used to pick request parameters.
+     */
+    public static class Catalog
+    {
+        private final int firstCategoryId;
+        private final int categoryCount;
+        private final int firstProductId;
+        private final int productCount;
+        private final int userCount;
+
+        public Catalog(int firstCategoryId, int categoryCount, int firstProductId, int productCount, int userCount)
+        {
+            this.firstCategoryId = firstCategoryId;
+            this.categoryCount = categoryCount;
+            this.firstProductId = firstProductId;
+            this.productCount = productCount;
+            this.userCount = userCount;
+        }
+
+        public int randomCategoryId(SplittableRandom random)
+        {
+            return firstCategoryId + random.nextInt(categoryCount);
+        }
+
+        public int randomProductId(SplittableRandom random)
+        {
+            return firstProductId + random.nextInt(productCount);
+        }
+
+        public String randomUsername(SplittableRandom random)
+        {
+            return username(random.nextInt(userCount));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.yearup.loadtest;
+
+/**
+ * The requests a load-test scenario can mix. The key is the name used for the weight in a scenario file,
+ * e.g. {@code mix.category-products=40}.
+ */
+public enum Endpoint
+{
+    BROWSE_PRODUCTS("browse-products", "GET /products"),
+    CATEGORY_PRODUCTS("category-products", "GET /categories/{id}/products"),
+    LOGIN("login", "POST /login"),
+    ADD_TO_CART("add-to-cart", "POST /cart/products/{id}"),
+    GET_CART("get-cart", "GET /cart");
+
+    private final String key;
+    private final String label;
+
+    Endpoint(String key, String label)
+    {
+        this.key = key;
+        this.label = label;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+}
@@ -0,0 +1,112 @@
+package org.yearup.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters for one endpoint. Latency is recorded in microseconds from the
+ * time the request was <em>scheduled</em> to be sent, so queueing in front of a slow server shows up in the
+ * percentiles instead of silently lowering the request rate.
+ */
+public class EndpointStats
+{
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Endpoint endpoint;
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> errorKinds = new ConcurrentSkipListMap<>();
+
+    public EndpointStats(Endpoint endpoint)
+    {
+        this.endpoint = endpoint;
+    }
+
+    public void recordSuccess(long latencyNanos)
+    {
+        requests.increment();
+        record(latencyNanos);
+    }
+
+    /**
+     * @param kind what went wrong, e.g. {@code HTTP 500} or the exception's class name
+     */
+    public void recordError(long latencyNanos, String kind)
+    {
+        requests.increment();
+        errors.increment();
+        errorKinds.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        record(latencyNanos);
+    }
+
+    public void recordTimeout(long latencyNanos)
+    {
+        requests.increment();
+        errors.increment();
+        timeouts.increment();
+        record(latencyNanos);
+    }
+
+    /**
+     * The request was never sent because too many were already outstanding; the server has fallen so far
+     * behind the arrival rate that the client would otherwise run out of memory.
+     */
+    public void recordDropped()
+    {
+        requests.increment();
+        errors.increment();
+        dropped.increment();
+    }
+
+    private void record(long latencyNanos)
+    {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        latency.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+    }
+
+    public Endpoint getEndpoint()
+    {
+        return endpoint;
+    }
+
+    public Histogram getLatency()
+    {
+        return latency;
+    }
+
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    public long getErrors()
+    {
+        return errors.sum();
+    }
+
+    public long getTimeouts()
+    {
+        return timeouts.sum();
+    }
+
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    public Map<String, Long> getErrorKinds()
+    {
+        Map<String, Long> kinds = new TreeMap<>();
+        errorKinds.forEach((kind, count) -> kinds.put(kind, count.sum()));
+        return kinds;
+    }
+}
@@ -0,0 +1,245 @@
+package org.yearup.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule derived from the scenario's arrival
+ * rate, whether or not earlier requests have finished. A closed loop of N users waiting for each response
+ * would slow down together with the server and hide exactly the latency we want to see.
+ */
+public class LoadGenerator implements AutoCloseable
+{
+    private final Scenario scenario;
+    private final CatalogSeeder.Catalog catalog;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()), daemonThreads());
+    private final HttpClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final List<String> sessionTokens = new ArrayList<>();
+
+    public LoadGenerator(Scenario scenario, CatalogSeeder.Catalog catalog, int port)
+    {
+        this.scenario = scenario;
+        this.catalog = catalog;
+        this.baseUri = URI.create("http://localhost:" + port);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(scenario.getTimeout())
+                .executor(executor)
+                .build();
+
+        for (Endpoint endpoint : scenario.getMix().keySet())
+        {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    /**
+     * Logs in the scenario's session users up front so the cart requests carry a token; these logins are
+     * setup and are not measured.
+     */
+    public void openSessions() throws IOException, InterruptedException
+    {
+        for (int i = 0; i < scenario.getSessions(); i++)
+        {
+            HttpResponse<String> response = client.send(login(CatalogSeeder.username(i)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+            {
+                throw new IllegalStateException("Login for session " + i + " failed with HTTP " + response.statusCode());
+            }
+
+            JsonNode body = objectMapper.readTree(response.body());
+            sessionTokens.add(body.path("token").asText());
+        }
+    }
+
+    public Map<Endpoint, EndpointStats> run() throws InterruptedException
+    {
+        Endpoint[] wheel = weightedWheel(scenario.getMix());
+        SplittableRandom random = new SplittableRandom(scenario.getSeed());
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) scenario.getRate();
+
+        long start = System.nanoTime();
+        long measureFrom = start + scenario.getWarmup().toNanos();
+        long end = measureFrom + scenario.getDuration().toNanos();
+
+        for (long i = 0; ; i++)
+        {
+            long intendedStart = start + (long) (i * intervalNanos);
+            if (intendedStart >= end)
+            {
+                break;
+            }
+
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint endpoint = wheel[random.nextInt(wheel.length)];
+            HttpRequest request = newRequest(endpoint, random);
+            EndpointStats endpointStats = intendedStart >= measureFrom ? stats.get(endpoint) : null;
+
+            if (inFlight.get() >= scenario.getMaxInFlight())
+            {
+                if (endpointStats != null) endpointStats.recordDropped();
+                continue;
+            }
+            send(request, intendedStart, endpointStats);
+        }
+
+        awaitOutstanding();
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private void send(HttpRequest request, long intendedStart, EndpointStats endpointStats)
+    {
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (endpointStats == null)
+                    {
+                        return;
+                    }
+
+                    long latency = System.nanoTime() - intendedStart;
+                    if (error != null)
+                    {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        if (cause instanceof HttpTimeoutException)
+                        {
+                            endpointStats.recordTimeout(latency);
+                        }
+                        else
+                        {
+                            endpointStats.recordError(latency, cause.getClass().getSimpleName());
+                        }
+                    }
+                    else if (response.statusCode() >= 400)
+                    {
+                        endpointStats.recordError(latency, "HTTP " + response.statusCode());
+                    }
+                    else
+                    {
+                        endpointStats.recordSuccess(latency);
+                    }
+                });
+    }
+
+    private HttpRequest newRequest(Endpoint endpoint, SplittableRandom random)
+    {
+        switch (endpoint)
+        {
+            case BROWSE_PRODUCTS:
+                return get("/products", null);
+            case CATEGORY_PRODUCTS:
+                return get("/categories/" + catalog.randomCategoryId(random) + "/products", null);
+            case LOGIN:
+                return login(catalog.randomUsername(random));
+            case ADD_TO_CART:
+                return request("/cart/products/" + catalog.randomProductId(random), randomToken(random))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            case GET_CART:
+                return get("/cart", randomToken(random));
+            default:
+                throw new IllegalArgumentException("Unsupported endpoint: " + endpoint);
+        }
+    }
+
+    private HttpRequest get(String path, String token)
+    {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest login(String username)
+    {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + CatalogSeeder.PASSWORD + "\"}";
+        return request("/login", null)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token)
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(scenario.getTimeout())
+                .header("Accept", "application/json");
+        if (token != null)
+        {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private String randomToken(SplittableRandom random)
+    {
+        return sessionTokens.get(random.nextInt(sessionTokens.size()));
+    }
+
+    private void awaitOutstanding() throws InterruptedException
+    {
+        long deadline = System.nanoTime() + scenario.getTimeout().plus(Duration.ofSeconds(1)).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline)
+        {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Endpoint[] weightedWheel(Map<Endpoint, Integer> mix)
+    {
+        List<Endpoint> wheel = new ArrayList<>();
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet())
+        {
+            for (int i = 0; i < entry.getValue(); i++)
+            {
+                wheel.add(entry.getKey());
+            }
+        }
+        return wheel.toArray(new Endpoint[0]);
+    }
+
+    private static ThreadFactory daemonThreads()
+    {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
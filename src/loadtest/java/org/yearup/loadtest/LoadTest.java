@@ -0,0 +1,81 @@
+package org.yearup.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.yearup.EasyshopApplication;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Boots EasyShop on a random port against the embedded database, seeds it for the chosen scenario, drives
+ * the scenario's request mix at a fixed arrival rate and reports per-endpoint results.
+ * <p>
+ * Usage: {@code LoadTest [scenario]}; the scenario defaults to {@code smoke}. The JSON report goes to
+ * {@code target/loadtest/<scenario>.json}.
+ */
+public class LoadTest
+{
+    public static void main(String[] args) throws Exception
+    {
+        Scenario scenario = Scenario.load(args.length > 0 ? args[0] : "smoke");
+
+        // devtools would restart the app in a separate class loader and thread, outside this method
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EasyshopApplication.class)
+                .profiles("embedded")
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .initializers(LoadTest::excludeTestConfigurations)
+                .run();
+
+        try
+        {
+            long seedStart = System.nanoTime();
+            CatalogSeeder.Catalog catalog = new CatalogSeeder(context.getBean(DataSource.class), scenario.getSeed()).seed(scenario);
+            System.out.printf("Seeded %d products, %d categories and %d users in %.1fs%n",
+                    scenario.getProducts(), scenario.getCategories(), scenario.getUsers(),
+                    (System.nanoTime() - seedStart) / 1e9);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            try (LoadGenerator generator = new LoadGenerator(scenario, catalog, port))
+            {
+                generator.openSessions();
+                System.out.printf("Running '%s': %ds warm-up, then %ds measured at %d req/s%n",
+                        scenario.getName(), scenario.getWarmup().getSeconds(), scenario.getDuration().getSeconds(), scenario.getRate());
+
+                Map<Endpoint, EndpointStats> stats = generator.run();
+
+                LoadTestReport report = new LoadTestReport(scenario, stats);
+                report.print(System.out);
+
+                Path output = Path.of("target", "loadtest", scenario.getName() + ".json");
+                report.write(output);
+                System.out.println("\nReport written to " + output);
+            }
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+    // the test classes are on the classpath too; keep component scanning away from their @TestConfigurations
+    private static void excludeTestConfigurations(ConfigurableApplicationContext context)
+    {
+        context.getBeanFactory().registerSingleton("loadTestTypeExcludeFilter", new TypeExcludeFilter()
+        {
+            @Override
+            public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory)
+            {
+                return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+            }
+        });
+    }
+}
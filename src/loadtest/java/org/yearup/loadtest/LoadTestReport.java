@@ -0,0 +1,114 @@
+package org.yearup.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-endpoint throughput, latency percentiles and error rates for one scenario run, printed as a table
+ * and written as JSON so runs can be compared over time.
+ */
+public class LoadTestReport
+{
+    private final Scenario scenario;
+    private final Map<Endpoint, EndpointStats> stats;
+    private final double seconds;
+
+    public LoadTestReport(Scenario scenario, Map<Endpoint, EndpointStats> stats)
+    {
+        this.scenario = scenario;
+        this.stats = stats;
+        this.seconds = scenario.getDuration().toMillis() / 1000.0;
+    }
+
+    public void print(PrintStream out)
+    {
+        out.printf("%nScenario '%s': %d products, %d categories, %d users, %d req/s for %ds%n",
+                scenario.getName(), scenario.getProducts(), scenario.getCategories(), scenario.getUsers(),
+                scenario.getRate(), scenario.getDuration().getSeconds());
+        out.printf("%-32s %9s %9s %10s %10s %10s %10s %8s%n",
+                "Endpoint", "Requests", "OK/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "Errors");
+
+        for (EndpointStats endpointStats : stats.values())
+        {
+            Histogram latency = endpointStats.getLatency();
+            out.printf("%-32s %9d %9.1f %10.2f %10.2f %10.2f %10.2f %7.2f%%%n",
+                    endpointStats.getEndpoint().getLabel(),
+                    endpointStats.getRequests(),
+                    throughput(endpointStats),
+                    millis(latency.getValueAtPercentile(50)),
+                    millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()),
+                    errorRate(endpointStats) * 100);
+        }
+
+        for (EndpointStats endpointStats : stats.values())
+        {
+            Map<String, Long> kinds = new TreeMap<>(endpointStats.getErrorKinds());
+            if (endpointStats.getTimeouts() > 0) kinds.put("timeout", endpointStats.getTimeouts());
+            if (endpointStats.getDropped() > 0) kinds.put("dropped", endpointStats.getDropped());
+            if (!kinds.isEmpty())
+            {
+                out.printf("  %s errors: %s%n", endpointStats.getEndpoint().getLabel(), kinds);
+            }
+        }
+    }
+
+    public void write(Path file) throws IOException
+    {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        root.put("scenario", scenario.getName())
+                .put("products", scenario.getProducts())
+                .put("categories", scenario.getCategories())
+                .put("users", scenario.getUsers())
+                .put("ratePerSecond", scenario.getRate())
+                .put("durationSeconds", seconds);
+
+        ObjectNode endpoints = root.putObject("endpoints");
+        for (EndpointStats endpointStats : stats.values())
+        {
+            Histogram latency = endpointStats.getLatency();
+            endpoints.putObject(endpointStats.getEndpoint().getLabel())
+                    .put("requests", endpointStats.getRequests())
+                    .put("throughputPerSecond", throughput(endpointStats))
+                    .put("p50Millis", millis(latency.getValueAtPercentile(50)))
+                    .put("p99Millis", millis(latency.getValueAtPercentile(99)))
+                    .put("p999Millis", millis(latency.getValueAtPercentile(99.9)))
+                    .put("maxMillis", millis(latency.getMaxValue()))
+                    .put("errors", endpointStats.getErrors())
+                    .put("timeouts", endpointStats.getTimeouts())
+                    .put("dropped", endpointStats.getDropped())
+                    .put("errorRate", errorRate(endpointStats))
+                    .set("errorKinds", mapper.valueToTree(endpointStats.getErrorKinds()));
+        }
+
+        Files.createDirectories(file.getParent());
+        mapper.writeValue(file.toFile(), root);
+    }
+
+    // successful responses per second of the measured window
+    private double throughput(EndpointStats endpointStats)
+    {
+        return (endpointStats.getRequests() - endpointStats.getErrors()) / seconds;
+    }
+
+    private static double errorRate(EndpointStats endpointStats)
+    {
+        return endpointStats.getRequests() == 0 ? 0 : (double) endpointStats.getErrors() / endpointStats.getRequests();
+    }
+
+    private static double millis(long micros)
+    {
+        return micros / 1000.0;
+    }
+}
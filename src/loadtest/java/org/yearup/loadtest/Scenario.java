@@ -0,0 +1,177 @@
+package org.yearup.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A load-test scenario read from {@code scenarios/<name>.properties} on the classpath
+ * (src/loadtest/resources), so every scenario is versioned with the code it measures.
+ */
+public class Scenario
+{
+    private final String name;
+    private final int products;
+    private final int categories;
+    private final int users;
+    private final int sessions;
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final long seed;
+    private final Map<Endpoint, Integer> mix;
+
+    private Scenario(String name, Properties properties)
+    {
+        this.name = name;
+        this.products = intValue(properties, "products");
+        this.categories = intValue(properties, "categories");
+        this.users = intValue(properties, "users");
+        this.sessions = Math.min(intValue(properties, "sessions"), users);
+        this.rate = intValue(properties, "rate");
+        this.warmup = durationValue(properties, "warmup");
+        this.duration = durationValue(properties, "duration");
+        this.timeout = durationValue(properties, "timeout");
+        this.maxInFlight = intValue(properties, "max-in-flight");
+        this.seed = Long.parseLong(properties.getProperty("seed", "42"));
+
+        this.mix = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values())
+        {
+            int weight = Integer.parseInt(properties.getProperty("mix." + endpoint.getKey(), "0").trim());
+            if (weight > 0)
+            {
+                mix.put(endpoint, weight);
+            }
+        }
+
+        if (rate <= 0 || mix.isEmpty())
+        {
+            throw new IllegalArgumentException("Scenario " + name + " needs a positive rate and at least one mix weight");
+        }
+        if (products <= 0 || categories <= 0 || users <= 0 || sessions <= 0)
+        {
+            throw new IllegalArgumentException("Scenario " + name + " needs products, categories, users and sessions");
+        }
+    }
+
+    public static Scenario load(String name)
+    {
+        String resource = "scenarios/" + name + ".properties";
+        try (InputStream in = Scenario.class.getClassLoader().getResourceAsStream(resource))
+        {
+            if (in == null)
+            {
+                throw new IllegalArgumentException("No scenario found at " + resource);
+            }
+
+            Properties properties = new Properties();
+            properties.load(in);
+            // -Dloadtest.<key>=... overrides a single value without editing the file
+            for (String key : properties.stringPropertyNames())
+            {
+                String override = System.getProperty("loadtest." + key);
+                if (override != null)
+                {
+                    properties.setProperty(key, override);
+                }
+            }
+            return new Scenario(name, properties);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Could not read " + resource, e);
+        }
+    }
+
+    private static int intValue(Properties properties, String key)
+    {
+        String value = properties.getProperty(key);
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Missing scenario property: " + key);
+        }
+        return Integer.parseInt(value.trim().replace("_", ""));
+    }
+
+    // accepts 500ms, 30s, 2m
+    private static Duration durationValue(Properties properties, String key)
+    {
+        String value = properties.getProperty(key);
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Missing scenario property: " + key);
+        }
+
+        value = value.trim();
+        if (value.endsWith("ms")) return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        if (value.endsWith("s")) return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        if (value.endsWith("m")) return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        throw new IllegalArgumentException("Invalid duration for " + key + ": " + value);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getProducts()
+    {
+        return products;
+    }
+
+    public int getCategories()
+    {
+        return categories;
+    }
+
+    public int getUsers()
+    {
+        return users;
+    }
+
+    public int getSessions()
+    {
+        return sessions;
+    }
+
+    public int getRate()
+    {
+        return rate;
+    }
+
+    public Duration getWarmup()
+    {
+        return warmup;
+    }
+
+    public Duration getDuration()
+    {
+        return duration;
+    }
+
+    public Duration getTimeout()
+    {
+        return timeout;
+    }
+
+    public int getMaxInFlight()
+    {
+        return maxInFlight;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public Map<Endpoint, Integer> getMix()
+    {
+        return mix;
+    }
+}
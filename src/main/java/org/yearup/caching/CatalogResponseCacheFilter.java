@@ -0,0 +1,341 @@
+package org.yearup.caching;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.yearup.data.CatalogVersion;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves anonymous catalog reads ({@code GET /products}, {@code GET /categories} and
+ * {@code GET /categories/{id}/products}) from bytes that were already serialized for an earlier request.
+ * <p>
+ * The first request for a path and query goes through as usual; its 200 JSON body is kept as UTF-8 bytes,
+ * together with a gzipped copy, and tagged with the {@link CatalogVersion} it was read at. Later requests for
+ * the same path and query are written straight to the output stream as long as the catalog has not been written
+ * since. Clients that accept gzip get the compressed copy.
+ * <p>
+ * Only the query parameters the endpoint reads are part of the key, in a fixed order, so made-up parameters
+ * cannot each claim an entry. The bodies are bounded by {@code maxBytes} in total rather than by a count, since
+ * one entry can be the whole catalog; when a new body does not fit, entries from an older catalog version go
+ * first, then the least recently served ones.
+ * <p>
+ * Requests carrying an {@code Authorization} header always go through, so nothing a signed-in user sees is
+ * ever served to someone else. The filter runs ahead of Spring Security, so the headers Security and the
+ * controllers set on the first response are replayed on hits; only the CORS header is worked out again per
+ * request, since it depends on whether the request came with an {@code Origin}.
+ */
+public class CatalogResponseCacheFilter extends OncePerRequestFilter
+{
+    private static final Pattern CATEGORY_PRODUCTS_PATH = Pattern.compile("/categories/\\d+/products");
+
+    // the parameters each cacheable endpoint reads, in key order; anything else does not change the response
+    private static final List<String> PRODUCTS_PARAMETERS = Arrays.asList("cat", "minPrice", "maxPrice", "color", "ids", "fields");
+    private static final List<String> CATEGORIES_PARAMETERS = Arrays.asList("include", "productLimit", "productOrder", "fields");
+    private static final List<String> CATEGORY_PRODUCTS_PARAMETERS = Collections.singletonList("fields");
+
+    // below this the gzip header costs about as much as compression saves
+    private static final int MIN_GZIP_BYTES = 256;
+
+    private final CatalogVersion catalogVersion;
+    private final long maxBytes;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private final Counter hits;
+    private final Counter misses;
+
+    public CatalogResponseCacheFilter(CatalogVersion catalogVersion, long maxBytes, MeterRegistry registry)
+    {
+        this.catalogVersion = catalogVersion;
+        this.maxBytes = maxBytes;
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        registry.gauge("easyshop.response-cache.bytes", cachedBytes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request)
+    {
+        return !"GET".equals(request.getMethod())
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null
+                || parameters(path(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        String key = key(request);
+        long version = catalogVersion.get();
+
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.version == version)
+        {
+            hits.increment();
+            cached.lastServed = System.nanoTime();
+            cached.writeTo(request, response);
+            return;
+        }
+
+        misses.increment();
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try
+        {
+            filterChain.doFilter(request, buffered);
+            store(key, version, buffered);
+        }
+        finally
+        {
+            buffered.setHeader(HttpHeaders.VARY, vary(buffered.getHeaders(HttpHeaders.VARY)));
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    private void store(String key, long version, ContentCachingResponseWrapper response) throws IOException
+    {
+        String contentType = response.getContentType();
+        if (response.getStatus() != HttpStatus.OK.value() || contentType == null || !contentType.contains("json"))
+        {
+            return;
+        }
+        // served from the last good result during a database incident; the next request should try again
+        if (response.containsHeader(HttpHeaders.WARNING))
+        {
+            return;
+        }
+
+        List<String[]> headers = new ArrayList<>();
+        for (String name : response.getHeaderNames())
+        {
+            if (isReplayable(name))
+            {
+                for (String value : response.getHeaders(name))
+                {
+                    headers.add(new String[]{name, value});
+                }
+            }
+        }
+
+        byte[] body = response.getContentAsByteArray();
+        byte[] gzipped = body.length >= MIN_GZIP_BYTES ? gzip(body) : null;
+        String vary = vary(response.getHeaders(HttpHeaders.VARY));
+        CachedResponse entry = new CachedResponse(version, key, contentType, vary, headers, body, gzipped);
+        if (entry.bytes > maxBytes)
+        {
+            return;
+        }
+
+        CachedResponse replaced = entries.put(key, entry);
+        cachedBytes.addAndGet(entry.bytes - (replaced != null ? replaced.bytes : 0));
+        if (cachedBytes.get() > maxBytes)
+        {
+            evict();
+        }
+    }
+
+    // Stale versions first, then least recently served. Only misses get here, so the sort does not slow hits down.
+    private void evict()
+    {
+        synchronized (evictionLock)
+        {
+            long current = catalogVersion.get();
+            List<CachedResponse> candidates = new ArrayList<>(entries.values());
+            candidates.sort(Comparator.<CachedResponse>comparingInt(entry -> entry.version == current ? 1 : 0)
+                    .thenComparingLong(entry -> entry.lastServed));
+            for (CachedResponse entry : candidates)
+            {
+                if (cachedBytes.get() <= maxBytes)
+                {
+                    break;
+                }
+                if (entries.remove(entry.key, entry))
+                {
+                    cachedBytes.addAndGet(-entry.bytes);
+                }
+            }
+        }
+    }
+
+    private static boolean isReplayable(String header)
+    {
+        String name = header.toLowerCase();
+        return !name.equals("content-length")
+                && !name.equals("content-type")
+                && !name.equals("content-encoding")
+                && !name.equals("date")
+                && !name.equals("set-cookie")
+                && !name.equals("server-timing")
+                && !name.equals("vary")
+                && !name.startsWith("access-control-");
+    }
+
+    // The path plus the endpoint's own non-empty parameters in a fixed order, so ?b=2&a=1 and ?a=1&b=2 share an
+    // entry. A parameter's values stay in request order: ids=3&ids=1 asks for a different order than ids=1&ids=3.
+    static String key(HttpServletRequest request)
+    {
+        String path = path(request);
+        StringBuilder key = new StringBuilder(path);
+        char separator = '?';
+        for (String name : parameters(path))
+        {
+            String[] values = request.getParameterValues(name);
+            if (values == null)
+            {
+                continue;
+            }
+            for (String value : values)
+            {
+                if (!value.isEmpty())
+                {
+                    key.append(separator).append(name).append('=').append(value);
+                    separator = '&';
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    // null for a path that is not cached
+    private static List<String> parameters(String path)
+    {
+        if (path.equals("/products"))
+        {
+            return PRODUCTS_PARAMETERS;
+        }
+        if (path.equals("/categories"))
+        {
+            return CATEGORIES_PARAMETERS;
+        }
+        return CATEGORY_PRODUCTS_PATH.matcher(path).matches() ? CATEGORY_PRODUCTS_PARAMETERS : null;
+    }
+
+    private static String path(HttpServletRequest request)
+    {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // the response now depends on Accept-Encoding as well as whatever it already varied on
+    private static String vary(Collection<String> values)
+    {
+        StringJoiner vary = new StringJoiner(", ");
+        for (String value : values)
+        {
+            if (!value.contains(HttpHeaders.ACCEPT_ENCODING))
+            {
+                vary.add(value);
+            }
+        }
+        return vary.add(HttpHeaders.ACCEPT_ENCODING).toString();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request)
+    {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(","))
+        {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+            {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed))
+        {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Counter requests(MeterRegistry registry, String result)
+    {
+        return Counter.builder("easyshop.response-cache.requests")
+                .description("Anonymous catalog reads, by whether they were served from the response cache")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static final class CachedResponse
+    {
+        private final long version;
+        private final String key;
+        private final String contentType;
+        private final String vary;
+        private final List<String[]> headers;
+        private final byte[] body;
+        private final byte[] gzipped;
+        // the bodies plus a rough allowance for the key and headers
+        private final long bytes;
+        // approximate LRU: a racy write on every hit is cheaper than keeping an exact order
+        private volatile long lastServed = System.nanoTime();
+
+        private CachedResponse(long version, String key, String contentType, String vary, List<String[]> headers,
+                               byte[] body, byte[] gzipped)
+        {
+            this.version = version;
+            this.key = key;
+            this.contentType = contentType;
+            this.vary = vary;
+            this.headers = headers;
+            this.body = body;
+            this.gzipped = gzipped;
+            this.bytes = body.length + (gzipped != null ? gzipped.length : 0) + 64L * (headers.size() + 4) + key.length();
+        }
+
+        private void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            response.setStatus(HttpStatus.OK.value());
+            for (String[] header : headers)
+            {
+                response.addHeader(header[0], header[1]);
+            }
+            response.setHeader(HttpHeaders.VARY, vary);
+            // the catalog controllers are @CrossOrigin with the defaults, which allow any origin
+            if (request.getHeader(HttpHeaders.ORIGIN) != null)
+            {
+                response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            }
+            response.setContentType(contentType);
+
+            byte[] content = body;
+            if (gzipped != null && acceptsGzip(request))
+            {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                content = gzipped;
+            }
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.yearup.caching;
+
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code Cache-Control} header for each cacheable endpoint, read from
+ * {@code easyshop.http-cache.<endpoint>.max-age} and {@code easyshop.http-cache.<endpoint>.stale-while-revalidate}.
+ * <p>
+ * Catalog responses are the same for every caller, so they are marked {@code public} and a CDN may share them
+ * between users. An endpoint without a max-age gets {@code no-cache}: clients keep the response but revalidate
+ * it every time, which costs a 304 when the resource has an ETag.
+ */
+@Component
+public class HttpCachePolicy
+{
+    public static final String PRODUCT = "product";
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORY = "category";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_PRODUCTS = "category-products";
+
+    private final Environment environment;
+    private final Map<String, CacheControl> policies = new ConcurrentHashMap<>();
+
+    public HttpCachePolicy(Environment environment)
+    {
+        this.environment = environment;
+    }
+
+    public CacheControl cacheControl(String endpoint)
+    {
+        return policies.computeIfAbsent(endpoint, this::load);
+    }
+
+    private CacheControl load(String endpoint)
+    {
+        String prefix = "easyshop.http-cache." + endpoint + ".";
+        Duration maxAge = environment.getProperty(prefix + "max-age", Duration.class, Duration.ZERO);
+        Duration staleWhileRevalidate = environment.getProperty(prefix + "stale-while-revalidate", Duration.class, Duration.ZERO);
+
+        if (maxAge.isZero() || maxAge.isNegative())
+        {
+            return CacheControl.noCache();
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+        if (!staleWhileRevalidate.isZero() && !staleWhileRevalidate.isNegative())
+        {
+            cacheControl = cacheControl.staleWhileRevalidate(staleWhileRevalidate);
+        }
+        return cacheControl;
+    }
+}
@@ -0,0 +1,82 @@
+package org.yearup.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.ProductDao;
+import org.yearup.data.coalescing.CoalescingProductDao;
+import org.yearup.data.events.NotifyingProductDao;
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.data.resilience.CircuitBreaker;
+import org.yearup.data.resilience.LastGoodReads;
+import org.yearup.data.resilience.ResilientCategoryDao;
+import org.yearup.data.resilience.ResilientProductDao;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link ProductDao} and {@link CategoryDao} the controllers get: the MySQL DAOs wrapped in whichever
+ * layers are switched on. From the outside in: last-good fallback, request coalescing, then change notification
+ * for the in-memory catalog views.
+ */
+@Configuration
+public class CatalogDaoConfig
+{
+    @Bean
+    @Primary
+    public ProductDao productDao(MySqlProductDao mySqlProductDao,
+                                 CatalogVersion catalogVersion,
+                                 MeterRegistry registry,
+                                 ObjectProvider<LastGoodReads> lastGoodReads,
+                                 ObjectProvider<ProductChangeListener> changeListeners,
+                                 @Value("${easyshop.coalescing.enabled:true}") boolean coalescing,
+                                 @Value("${easyshop.coalescing.timeout:2s}") Duration coalescingTimeout)
+    {
+        List<ProductChangeListener> listeners = changeListeners.orderedStream().collect(Collectors.toList());
+        ProductDao productDao = listeners.isEmpty() ? mySqlProductDao : new NotifyingProductDao(mySqlProductDao, listeners);
+
+        if (coalescing)
+        {
+            productDao = new CoalescingProductDao(productDao, catalogVersion, coalescingTimeout, registry);
+        }
+
+        LastGoodReads reads = lastGoodReads.getIfAvailable();
+        if (reads != null)
+        {
+            productDao = new ResilientProductDao(productDao, reads);
+        }
+        return productDao;
+    }
+
+    @Bean
+    @Primary
+    public CategoryDao categoryDao(MySqlCategoryDao mySqlCategoryDao, ObjectProvider<LastGoodReads> lastGoodReads)
+    {
+        LastGoodReads reads = lastGoodReads.getIfAvailable();
+        return reads != null ? new ResilientCategoryDao(mySqlCategoryDao, reads) : mySqlCategoryDao;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "easyshop.resilience.enabled", havingValue = "true", matchIfMissing = true)
+    public LastGoodReads lastGoodReads(MeterRegistry registry,
+                                       @Value("${easyshop.resilience.failure-threshold:5}") int failureThreshold,
+                                       @Value("${easyshop.resilience.slow-call-threshold:1s}") Duration slowCallThreshold,
+                                       @Value("${easyshop.resilience.open-duration:10s}") Duration openDuration,
+                                       @Value("${easyshop.resilience.refresh-concurrency:2}") int refreshConcurrency,
+                                       @Value("${easyshop.resilience.max-size:32MB}") DataSize maxSize)
+    {
+        CircuitBreaker breaker = new CircuitBreaker(failureThreshold, slowCallThreshold, openDuration);
+        return new LastGoodReads(breaker, maxSize.toBytes(), refreshConcurrency, registry);
+    }
+}
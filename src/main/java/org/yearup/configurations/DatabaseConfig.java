@@ -5,8 +5,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
 
 @Configuration
+@Profile("!embedded")
 public class DatabaseConfig
 {
     private BasicDataSource basicDataSource;
@@ -20,12 +24,18 @@ public class DatabaseConfig
     @Autowired
     public DatabaseConfig(@Value("${spring.datasource.url}") String url,
                           @Value("${spring.datasource.username}") String username,
-                          @Value("${spring.datasource.password}") String password)
+                          @Value("${spring.datasource.password}") String password,
+                          @Value("${easyshop.datasource.max-wait:2s}") Duration maxWait,
+                          @Value("${easyshop.datasource.query-timeout:5s}") Duration queryTimeout)
     {
         basicDataSource = new BasicDataSource();
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+
+        // bounded waits, so a stalled database shows up as errors the DAOs can fall back from instead of hung requests
+        basicDataSource.setMaxWaitMillis(maxWait.toMillis());
+        basicDataSource.setDefaultQueryTimeout((int) Math.max(1, queryTimeout.getSeconds()));
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
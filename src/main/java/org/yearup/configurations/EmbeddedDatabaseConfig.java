@@ -0,0 +1,47 @@
+package org.yearup.configurations;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Replaces {@link DatabaseConfig} when the "embedded" profile is active: the app runs against a private
+ * in-memory H2 database in MySQL compatibility mode, created from database/create_database.sql.
+ * <p>
+ * Every application context gets its own database, so test classes and benchmark forks never share data.
+ */
+@Configuration
+@Profile("embedded")
+public class EmbeddedDatabaseConfig
+{
+    private final Resource schema;
+    private final String url = EmbeddedSchema.newDatabaseUrl("easyshop");
+
+    public EmbeddedDatabaseConfig(@Value("${easyshop.embedded.schema}") Resource schema)
+    {
+        this.schema = schema;
+    }
+
+    @Bean
+    public BasicDataSource dataSource()
+    {
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(url);
+        basicDataSource.setUsername(EmbeddedSchema.USERNAME);
+        basicDataSource.setPassword("");
+
+        EmbeddedSchema.load(basicDataSource, schema);
+        return basicDataSource;
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        EmbeddedSchema.shutdown(url);
+    }
+}
@@ -0,0 +1,96 @@
+package org.yearup.configurations;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.util.FileCopyUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Loads database/create_database.sql into an in-memory H2 database running in MySQL compatibility mode.
+ * <p>
+ * The script is written for a MySQL server, so the statements that manage whole databases
+ * ({@code USE}, {@code CREATE DATABASE}, {@code DROP DATABASE}) are skipped; every embedded database is
+ * already its own isolated schema.
+ */
+public final class EmbeddedSchema
+{
+    public static final String USERNAME = "sa";
+
+    private static final String[] COMMENT_PREFIXES = {"--", "#"};
+    // a statement that starts a line and manages a whole database, up to and including its semicolon
+    private static final Pattern SERVER_STATEMENT = Pattern.compile(
+            "^[ \\t]*(USE\\s|CREATE\\s+DATABASE\\s|DROP\\s+DATABASE\\s)[^;]*;", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
+    private EmbeddedSchema()
+    {
+    }
+
+    /**
+     * JDBC URL for a new, uniquely named in-memory database. The database stays alive between connections
+     * until {@link #shutdown(String)} is called, so every pooled connection sees the same data.
+     */
+    public static String newDatabaseUrl(String prefix)
+    {
+        String name = prefix + "_" + UUID.randomUUID().toString().replace("-", "");
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    public static void shutdown(String url)
+    {
+        try (Connection connection = DriverManager.getConnection(url, USERNAME, "");
+             Statement statement = connection.createStatement())
+        {
+            statement.execute("SHUTDOWN");
+        }
+        catch (SQLException ignored) {}
+    }
+
+    public static void load(DataSource dataSource, Resource script)
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            load(connection, script);
+        }
+        catch (SQLException e)
+        {
+            throw new IllegalStateException("Could not load " + script.getDescription(), e);
+        }
+    }
+
+    public static void load(Connection connection, Resource script) throws SQLException
+    {
+        String sql;
+        try (Reader reader = new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8))
+        {
+            sql = FileCopyUtils.copyToString(reader);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Could not read " + script.getDescription(), e);
+        }
+
+        Resource embeddable = new ByteArrayResource(SERVER_STATEMENT.matcher(sql).replaceAll("").getBytes(StandardCharsets.UTF_8),
+                script.getDescription());
+        ScriptUtils.executeSqlScript(connection, new EncodedResource(embeddable, StandardCharsets.UTF_8), false, false,
+                COMMENT_PREFIXES, ";", ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+                ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+
+        if (!connection.getAutoCommit())
+        {
+            connection.commit();
+        }
+    }
+}
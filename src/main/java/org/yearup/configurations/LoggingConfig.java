@@ -0,0 +1,37 @@
+package org.yearup.configurations;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.yearup.logging.CountingAsyncAppender;
+import org.yearup.logging.LoggingContextFilter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request context for log lines and a metric for log events the async appender had to drop.
+ * The appenders themselves are configured in logback-spring.xml.
+ */
+@Configuration
+public class LoggingConfig
+{
+    @Bean
+    public FilterRegistrationBean<LoggingContextFilter> loggingContextFilter()
+    {
+        FilterRegistrationBean<LoggingContextFilter> registration = new FilterRegistrationBean<>(new LoggingContextFilter());
+        // ahead of Spring Security, so the JWT filter's log lines carry the endpoint too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder droppedLogEventsMetric()
+    {
+        return registry -> FunctionCounter.builder("easyshop.logging.dropped", CountingAsyncAppender.droppedEvents(), LongAdder::doubleValue)
+                .description("Log events dropped because the async appender's queue was full")
+                .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package org.yearup.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.ProductDao;
+import org.yearup.data.imports.ProductImporter;
+
+/**
+ * Bulk product import: rows are committed {@code easyshop.product-import.rows-per-transaction} at a time and sent
+ * to the database as JDBC batches of {@code easyshop.product-import.batch-size}.
+ */
+@Configuration
+public class ProductImportConfig
+{
+    @Bean
+    public ProductImporter productImporter(ProductDao productDao, CategoryDao categoryDao, CatalogVersion catalogVersion,
+                                           ObjectMapper objectMapper,
+                                           @Value("${easyshop.product-import.batch-size:500}") int batchSize,
+                                           @Value("${easyshop.product-import.rows-per-transaction:5000}") int rowsPerTransaction)
+    {
+        return new ProductImporter(productDao, categoryDao, catalogVersion, objectMapper, batchSize, rowsPerTransaction);
+    }
+}
@@ -0,0 +1,23 @@
+package org.yearup.configurations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yearup.data.ProductStatsDao;
+import org.yearup.data.stats.ProductCounters;
+
+import java.time.Duration;
+
+/**
+ * Product view and add-to-cart counting, written to the database every {@code easyshop.product-stats.flush-interval}.
+ */
+@Configuration
+public class ProductStatsConfig
+{
+    @Bean(destroyMethod = "shutdown")
+    public ProductCounters productCounters(ProductStatsDao productStatsDao,
+                                           @Value("${easyshop.product-stats.flush-interval:5s}") Duration flushInterval)
+    {
+        return new ProductCounters(productStatsDao, flushInterval);
+    }
+}
@@ -0,0 +1,33 @@
+package org.yearup.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+import org.yearup.caching.CatalogResponseCacheFilter;
+import org.yearup.data.CatalogVersion;
+
+/**
+ * Serialized-response cache for anonymous catalog reads, on unless {@code easyshop.response-cache.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "easyshop.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig
+{
+    @Bean
+    public FilterRegistrationBean<CatalogResponseCacheFilter> catalogResponseCacheFilter(
+            CatalogVersion catalogVersion,
+            MeterRegistry registry,
+            @Value("${easyshop.response-cache.max-size:16MB}") DataSize maxSize)
+    {
+        FilterRegistrationBean<CatalogResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new CatalogResponseCacheFilter(catalogVersion, maxSize.toBytes(), registry));
+        // ahead of Spring Security, so a hit skips the security chain as well as the controller
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,171 @@
+package org.yearup.configurations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.yearup.data.mysql.MySqlOrderLineDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.search.CatalogFacets;
+import org.yearup.search.ProductIndex;
+import org.yearup.search.ProductLeaderboards;
+import org.yearup.search.ProductRecommendations;
+import org.yearup.search.ProductSuggester;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory product search index, typeahead suggestions, facet counts, sales rankings and recommendations, each
+ * loaded from the database once the application is up and kept current afterwards as a
+ * {@link org.yearup.data.events.ProductChangeListener}. The rankings and recommendations also poll for new order lines.
+ */
+@Configuration
+public class SearchConfig
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SearchConfig.class);
+
+    @Value("${easyshop.leaderboards.poll-interval:5s}")
+    private Duration salesPollInterval;
+
+    @Bean
+    public ProductIndex productIndex()
+    {
+        return new ProductIndex();
+    }
+
+    @Bean
+    public ProductSuggester productSuggester()
+    {
+        return new ProductSuggester();
+    }
+
+    @Bean
+    public CatalogFacets catalogFacets(@Value("${easyshop.facets.price-buckets:25,50,100,250,500}") String[] priceBuckets)
+    {
+        List<Money> bounds = Arrays.stream(priceBuckets).map(String::trim).map(Money::parse).collect(Collectors.toList());
+        return new CatalogFacets(bounds);
+    }
+
+    @Bean
+    public ProductLeaderboards productLeaderboards(MySqlOrderLineDao orderLineDao)
+    {
+        return new ProductLeaderboards(orderLineDao::addUnitsSold);
+    }
+
+    @Bean
+    public ProductRecommendations productRecommendations(MySqlOrderLineDao orderLineDao)
+    {
+        return new ProductRecommendations(orderLineDao::getOrdersWithNewLines, ForkJoinPool.commonPool());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService salesPoller()
+    {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the catalog once and hands the same list to every view, so startup costs one scan and the views that
+     * return products share one copy of each. The suggester and facets keep only the fields they answer from.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchViews(ApplicationReadyEvent event)
+    {
+        ApplicationContext context = event.getApplicationContext();
+        MySqlProductDao source = context.getBean(MySqlProductDao.class);
+
+        long start = System.nanoTime();
+        List<Product> catalog = source.search(null, null, null, null);
+        LOG.info("catalog read for the search views: {} products in {} ms", catalog.size(), millisSince(start));
+
+        ProductIndex index = context.getBean(ProductIndex.class);
+        start = System.nanoTime();
+        index.rebuild(() -> catalog);
+        LOG.info("product search index loaded: {} products in {} ms", index.size(), millisSince(start));
+
+        ProductSuggester suggester = context.getBean(ProductSuggester.class);
+        start = System.nanoTime();
+        suggester.rebuild(() -> catalog, context.getBean(MySqlOrderLineDao.class).getUnitsSold());
+        LOG.info("product suggestions loaded: {} products in {} ms", suggester.size(), millisSince(start));
+
+        CatalogFacets facets = context.getBean(CatalogFacets.class);
+        start = System.nanoTime();
+        facets.rebuild(() -> catalog);
+        LOG.info("product facets loaded: {} products in {} ms", facets.size(), millisSince(start));
+
+        ProductLeaderboards leaderboards = context.getBean(ProductLeaderboards.class);
+        start = System.nanoTime();
+        leaderboards.rebuild(() -> catalog);
+        LOG.info("product rankings loaded: {} products in {} ms", leaderboards.size(), millisSince(start));
+
+        ProductRecommendations recommendations = context.getBean(ProductRecommendations.class);
+        start = System.nanoTime();
+        recommendations.rebuild(() -> catalog);
+        LOG.info("product recommendations loaded: {} products in {} ms", recommendations.size(), millisSince(start));
+
+        ScheduledExecutorService poller = context.getBean("salesPoller", ScheduledExecutorService.class);
+        schedulePoll(poller, leaderboards::pollSales, "product rankings");
+        schedulePoll(poller, recommendations::pollSales, "product recommendations");
+    }
+
+    /**
+     * Stops the polls when shutdown starts, before any bean is destroyed: the executor alone has no dependency on the
+     * DataSource, so Spring could otherwise close the pool while a poll is still reading order lines.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stopSalesPolls(ContextClosedEvent event)
+    {
+        ScheduledExecutorService poller = event.getApplicationContext().getBean("salesPoller", ScheduledExecutorService.class);
+        poller.shutdownNow();
+        try
+        {
+            if (!poller.awaitTermination(5, TimeUnit.SECONDS))
+            {
+                LOG.warn("a sales poll was still running at shutdown");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // a poll that throws would cancel the schedule, so failures are logged and the next poll tries again
+    private void schedulePoll(ScheduledExecutorService poller, Runnable poll, String view)
+    {
+        long interval = salesPollInterval.toMillis();
+        poller.scheduleWithFixedDelay(() -> {
+            try
+            {
+                poll.run();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("reading new order lines for the {} failed", view, e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static long millisSince(long start)
+    {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,44 @@
+package org.yearup.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.yearup.monitoring.ServerTimingFilter;
+import org.yearup.monitoring.TimedJacksonHttpMessageConverter;
+
+import java.time.Duration;
+
+/**
+ * Per-request phase timings, switched on with {@code easyshop.server-timing.enabled=true}.
+ * <p>
+ * When the property is off none of these beans exist: no filter runs and the instrumented code paths see no
+ * {@link org.yearup.monitoring.RequestTimings} and skip their timing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "easyshop.server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig
+{
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${easyshop.server-timing.header:true}") boolean header,
+            @Value("${easyshop.server-timing.slow-request-threshold:1s}") Duration slowRequestThreshold)
+    {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(header, slowRequestThreshold));
+        // ahead of Spring Security, so the JWT check is inside the measured request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    // replaces Boot's default Jackson converter, which backs off when one is defined
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper)
+    {
+        return new TimedJacksonHttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,67 @@
+package org.yearup.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.exceptions.EasyShopException;
+import org.yearup.exceptions.NotFoundException;
+import org.yearup.exceptions.PreconditionFailedException;
+import org.yearup.exceptions.ServiceUnavailableException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps the {@link EasyShopException}s thrown by controllers to status codes, with the same JSON body
+ * shape as Spring Boot's own error responses.
+ * <p>
+ * Only expected failures are handled here. Anything else is left to Spring: security exceptions still reach
+ * the JWT entry point and access-denied handler, and real bugs are logged once by the container and answered
+ * with a 500.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler
+{
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound(NotFoundException e, HttpServletRequest request)
+    {
+        return error(HttpStatus.NOT_FOUND, e, request);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(BadRequestException e, HttpServletRequest request)
+    {
+        return error(HttpStatus.BAD_REQUEST, e, request);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePreconditionFailed(PreconditionFailedException e, HttpServletRequest request)
+    {
+        return error(HttpStatus.PRECONDITION_FAILED, e, request);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceUnavailable(ServiceUnavailableException e, HttpServletRequest request)
+    {
+        ResponseEntity<Map<String, Object>> error = error(HttpStatus.SERVICE_UNAVAILABLE, e, request);
+        return ResponseEntity.status(error.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(error.getBody());
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, EasyShopException e, HttpServletRequest request)
+    {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", e.getMessage());
+        body.put("path", request.getRequestURI());
+        return ResponseEntity.status(status).body(body);
+    }
+}
@@ -2,57 +2,131 @@ package org.yearup.controllers;
 import org.springframework.http.ResponseEntity;
 // Import statements for Spring annotations and other necessary classes
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException; // Import this
+import org.springframework.web.context.request.WebRequest;
+import org.yearup.caching.HttpCachePolicy;
 import org.yearup.data.CategoryDao;
 import org.yearup.data.ProductDao;
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.exceptions.NotFoundException;
 import org.yearup.models.Category;
 import org.yearup.models.Product;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductOrder;
+import org.yearup.models.Revision;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.yearup.search.ProductLeaderboards;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("categories")
 @CrossOrigin
 public class CategoriesController
 {
+    private static final int MAX_PRODUCTS_PER_CATEGORY = 50;
+
     private CategoryDao categoryDao;
     private ProductDao productDao;
+    private HttpCachePolicy httpCachePolicy;
+    private ProductLeaderboards productLeaderboards;
 
 
     @Autowired
-    public CategoriesController(CategoryDao categoryDao, ProductDao productDao)
+    public CategoriesController(CategoryDao categoryDao, ProductDao productDao, HttpCachePolicy httpCachePolicy,
+                                ProductLeaderboards productLeaderboards)
     {
         this.categoryDao = categoryDao;
         this.productDao = productDao;
+        this.httpCachePolicy = httpCachePolicy;
+        this.productLeaderboards = productLeaderboards;
     }
 
+    // GET: Every category, optionally with its first few products so a homepage needs one request and one query
+    // URL: http://localhost:8080/categories?include=products&productLimit=4&productOrder=featured&fields=name,price,imageUrl
     @GetMapping
-    public List<Category> getAll()
+    public ResponseEntity<List<? extends Category>> getAll(@RequestParam(name = "include", required = false) String include,
+                                                           @RequestParam(name = "productLimit", defaultValue = "8") int productLimit,
+                                                           @RequestParam(name = "productOrder", defaultValue = "featured") String productOrder,
+                                                           @RequestParam(name = "fields", required = false) String fields)
     {
-        return categoryDao.getAllCategories();
+        List<? extends Category> categories;
+        if (include == null) {
+            categories = categoryDao.getAllCategories();
+        } else if (include.equals("products")) {
+            if (productLimit < 1 || productLimit > MAX_PRODUCTS_PER_CATEGORY) {
+                throw new BadRequestException("productLimit must be between 1 and " + MAX_PRODUCTS_PER_CATEGORY + ".");
+            }
+            ProductOrder order = ProductOrder.fromParameterName(productOrder);
+            if (order == null) {
+                throw new BadRequestException("Unknown productOrder: " + productOrder + ". Valid orders are "
+                        + Arrays.stream(ProductOrder.values()).map(ProductOrder::getParameterName).collect(Collectors.joining(", ")) + ".");
+            }
+            categories = categoryDao.getAllCategoriesWithProducts(productLimit, order, ProductProjections.parse(fields));
+        } else {
+            throw new BadRequestException("Unknown include: " + include + ". The only include is products.");
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(httpCachePolicy.cacheControl(HttpCachePolicy.CATEGORIES))
+                .body(categories);
     }
 
     // @GetMapping("{id}") annotation activated here
+    // Answers If-None-Match / If-Modified-Since with a 304 after reading only the row's version
     @GetMapping("{id}")
-    public Category getById(@PathVariable int id)
+    public ResponseEntity<Category> getById(@PathVariable int id, WebRequest request)
     {
+        CacheControl cacheControl = httpCachePolicy.cacheControl(HttpCachePolicy.CATEGORY);
+
+        if (ConditionalRequests.isConditional(request)) {
+            Revision revision = categoryDao.getRevision(id);
+            if (revision == null) {
+                throw new NotFoundException("Category not found.");
+            }
+            if (ConditionalRequests.checkNotModified(request, revision)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+            }
+        }
+
         Category category = categoryDao.getById(id);
         if (category == null) {
-            // If category is not found, throw a ResponseStatusException with 404 Not Found
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found.");
+            // If category is not found, answer 404 Not Found
+            throw new NotFoundException("Category not found.");
         }
-        return category;
+        return ConditionalRequests.ok(category, category.getRevision(), cacheControl);
     }
 
 
-    // https://localhost:8080/categories/1/products
+    // https://localhost:8080/categories/1/products?fields=name,price,imageUrl
     @GetMapping("{categoryId}/products")
-    public List<Product> getProductsById(@PathVariable int categoryId)
+    public ResponseEntity<Object> getProductsById(@PathVariable int categoryId,
+                                                  @RequestParam(name = "fields", required = false) String fields)
     {
-        return productDao.getProductsByCategoryId(categoryId);
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        List<Product> products = productDao.getProductsByCategoryId(categoryId, projection);
+        return ResponseEntity.ok()
+                .cacheControl(httpCachePolicy.cacheControl(HttpCachePolicy.CATEGORY_PRODUCTS))
+                .body(ProductProjections.body(products, projection));
+    }
+
+    // The category's best sellers by units ordered, from the in-memory rankings
+    // https://localhost:8080/categories/1/top-sellers?limit=5
+    @GetMapping("{categoryId}/top-sellers")
+    public Object getTopSellers(@PathVariable int categoryId,
+                                @RequestParam(name = "limit", defaultValue = "10") int limit,
+                                @RequestParam(name = "fields", required = false) String fields)
+    {
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        if (limit < 1 || limit > ProductLeaderboards.MAX_ENTRIES) {
+            throw new BadRequestException("Limit must be between 1 and " + ProductLeaderboards.MAX_ENTRIES + ".");
+        }
+        return ProductProjections.body(productLeaderboards.topSellers(categoryId, limit), projection);
     }
 
     // @PostMapping and @PreAuthorize annotations activated here
@@ -79,7 +153,7 @@ public class CategoriesController
 
         Category existingCategory = categoryDao.getById(id);
         if (existingCategory == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category to delete not found.");
+            throw new NotFoundException("Category to delete not found.");
         }
         categoryDao.delete(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -0,0 +1,80 @@
+package org.yearup.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.yearup.exceptions.PreconditionFailedException;
+import org.yearup.models.Revision;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP conditional requests for resources that carry a {@link Revision}: the version is the ETag and the update
+ * time is Last-Modified. GETs use them to skip unchanged bodies, writes use If-Match to avoid lost updates.
+ */
+final class ConditionalRequests
+{
+    // one quoted tag of an If-Match list, and whether it is weak
+    private static final Pattern ENTITY_TAG = Pattern.compile("(W/)?\"([^\"]*)\"");
+
+    private ConditionalRequests()
+    {
+    }
+
+    static boolean isConditional(WebRequest request)
+    {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    // If-None-Match wins over If-Modified-Since when a client sends both
+    static boolean checkNotModified(WebRequest request, Revision revision)
+    {
+        return request.checkNotModified(revision.getETag(), revision.getUpdatedAt().toEpochMilli());
+    }
+
+    // The versions an If-Match lets the write apply to: null when there is no If-Match, empty for "*", which any
+    // current version matches. A list matches if any of its tags does. Revision ETags are always strong, so weak
+    // and foreign tags never match, and a list of nothing else fails the precondition outright.
+    static Set<Integer> expectedVersions(WebRequest request)
+    {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return Collections.emptySet();
+        }
+
+        Set<Integer> versions = new TreeSet<>();
+        Matcher tag = ENTITY_TAG.matcher(ifMatch);
+        while (tag.find()) {
+            if (tag.group(1) == null) {
+                try {
+                    versions.add(Integer.valueOf(tag.group(2)));
+                }
+                catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match " + ifMatch.trim() + " does not match any version of this resource.");
+        }
+        return versions;
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Revision revision, CacheControl cacheControl)
+    {
+        return ResponseEntity.ok()
+                .eTag(revision.getETag())
+                .lastModified(revision.getUpdatedAt())
+                .cacheControl(cacheControl)
+                .body(body);
+    }
+}
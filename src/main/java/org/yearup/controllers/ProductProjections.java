@@ -0,0 +1,60 @@
+package org.yearup.controllers;
+
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.models.Product;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductView;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code ?fields=} parameter of the product endpoints: a comma-separated list of product properties to
+ * return. The product id is always included; no parameter means every property.
+ */
+final class ProductProjections
+{
+    private ProductProjections()
+    {
+    }
+
+    static Set<ProductField> parse(String fields)
+    {
+        if (fields == null || fields.trim().isEmpty())
+        {
+            return ProductField.ALL;
+        }
+
+        Set<ProductField> parsed = EnumSet.of(ProductField.PRODUCT_ID);
+        for (String name : fields.split(","))
+        {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty())
+            {
+                continue;
+            }
+            ProductField field = ProductField.fromJsonName(trimmed);
+            if (field == null)
+            {
+                throw new BadRequestException("Unknown product field: " + trimmed + ". Valid fields are "
+                        + Arrays.stream(ProductField.values()).map(ProductField::getJsonName).collect(Collectors.joining(", ")) + ".");
+            }
+            parsed.add(field);
+        }
+        return parsed;
+    }
+
+    // full products serialize as before; a projection writes only the chosen properties
+    static Object body(List<Product> products, Set<ProductField> fields)
+    {
+        return fields.size() == ProductField.ALL.size() ? products : ProductView.of(products, fields);
+    }
+
+    static Object body(Product product, Set<ProductField> fields)
+    {
+        return fields.size() == ProductField.ALL.size() ? product : ProductView.of(product, fields);
+    }
+}
@@ -1,45 +1,251 @@
 package org.yearup.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.WebRequest;
+import org.yearup.caching.HttpCachePolicy;
+import org.yearup.data.CategoryDao;
 import org.yearup.data.ProductDao; // Assuming ProductDao interface exists
+import org.yearup.data.imports.ProductImporter;
+import org.yearup.data.stats.ProductCounters;
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.exceptions.NotFoundException;
+import org.yearup.exceptions.PreconditionFailedException;
+import org.yearup.models.Money;
 import org.yearup.models.Product; // Assuming Product model exists
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+import org.yearup.models.ProductFacets;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductImportReport;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.ProductRules;
+import org.yearup.models.ProductStats;
+import org.yearup.models.ProductSuggestion;
+import org.yearup.models.Revision;
+import org.yearup.search.CatalogFacets;
+import org.yearup.search.ProductFilter;
+import org.yearup.search.ProductIndex;
+import org.yearup.search.ProductLeaderboards;
+import org.yearup.search.ProductRecommendations;
+import org.yearup.search.ProductSuggester;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("products")
 @CrossOrigin // Allows cross-origin requests, important for frontend
 public class ProductsController
 {
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_IDS = 100;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    // ids in one bulk-adjust filter, and new values in one bulk-adjust
+    private static final int MAX_ADJUST_IDS = 1000;
+    private static final int MAX_ADJUST_VALUES = 10000;
+    private static final BigDecimal MAX_PRICE_PERCENT = BigDecimal.valueOf(1000);
+
     private ProductDao productDao; // Inject ProductDao
+    private HttpCachePolicy httpCachePolicy;
+    private ProductIndex productIndex;
+    private ProductSuggester productSuggester;
+    private CatalogFacets catalogFacets;
+    private ProductLeaderboards productLeaderboards;
+    private ProductRecommendations productRecommendations;
+    private ProductCounters productCounters;
+    private ProductImporter productImporter;
+    private CategoryDao categoryDao;
 
     @Autowired
-    public ProductsController(ProductDao productDao)
+    public ProductsController(ProductDao productDao, HttpCachePolicy httpCachePolicy, ProductIndex productIndex,
+                              ProductSuggester productSuggester, CatalogFacets catalogFacets,
+                              ProductLeaderboards productLeaderboards, ProductRecommendations productRecommendations,
+                              ProductCounters productCounters, ProductImporter productImporter,
+                              CategoryDao categoryDao)
     {
         this.productDao = productDao;
+        this.httpCachePolicy = httpCachePolicy;
+        this.productIndex = productIndex;
+        this.productSuggester = productSuggester;
+        this.catalogFacets = catalogFacets;
+        this.productLeaderboards = productLeaderboards;
+        this.productRecommendations = productRecommendations;
+        this.productCounters = productCounters;
+        this.productImporter = productImporter;
+        this.categoryDao = categoryDao;
     }
 
-    // GET: Get All Products
+    // GET: Get All Products, optionally filtered and narrowed to some fields
+    // URL: http://localhost:8080/products?cat=1&minPrice=25&maxPrice=100&color=red&fields=name,price,imageUrl
+    // or just the listed products, in the order listed, for carts, wishlists and recently viewed strips
+    // URL: http://localhost:8080/products?ids=12,3,7&fields=name,price,imageUrl
     @GetMapping
-    public List<Product> getAllProducts()
+    public ResponseEntity<Object> getAllProducts(@RequestParam(name = "cat", required = false) Integer categoryId,
+                                                 @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+                                                 @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+                                                 @RequestParam(name = "color", required = false) String color,
+                                                 @RequestParam(name = "ids", required = false) List<Integer> ids,
+                                                 @RequestParam(name = "fields", required = false) String fields)
+    {
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        List<Product> products;
+        if (ids != null) {
+            if (categoryId != null || minPrice != null || maxPrice != null || color != null) {
+                throw new BadRequestException("ids cannot be combined with the cat, minPrice, maxPrice or color filters.");
+            }
+            List<Integer> wanted = ids.stream().filter(Objects::nonNull).collect(Collectors.toList());
+            if (wanted.isEmpty() || wanted.size() > MAX_IDS) {
+                throw new BadRequestException("Between 1 and " + MAX_IDS + " ids can be requested at once.");
+            }
+            products = productDao.getByIds(wanted, projection);
+        } else {
+            products = productDao.search(categoryId, minPrice, maxPrice, color, projection);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(httpCachePolicy.cacheControl(HttpCachePolicy.PRODUCTS))
+                .body(ProductProjections.body(products, projection));
+    }
+
+    // GET: Sidebar counts per category, colour and price bucket for the same filters as above
+    // URL: http://localhost:8080/products/facets?cat=1&color=red
+    @GetMapping("facets")
+    public ResponseEntity<ProductFacets> getProductFacets(@RequestParam(name = "cat", required = false) Integer categoryId,
+                                                          @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+                                                          @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+                                                          @RequestParam(name = "color", required = false) String color)
+    {
+        ProductFacets facets = catalogFacets.count(new ProductFilter(categoryId, minPrice, maxPrice, color));
+        return ResponseEntity.ok()
+                .cacheControl(httpCachePolicy.cacheControl(HttpCachePolicy.PRODUCTS))
+                .body(facets);
+    }
+
+    // GET: Full-text search over names and descriptions, best match first, with the same filters as above
+    // URL: http://localhost:8080/products/search?q=running+shoes&cat=1&limit=20
+    @GetMapping("search")
+    public Object searchProducts(@RequestParam(name = "q") String query,
+                                 @RequestParam(name = "cat", required = false) Integer categoryId,
+                                 @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+                                 @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+                                 @RequestParam(name = "color", required = false) String color,
+                                 @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                 @RequestParam(name = "fields", required = false) String fields)
+    {
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        if (query.trim().isEmpty()) {
+            throw new BadRequestException("Search query must not be empty.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_SEARCH_RESULTS + ".");
+        }
+        List<Product> products = productIndex.search(query, new ProductFilter(categoryId, minPrice, maxPrice, color), limit);
+        return ProductProjections.body(products, projection);
+    }
+
+    // GET: Typeahead, products with a name word starting with the prefix, featured and best sellers first
+    // URL: http://localhost:8080/products/suggest?prefix=run&limit=5
+    @GetMapping("suggest")
+    public List<ProductSuggestion> suggestProducts(@RequestParam(name = "prefix") String prefix,
+                                                   @RequestParam(name = "limit", defaultValue = "10") int limit)
     {
+        if (prefix.trim().isEmpty()) {
+            throw new BadRequestException("Prefix must not be empty.");
+        }
+        if (limit < 1 || limit > ProductSuggester.MAX_SUGGESTIONS) {
+            throw new BadRequestException("Limit must be between 1 and " + ProductSuggester.MAX_SUGGESTIONS + ".");
+        }
+        return productSuggester.suggest(prefix, limit);
+    }
 
-        return productDao.search(null, null, null, null);
+    // GET: Featured products, best sellers first, from the in-memory rankings
+    // URL: http://localhost:8080/products/featured?limit=8&fields=name,price,imageUrl
+    @GetMapping("featured")
+    public Object getFeaturedProducts(@RequestParam(name = "limit", defaultValue = "10") int limit,
+                                      @RequestParam(name = "fields", required = false) String fields)
+    {
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        if (limit < 1 || limit > ProductLeaderboards.MAX_ENTRIES) {
+            throw new BadRequestException("Limit must be between 1 and " + ProductLeaderboards.MAX_ENTRIES + ".");
+        }
+        return ProductProjections.body(productLeaderboards.featured(limit), projection);
     }
 
+    // Answers If-None-Match / If-Modified-Since with a 304 after reading only the row's version
     @GetMapping("{id}")
-    public Product getProductById(@PathVariable int id)
+    public ResponseEntity<Object> getProductById(@PathVariable int id,
+                                                 @RequestParam(name = "fields", required = false) String fields,
+                                                 WebRequest request)
     {
-        Product product = productDao.getById(id);
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        CacheControl cacheControl = httpCachePolicy.cacheControl(HttpCachePolicy.PRODUCT);
+
+        if (ConditionalRequests.isConditional(request)) {
+            Revision revision = productDao.getRevision(id);
+            if (revision == null) {
+                throw new NotFoundException("Product not found with ID: " + id);
+            }
+            if (ConditionalRequests.checkNotModified(request, revision)) {
+                // still a view: the client shows the product from its cache, so views do not depend on cache state
+                productCounters.recordView(id);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+            }
+        }
+
+        Product product = productDao.getById(id, projection);
         if (product == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with ID: " + id);
+            throw new NotFoundException("Product not found with ID: " + id);
+        }
+        productCounters.recordView(id);
+        return ConditionalRequests.ok(ProductProjections.body(product, projection), product.getRevision(), cacheControl);
+    }
+
+    // GET: Frequently bought together, the products most often in the same order, from in-memory counts
+    // URL: http://localhost:8080/products/1/related?limit=4&fields=name,price,imageUrl
+    @GetMapping("{id}/related")
+    public Object getRelatedProducts(@PathVariable int id,
+                                     @RequestParam(name = "limit", defaultValue = "10") int limit,
+                                     @RequestParam(name = "fields", required = false) String fields)
+    {
+        Set<ProductField> projection = ProductProjections.parse(fields);
+        if (limit < 1 || limit > ProductRecommendations.MAX_RELATED) {
+            throw new BadRequestException("Limit must be between 1 and " + ProductRecommendations.MAX_RELATED + ".");
+        }
+        List<Product> related = productRecommendations.related(id, limit);
+        if (related == null) {
+            throw new NotFoundException("Product not found with ID: " + id);
+        }
+        return ProductProjections.body(related, projection);
+    }
+
+    // GET: How often the product has been viewed and added to a cart, including the last few seconds not yet stored
+    // URL: http://localhost:8080/products/1/stats
+    @GetMapping("{id}/stats")
+    public ProductStats getProductStats(@PathVariable int id)
+    {
+        if (productDao.getRevision(id) == null) {
+            throw new NotFoundException("Product not found with ID: " + id);
         }
-        return product;
+        return productCounters.get(id);
     }
 
     // Only accessible to ADMINs
@@ -47,33 +253,173 @@ public class ProductsController
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Product> addProduct(@RequestBody Product product)
     {
-        try {
-            Product createdProduct = productDao.create(product);
-            return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
-        } catch (Exception e) {
-            System.err.println("Error creating product: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating product.", e);
+        checkProduct(product);
+        Product createdProduct = productDao.create(product);
+        return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
+    }
+
+    // Bulk create and update: CSV with a header row of product field names, or one JSON product per line.
+    // Rows with a productId overwrite that product, rows without one create a product; the report lists skipped rows by line.
+    // URL: http://localhost:8080/products/import
+    @PostMapping(value = "import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportReport importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                              InputStream body) throws IOException
+    {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        Reader reader = new BufferedReader(new InputStreamReader(body, charset));
+
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return productImporter.importCsv(reader);
+        }
+        return productImporter.importNdjson(reader);
+    }
+
+    // Bulk price and stock changes without a request or a full-row write per product, in one of two forms:
+    // a change for every product the filters match, e.g. {"categoryId": 1, "pricePercent": -10, "stockChange": 5},
+    // or new values by id, e.g. {"prices": {"12": 19.99}, "stock": {"12": 40, "13": 0}}
+    // URL: http://localhost:8080/products/bulk-adjust
+    @PostMapping("bulk-adjust")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductAdjustmentResult adjustProducts(@RequestBody ProductAdjustment adjustment)
+    {
+        if (adjustment.isFiltered() == adjustment.hasValues()) {
+            throw new BadRequestException("Give either filters (categoryId, color, productIds) with a change, or prices and stock by product id.");
+        }
+
+        if (adjustment.isFiltered()) {
+            checkFilteredAdjustment(adjustment);
+        } else {
+            checkAdjustmentValues(adjustment);
+        }
+
+        List<Product> changed = productDao.adjust(adjustment);
+
+        // only the listed form has ids that are expected to exist
+        List<Integer> notFound = new ArrayList<>();
+        if (adjustment.hasValues()) {
+            Set<Integer> changedIds = changed.stream().map(Product::getProductId).collect(Collectors.toSet());
+            Set<Integer> listed = new HashSet<>();
+            if (adjustment.getPrices() != null) listed.addAll(adjustment.getPrices().keySet());
+            if (adjustment.getStock() != null) listed.addAll(adjustment.getStock().keySet());
+            listed.stream().filter(id -> !changedIds.contains(id)).sorted().forEach(notFound::add);
+        }
+        return new ProductAdjustmentResult(changed.size(), notFound);
+    }
+
+    private static void checkFilteredAdjustment(ProductAdjustment adjustment)
+    {
+        if (!adjustment.hasChange()) {
+            throw new BadRequestException("Give pricePercent, priceChange or stockChange.");
+        }
+        if (adjustment.getPricePercent() != null && adjustment.getPriceChange() != null) {
+            throw new BadRequestException("Give pricePercent or priceChange, not both.");
+        }
+        if (adjustment.getPricePercent() != null
+                && (adjustment.getPricePercent().compareTo(BigDecimal.valueOf(-100)) < 0
+                    || adjustment.getPricePercent().compareTo(MAX_PRICE_PERCENT) > 0)) {
+            throw new BadRequestException("pricePercent must be between -100 and " + MAX_PRICE_PERCENT + ".");
+        }
+        if (adjustment.getProductIds() != null) {
+            List<Integer> ids = adjustment.getProductIds().stream().filter(Objects::nonNull).collect(Collectors.toList());
+            if (ids.size() > MAX_ADJUST_IDS) {
+                throw new BadRequestException("At most " + MAX_ADJUST_IDS + " productIds can be adjusted at once.");
+            }
+            adjustment.setProductIds(ids);
+        }
+        // a list of nothing but nulls must not widen the change to every product
+        if (!adjustment.isFiltered()) {
+            throw new BadRequestException("Give at least one filter: categoryId, color or productIds.");
+        }
+    }
+
+    private static void checkAdjustmentValues(ProductAdjustment adjustment)
+    {
+        if (adjustment.hasChange()) {
+            throw new BadRequestException("pricePercent, priceChange and stockChange apply to filters, not to listed values.");
+        }
+        int count = 0;
+        if (adjustment.getPrices() != null) {
+            for (Map.Entry<Integer, Money> price : adjustment.getPrices().entrySet()) {
+                check(ProductRules.checkPrice("Price for product " + price.getKey(), price.getValue()));
+            }
+            count += adjustment.getPrices().size();
+        }
+        if (adjustment.getStock() != null) {
+            for (Map.Entry<Integer, Integer> stock : adjustment.getStock().entrySet()) {
+                check(ProductRules.checkStock("Stock for product " + stock.getKey(), stock.getValue()));
+            }
+            count += adjustment.getStock().size();
+        }
+        if (count > MAX_ADJUST_VALUES) {
+            throw new BadRequestException("At most " + MAX_ADJUST_VALUES + " values can be set at once.");
         }
     }
 
+    private static void check(String error)
+    {
+        if (error != null) {
+            throw new BadRequestException(error);
+        }
+    }
 
     @PutMapping("{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> updateProduct(@PathVariable int id, @RequestBody Product product)
     {
+        checkProduct(product);
         // First, check if the product exists before attempting to update
         if (productDao.getById(id) == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product to update not found with ID: " + id);
+            throw new NotFoundException("Product to update not found with ID: " + id);
+        }
+        // deleted since the check
+        if (!productDao.update(id, product)) {
+            throw new NotFoundException("Product to update not found with ID: " + id);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful update
+    }
+
+    // Changes only the properties sent, e.g. {"stock": 12}, and writes only those columns. With If-Match set to the
+    // ETag last read, the change is refused with a 412 if someone else has written the product since. A list of ETags
+    // matches if any one does, and "*" only asks that the product exists.
+    // URL: http://localhost:8080/products/12
+    @PatchMapping("{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Product> patchProduct(@PathVariable int id, @RequestBody ProductPatch patch, WebRequest request)
+    {
+        checkPatch(patch);
+        Set<Integer> expectedVersions = ConditionalRequests.expectedVersions(request);
+
+        Product product = productDao.patch(id, patch, expectedVersions);
+        // no current version can match an If-Match, "*" included
+        if (product == null && expectedVersions != null) {
+            throw new PreconditionFailedException("Product " + id + " does not exist, so If-Match cannot match.");
         }
-        try {
-            productDao.update(id, product);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful update
-        } catch (Exception e) {
-            System.err.println("Error updating product: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating product.", e);
+        if (product == null) {
+            throw new NotFoundException("Product to update not found with ID: " + id);
+        }
+        return ResponseEntity.ok()
+                .eTag(product.getRevision().getETag())
+                .lastModified(product.getRevision().getUpdatedAt())
+                .body(product);
+    }
+
+    // the same rules a full product has, applied only to the properties sent
+    private void checkProduct(Product product)
+    {
+        check(ProductRules.check(product, categoryId -> categoryDao.getById(categoryId) != null));
+    }
+
+    private void checkPatch(ProductPatch patch)
+    {
+        if (!patch.getUnknown().isEmpty()) {
+            throw new BadRequestException("These properties cannot be patched: " + String.join(", ", patch.getUnknown()) + ".");
         }
+        if (patch.getFields().isEmpty()) {
+            throw new BadRequestException("Give at least one property to change.");
+        }
+        check(ProductRules.check(patch, categoryId -> categoryDao.getById(categoryId) != null));
     }
 
     @DeleteMapping("{id}")
@@ -82,15 +428,9 @@ public class ProductsController
     {
         // Check if the product exists before attempting to delete
         if (productDao.getById(id) == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product to delete not found with ID: " + id);
-        }
-        try {
-            productDao.delete(id);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful deletion
-        } catch (Exception e) {
-            System.err.println("Error deleting product: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error deleting product.", e);
+            throw new NotFoundException("Product to delete not found with ID: " + id);
         }
+        productDao.delete(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful deletion
     }
 }
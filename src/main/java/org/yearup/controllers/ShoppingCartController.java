@@ -5,9 +5,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.ShoppingCartDao;
 import org.yearup.data.UserDao;
+import org.yearup.data.stats.ProductCounters;
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.exceptions.NotFoundException;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.User;
 
@@ -27,13 +29,15 @@ public class ShoppingCartController
     // A shopping cart requires
     private ShoppingCartDao shoppingCartDao;
     private UserDao userDao; // To get the user_id from the username
+    private ProductCounters productCounters; // Counts adds in memory; written to product_stats every few seconds
 
     // Each method in this controller requires a Principal object as a parameter
     // Use @Autowired for dependency injection
     @Autowired
-    public ShoppingCartController(ShoppingCartDao shoppingCartDao, UserDao userDao) {
+    public ShoppingCartController(ShoppingCartDao shoppingCartDao, UserDao userDao, ProductCounters productCounters) {
         this.shoppingCartDao = shoppingCartDao;
         this.userDao = userDao;
+        this.productCounters = productCounters;
     }
 
     // GET: Get the shopping cart for the current user
@@ -43,29 +47,8 @@ public class ShoppingCartController
     @PreAuthorize("isAuthenticated()") // Ensures only authenticated users can access
     public ShoppingCart getCart(Principal principal)
     {
-        try
-        {
-            // Get the currently logged-in username
-            String userName = principal.getName();
-            // Find database user by username to get their userId
-            User user = userDao.getByUserName(userName);
-            if (user == null) {
-                // This case should ideally not happen if isAuthenticated() works,
-                // but it's a good defensive check
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
-            }
-            int userId = user.getId();
-
-            // Use the shoppingCartDao to get all items in the cart and return the cart
-            return shoppingCartDao.getByUserId(userId);
-        }
-        catch(Exception e)
-        {
-            // Log the exception for debugging purposes
-            System.err.println("Error getting shopping cart: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error retrieving shopping cart.", e);
-        }
+        // Use the shoppingCartDao to get all items in the cart and return the cart
+        return shoppingCartDao.getByUserId(getUserId(principal));
     }
 
     // POST: Add a product to the cart
@@ -75,21 +58,9 @@ public class ShoppingCartController
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> addProductToCart(@PathVariable int productId, Principal principal)
     {
-        try {
-            String userName = principal.getName();
-            User user = userDao.getByUserName(userName);
-            if (user == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
-            }
-            int userId = user.getId();
-
-            shoppingCartDao.addProductToCart(userId, productId);
-            return new ResponseEntity<>(HttpStatus.CREATED); // 201 Created for successful addition/increment
-        } catch (Exception e) {
-            System.err.println("Error adding product to cart: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error adding product to cart.", e);
-        }
+        shoppingCartDao.addProductToCart(getUserId(principal), productId);
+        productCounters.recordCartAdd(productId);
+        return new ResponseEntity<>(HttpStatus.CREATED); // 201 Created for successful addition/increment
     }
 
     // PUT: Update an existing product's quantity in the cart
@@ -102,32 +73,18 @@ public class ShoppingCartController
                                                       @RequestBody Map<String, Integer> requestBody,
                                                       Principal principal)
     {
-        try {
-            String userName = principal.getName();
-            User user = userDao.getByUserName(userName);
-            if (user == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
-            }
-            int userId = user.getId();
-
-            Integer quantity = requestBody.get("quantity");
-            if (quantity == null || quantity < 0) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity must be a non-negative number.");
-            }
-
-            // Check if product exists in cart before attempting to update its quantity
-            ShoppingCart cart = shoppingCartDao.getByUserId(userId);
-            if (cart.getByProductId(productId) == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product with ID " + productId + " not found in user's cart.");
-            }
-
-            shoppingCartDao.updateProductQuantity(userId, productId, quantity);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful update
-        } catch (Exception e) {
-            System.err.println("Error updating product quantity in cart: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating product quantity in cart.", e);
+        int userId = getUserId(principal);
+
+        Integer quantity = requestBody.get("quantity");
+        if (quantity == null || quantity < 0) {
+            throw new BadRequestException("Quantity must be a non-negative number.");
         }
+
+        // Check if product exists in cart before attempting to update its quantity
+        requireInCart(userId, productId);
+
+        shoppingCartDao.updateProductQuantity(userId, productId, quantity);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful update
     }
 
     // DELETE: Remove a specific product from the current user's cart
@@ -136,27 +93,13 @@ public class ShoppingCartController
     @DeleteMapping("products/{productId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> removeProductFromCart(@PathVariable int productId, Principal principal) {
-        try {
-            String userName = principal.getName();
-            User user = userDao.getByUserName(userName);
-            if (user == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
-            }
-            int userId = user.getId();
-
-            // Check if product exists in cart before attempting to remove
-            ShoppingCart cart = shoppingCartDao.getByUserId(userId);
-            if (cart.getByProductId(productId) == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product with ID " + productId + " not found in user's cart.");
-            }
-
-            shoppingCartDao.removeProductFromCart(userId, productId);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful removal
-        } catch (Exception e) {
-            System.err.println("Error removing product from cart: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error removing product from cart.", e);
-        }
+        int userId = getUserId(principal);
+
+        // Check if product exists in cart before attempting to remove
+        requireInCart(userId, productId);
+
+        shoppingCartDao.removeProductFromCart(userId, productId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful removal
     }
 
 
@@ -167,20 +110,27 @@ public class ShoppingCartController
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> clearCart(Principal principal)
     {
-        try {
-            String userName = principal.getName();
-            User user = userDao.getByUserName(userName);
-            if (user == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
-            }
-            int userId = user.getId();
-
-            shoppingCartDao.clearCart(userId);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful clear
-        } catch (Exception e) {
-            System.err.println("Error clearing shopping cart: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error clearing shopping cart.", e);
+        shoppingCartDao.clearCart(getUserId(principal));
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content for successful clear
+    }
+
+    // Find database user by the logged-in username to get their userId
+    private int getUserId(Principal principal)
+    {
+        User user = userDao.getByUserName(principal.getName());
+        if (user == null) {
+            // This case should ideally not happen if isAuthenticated() works,
+            // but it's a good defensive check
+            throw new NotFoundException("User not found.");
+        }
+        return user.getId();
+    }
+
+    private void requireInCart(int userId, int productId)
+    {
+        ShoppingCart cart = shoppingCartDao.getByUserId(userId);
+        if (cart.getByProductId(productId) == null) {
+            throw new NotFoundException("Product with ID " + productId + " not found in user's cart.");
         }
     }
 }
@@ -0,0 +1,29 @@
+package org.yearup.data;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that moves forward every time a product or category is written. Anything derived from the
+ * catalog (cached responses, for one) can remember the version it was built from and know it is stale as
+ * soon as the two differ, without having to be told what changed.
+ * <p>
+ * The DAOs bump it after the write has reached the database, so a reader that sees the new version also
+ * sees the new rows.
+ */
+@Component
+public class CatalogVersion
+{
+    private final AtomicLong version = new AtomicLong();
+
+    public long get()
+    {
+        return version.get();
+    }
+
+    public void bump()
+    {
+        version.incrementAndGet();
+    }
+}
@@ -1,13 +1,21 @@
 package org.yearup.data;
 
 import org.yearup.models.Category;
+import org.yearup.models.CategoryWithProducts;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductOrder;
+import org.yearup.models.Revision;
 
 import java.util.List;
+import java.util.Set;
 
 public interface CategoryDao
 {
     List<Category> getAllCategories();
+    // Every category with up to productsPerCategory of its products, in the given order, read with only the given fields
+    List<CategoryWithProducts> getAllCategoriesWithProducts(int productsPerCategory, ProductOrder order, Set<ProductField> fields);
     Category getById(int categoryId);
+    Revision getRevision(int categoryId);
     Category create(Category category);
     void update(int categoryId, Category category);
     void delete(int categoryId);
@@ -0,0 +1,79 @@
+package org.yearup.data;
+
+import org.yearup.util.IntIntMap;
+
+/**
+ * Which order lines an in-memory view has already counted, so each poll can re-read a trailing window of line ids
+ * instead of only the ids above the highest one seen. Line ids are handed out when a line is inserted, not when its
+ * order commits, so a line can become visible after lines with higher ids have been counted.
+ * <p>
+ * Every line at or below the floor is counted, or given up on; above it, each counted id is remembered. The floor
+ * trails the highest id read by {@value #WINDOW} ids, so a line is picked up unless it commits more than that many
+ * line ids late.
+ */
+public final class CountedLines
+{
+    public static final int WINDOW = 1000;
+
+    private int floor;
+    private int last;
+    // ids above the floor that have been counted, all mapped to 1
+    private IntIntMap above = new IntIntMap(64);
+
+    public int getFloor()
+    {
+        return floor;
+    }
+
+    // the highest line id read so far, 0 before the first read
+    public int getLast()
+    {
+        return last;
+    }
+
+    // how many lines above the floor have been counted
+    public int size()
+    {
+        return above.size();
+    }
+
+    public boolean isCounted(int lineItemId)
+    {
+        return lineItemId <= floor || above.containsKey(lineItemId);
+    }
+
+    // marks the line counted; false if it already was
+    public boolean add(int lineItemId)
+    {
+        if (isCounted(lineItemId))
+        {
+            return false;
+        }
+        above.put(lineItemId, 1);
+        return true;
+    }
+
+    /**
+     * Every line up to {@code lastLineItemId} has been read: the floor moves up to {@value #WINDOW} ids behind it,
+     * and a line below the new floor that is still missing is given up on.
+     */
+    public void advance(int lastLineItemId)
+    {
+        last = Math.max(last, lastLineItemId);
+        int newFloor = last - WINDOW;
+        if (newFloor <= floor)
+        {
+            return;
+        }
+
+        IntIntMap kept = new IntIntMap(Math.max(64, above.size()));
+        above.forEach((lineItemId, one) -> {
+            if (lineItemId > newFloor)
+            {
+                kept.put(lineItemId, one);
+            }
+        });
+        above = kept;
+        floor = newFloor;
+    }
+}
@@ -0,0 +1,71 @@
+package org.yearup.data;
+
+import java.util.Arrays;
+
+/**
+ * Order lines as three parallel int columns (order id, line id, product id), sorted by order id and then line id,
+ * so each order's lines sit next to each other. A year of orders fits in a few arrays instead of millions of objects.
+ */
+public final class OrderLines
+{
+    private int[] orderIds;
+    private int[] lineItemIds;
+    private int[] productIds;
+    private int size;
+    private int lastLineItemId;
+
+    public OrderLines(int expectedSize)
+    {
+        int capacity = Math.max(16, expectedSize);
+        orderIds = new int[capacity];
+        lineItemIds = new int[capacity];
+        productIds = new int[capacity];
+    }
+
+    // lines must be added in order id, then line id order
+    public void add(int orderId, int lineItemId, int productId)
+    {
+        if (size == orderIds.length)
+        {
+            int capacity = size * 2;
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            lineItemIds = Arrays.copyOf(lineItemIds, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+        }
+        orderIds[size] = orderId;
+        lineItemIds[size] = lineItemId;
+        productIds[size] = productId;
+        size++;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int orderId(int index)
+    {
+        return orderIds[index];
+    }
+
+    public int lineItemId(int index)
+    {
+        return lineItemIds[index];
+    }
+
+    public int productId(int index)
+    {
+        return productIds[index];
+    }
+
+    // the highest line id the read covered, whether or not its order is in here
+    public int getLastLineItemId()
+    {
+        return lastLineItemId;
+    }
+
+    public void setLastLineItemId(int lastLineItemId)
+    {
+        this.lastLineItemId = lastLineItemId;
+    }
+}
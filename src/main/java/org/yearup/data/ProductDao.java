@@ -1,16 +1,59 @@
 package org.yearup.data;
 
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.Revision;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface ProductDao
 {
-    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color);
-    List<Product> getProductsByCategoryId(int categoryId);
-    Product getById(int productId);
+    // The reads taking fields fill in only those properties (and the product id); the rest are left unset
+    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields);
+    List<Product> getProductsByCategoryId(int categoryId, Set<ProductField> fields);
+    Product getById(int productId, Set<ProductField> fields);
+    // In the order asked for, each product once; ids with no product are left out
+    List<Product> getByIds(Collection<Integer> productIds, Set<ProductField> fields);
+    Revision getRevision(int productId);
     Product create(Product product);
-    void update(int productId, Product product);
+    // Overwrites every column of the product; false if there is no product with that id
+    boolean update(int productId, Product product);
     void delete(int productId);
+    // Creates the products with no id and overwrites every column of the ones with an id, in one transaction sent
+    // as JDBC batches of batchSize rows. Returns them as saved, in the order given: created ones carry their new id,
+    // and an id with no product comes back null. Unlike the single-row writes it leaves the CatalogVersion alone,
+    // so a caller saving in several calls bumps it once when done.
+    List<Product> saveAll(List<Product> products, int batchSize);
+    // Applies the price and stock change in one transaction, writing only those columns (and the revision), and
+    // returns the changed products as they now are
+    List<Product> adjust(ProductAdjustment adjustment);
+    // Writes only the patch's fields (and the revision) and returns the product as it now is, or null if there is
+    // none. With expectedVersions the write only happens if the stored version is one of them, or with an empty set
+    // if there is a stored version at all; otherwise it throws PreconditionFailedException.
+    Product patch(int productId, ProductPatch patch, Set<Integer> expectedVersions);
+
+    default List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color)
+    {
+        return search(categoryId, minPrice, maxPrice, color, ProductField.ALL);
+    }
+
+    default List<Product> getProductsByCategoryId(int categoryId)
+    {
+        return getProductsByCategoryId(categoryId, ProductField.ALL);
+    }
+
+    default Product getById(int productId)
+    {
+        return getById(productId, ProductField.ALL);
+    }
+
+    default List<Product> getByIds(Collection<Integer> productIds)
+    {
+        return getByIds(productIds, ProductField.ALL);
+    }
 }
@@ -0,0 +1,13 @@
+package org.yearup.data;
+
+import org.yearup.models.ProductStats;
+
+import java.util.List;
+
+public interface ProductStatsDao
+{
+    // zero counts for a product with nothing stored
+    ProductStats getByProductId(int productId);
+    // Adds each entry's counts to the stored counts of its product, all or none
+    void addAll(List<ProductStats> deltas);
+}
@@ -0,0 +1,145 @@
+package org.yearup.data.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.Revision;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares one database round trip between identical concurrent catalog reads ({@link #search},
+ * {@link #getById}, {@link #getByIds} and {@link #getProductsByCategoryId}); everything else goes straight to the wrapped DAO.
+ * A multi-get is coalesced per product with the single-product reads, so overlapping carts share the products they
+ * have in common rather than only identical id lists sharing a query.
+ * <p>
+ * The catalog version is part of every key, so a read that starts after a write never joins a query that
+ * started before it. Callers that share a result share the {@link Product} instances in it and must not
+ * modify them; each caller does get its own list.
+ */
+public class CoalescingProductDao implements ProductDao
+{
+    private final ProductDao delegate;
+    private final CatalogVersion catalogVersion;
+    private final SingleFlight<List<Object>, List<Product>> searches;
+    private final SingleFlight<List<Object>, List<Product>> categoryProducts;
+    private final SingleFlight<List<Object>, Product> products;
+
+    public CoalescingProductDao(ProductDao delegate, CatalogVersion catalogVersion, Duration timeout, MeterRegistry registry)
+    {
+        this.delegate = delegate;
+        this.catalogVersion = catalogVersion;
+        this.searches = new SingleFlight<>("search", timeout, registry);
+        this.categoryProducts = new SingleFlight<>("getProductsByCategoryId", timeout, registry);
+        this.products = new SingleFlight<>("getById", timeout, registry);
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields)
+    {
+        List<Object> key = Arrays.asList(catalogVersion.get(), categoryId, minPrice, maxPrice, color, fields);
+        return new ArrayList<>(searches.call(key, () -> delegate.search(categoryId, minPrice, maxPrice, color, fields)));
+    }
+
+    @Override
+    public List<Product> getProductsByCategoryId(int categoryId, Set<ProductField> fields)
+    {
+        List<Object> key = Arrays.asList(catalogVersion.get(), categoryId, fields);
+        return new ArrayList<>(categoryProducts.call(key, () -> delegate.getProductsByCategoryId(categoryId, fields)));
+    }
+
+    @Override
+    public Product getById(int productId, Set<ProductField> fields)
+    {
+        List<Object> key = Arrays.asList(catalogVersion.get(), productId, fields);
+        return products.call(key, () -> delegate.getById(productId, fields));
+    }
+
+    @Override
+    public List<Product> getByIds(Collection<Integer> productIds, Set<ProductField> fields)
+    {
+        long version = catalogVersion.get();
+        List<List<Object>> keys = new ArrayList<>();
+        for (Integer productId : new LinkedHashSet<>(productIds))
+        {
+            keys.add(Arrays.asList(version, productId, fields));
+        }
+
+        Map<List<Object>, Product> found = products.callAll(keys, missing -> {
+            List<Integer> ids = new ArrayList<>();
+            missing.forEach(key -> ids.add((Integer) key.get(1)));
+            Map<List<Object>, Product> loaded = new HashMap<>();
+            for (Product product : delegate.getByIds(ids, fields))
+            {
+                loaded.put(Arrays.asList(version, product.getProductId(), fields), product);
+            }
+            return loaded;
+        });
+
+        List<Product> result = new ArrayList<>(keys.size());
+        for (List<Object> key : keys)
+        {
+            Product product = found.get(key);
+            if (product != null)
+            {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Revision getRevision(int productId)
+    {
+        return delegate.getRevision(productId);
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        return delegate.create(product);
+    }
+
+    @Override
+    public boolean update(int productId, Product product)
+    {
+        return delegate.update(productId, product);
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        delegate.delete(productId);
+    }
+
+    @Override
+    public List<Product> saveAll(List<Product> products, int batchSize)
+    {
+        return delegate.saveAll(products, batchSize);
+    }
+
+    @Override
+    public List<Product> adjust(ProductAdjustment adjustment)
+    {
+        return delegate.adjust(adjustment);
+    }
+
+    @Override
+    public Product patch(int productId, ProductPatch patch, Set<Integer> expectedVersions)
+    {
+        return delegate.patch(productId, patch, expectedVersions);
+    }
+}
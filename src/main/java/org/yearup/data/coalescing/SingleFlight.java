@@ -0,0 +1,218 @@
+package org.yearup.data.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time. The first caller for a key runs the loader; callers arriving
+ * with the same key while it is running wait for that result instead of running their own.
+ * <p>
+ * A caller waits at most the timeout for someone else's call, then runs the loader itself, so one stuck
+ * query cannot hold every later request for the same key hostage. A failure is handed to everyone who was
+ * waiting, and the next call for the key starts afresh: neither results nor errors outlive the call that
+ * produced them.
+ * <p>
+ * {@link #callAll} does the same for many keys at once: it waits for the keys already in flight, whether a
+ * single call or another bulk call is loading them, and loads the rest with one call of its own loader.
+ * <p>
+ * Counted as {@code easyshop.coalescing.calls}, tagged with the operation and {@code result}: {@code leader}
+ * ran the loader, {@code coalesced} shared another call's result, {@code timeout} gave up waiting and ran
+ * its own. Bulk calls count once per key.
+ */
+public class SingleFlight<K, V>
+{
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(String operation, Duration timeout, MeterRegistry registry)
+    {
+        this.timeoutNanos = timeout.toNanos();
+        this.leaders = calls(registry, operation, "leader");
+        this.coalesced = calls(registry, operation, "coalesced");
+        this.timeouts = calls(registry, operation, "timeout");
+    }
+
+    public V call(K key, Supplier<V> loader)
+    {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running == null)
+        {
+            leaders.increment();
+            return lead(key, mine, loader);
+        }
+
+        try
+        {
+            V result = running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return result;
+        }
+        catch (TimeoutException e)
+        {
+            timeouts.increment();
+            return loader.get();
+        }
+        catch (ExecutionException e)
+        {
+            coalesced.increment();
+            throw rethrow(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced call", e);
+        }
+    }
+
+    /**
+     * The value of every key, loading the ones no one else is loading with a single call of the loader. The loader
+     * gets the keys to load and returns their values; a key it leaves out gets null.
+     */
+    public Map<K, V> callAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader)
+    {
+        Map<K, CompletableFuture<V>> mine = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> running = new LinkedHashMap<>();
+        for (K key : keys)
+        {
+            if (mine.containsKey(key) || running.containsKey(key))
+            {
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> other = inFlight.putIfAbsent(key, future);
+            if (other == null)
+            {
+                mine.put(key, future);
+            }
+            else
+            {
+                running.put(key, other);
+            }
+        }
+
+        Map<K, V> values = new HashMap<>();
+        if (!mine.isEmpty())
+        {
+            leaders.increment(mine.size());
+            leadAll(mine, loader, values);
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<K> timedOut = new ArrayList<>();
+        for (Map.Entry<K, CompletableFuture<V>> other : running.entrySet())
+        {
+            try
+            {
+                values.put(other.getKey(), other.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                coalesced.increment();
+            }
+            catch (TimeoutException e)
+            {
+                timedOut.add(other.getKey());
+            }
+            catch (ExecutionException e)
+            {
+                coalesced.increment();
+                throw rethrow(e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a coalesced call", e);
+            }
+        }
+        if (!timedOut.isEmpty())
+        {
+            timeouts.increment(timedOut.size());
+            Map<K, V> loaded = loader.apply(timedOut);
+            for (K key : timedOut)
+            {
+                values.put(key, loaded.get(key));
+            }
+        }
+        return values;
+    }
+
+    private void leadAll(Map<K, CompletableFuture<V>> mine, Function<List<K>, Map<K, V>> loader, Map<K, V> values)
+    {
+        try
+        {
+            Map<K, V> loaded = loader.apply(new ArrayList<>(mine.keySet()));
+            for (Map.Entry<K, CompletableFuture<V>> key : mine.entrySet())
+            {
+                V value = loaded.get(key.getKey());
+                key.getValue().complete(value);
+                values.put(key.getKey(), value);
+            }
+        }
+        catch (RuntimeException | Error e)
+        {
+            mine.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+        finally
+        {
+            mine.forEach(inFlight::remove);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader)
+    {
+        try
+        {
+            V result = loader.get();
+            mine.complete(result);
+            return result;
+        }
+        catch (RuntimeException | Error e)
+        {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause)
+    {
+        if (cause instanceof Error)
+        {
+            throw (Error) cause;
+        }
+        if (cause instanceof RuntimeException)
+        {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static Counter calls(MeterRegistry registry, String operation, String result)
+    {
+        return Counter.builder("easyshop.coalescing.calls")
+                .description("Coalescable DAO reads, by whether they ran the query or shared one already running")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry);
+    }
+}
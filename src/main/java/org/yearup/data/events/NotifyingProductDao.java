@@ -0,0 +1,160 @@
+package org.yearup.data.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.Revision;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passes every call to the wrapped DAO and tells the {@link ProductChangeListener}s about successful writes.
+ * <p>
+ * The write has already happened by the time a listener runs, so a listener that throws is logged and
+ * skipped rather than failing the request.
+ */
+public class NotifyingProductDao implements ProductDao
+{
+    private static final Logger LOG = LoggerFactory.getLogger(NotifyingProductDao.class);
+
+    private final ProductDao delegate;
+    private final List<ProductChangeListener> listeners;
+
+    public NotifyingProductDao(ProductDao delegate, List<ProductChangeListener> listeners)
+    {
+        this.delegate = delegate;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields)
+    {
+        return delegate.search(categoryId, minPrice, maxPrice, color, fields);
+    }
+
+    @Override
+    public List<Product> getProductsByCategoryId(int categoryId, Set<ProductField> fields)
+    {
+        return delegate.getProductsByCategoryId(categoryId, fields);
+    }
+
+    @Override
+    public Product getById(int productId, Set<ProductField> fields)
+    {
+        return delegate.getById(productId, fields);
+    }
+
+    @Override
+    public List<Product> getByIds(Collection<Integer> productIds, Set<ProductField> fields)
+    {
+        return delegate.getByIds(productIds, fields);
+    }
+
+    @Override
+    public Revision getRevision(int productId)
+    {
+        return delegate.getRevision(productId);
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        Product created = delegate.create(product);
+        if (created != null)
+        {
+            saved(created);
+        }
+        return created;
+    }
+
+    @Override
+    public boolean update(int productId, Product product)
+    {
+        // nothing was written for an id with no product, and the views must not gain one
+        if (!delegate.update(productId, product))
+        {
+            return false;
+        }
+
+        // the update writes every column from the request, so the row now holds exactly these values
+        saved(new Product(productId, product.getName(), product.getPrice(), product.getCategoryId(),
+                product.getDescription(), product.getColor(), product.getStock(), product.isFeatured(),
+                product.getImageUrl()));
+        return true;
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        delegate.delete(productId);
+        for (ProductChangeListener listener : listeners)
+        {
+            try
+            {
+                listener.productDeleted(productId);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("{} failed to handle the deletion of product {}", listener.getClass().getSimpleName(), productId, e);
+            }
+        }
+    }
+
+    @Override
+    public List<Product> saveAll(List<Product> products, int batchSize)
+    {
+        List<Product> saved = delegate.saveAll(products, batchSize);
+        for (Product product : saved)
+        {
+            if (product != null)
+            {
+                saved(product);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Product> adjust(ProductAdjustment adjustment)
+    {
+        List<Product> changed = delegate.adjust(adjustment);
+        for (Product product : changed)
+        {
+            saved(product);
+        }
+        return changed;
+    }
+
+    @Override
+    public Product patch(int productId, ProductPatch patch, Set<Integer> expectedVersions)
+    {
+        Product patched = delegate.patch(productId, patch, expectedVersions);
+        if (patched != null)
+        {
+            saved(patched);
+        }
+        return patched;
+    }
+
+    private void saved(Product product)
+    {
+        for (ProductChangeListener listener : listeners)
+        {
+            try
+            {
+                listener.productSaved(product);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("{} failed to handle the save of product {}", listener.getClass().getSimpleName(), product.getProductId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.yearup.data.events;
+
+import org.yearup.models.Product;
+
+/**
+ * Told about every product written through the application's {@link org.yearup.data.ProductDao}, after the
+ * write has reached the database. In-memory views of the catalog (search index, typeahead, facets) use it to
+ * stay current without re-reading the table.
+ * <p>
+ * Calls arrive on the thread that made the write and should return quickly.
+ */
+public interface ProductChangeListener
+{
+    void productSaved(Product product);
+
+    void productDeleted(int productId);
+}
@@ -0,0 +1,266 @@
+package org.yearup.data.imports;
+
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.models.ProductField;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CSV as RFC 4180 has it: comma separated, values optionally in double quotes, a quote inside one written as two,
+ * and quoted values free to span lines. The first record names the columns with the product's JSON property
+ * names, in any order; name, price and categoryId are required, the rest default when left out or empty.
+ * <p>
+ * A record longer than {@link #MAX_RECORD_LENGTH} characters is read to its end without being kept and reported as
+ * invalid, so a quote that is never closed costs one error rather than the whole upload held in memory.
+ */
+final class CsvProductRowReader implements ProductRowReader
+{
+    private static final Set<ProductField> REQUIRED = EnumSet.of(ProductField.NAME, ProductField.PRICE, ProductField.CATEGORY_ID);
+    // a full-length description and every other column, with room to spare
+    static final int MAX_RECORD_LENGTH = 128 * 1024;
+
+    private final Reader in;
+    private final ProductField[] columns;
+    private final StringBuilder value = new StringBuilder();
+    // the line the next character is on
+    private int line = 1;
+    private boolean unterminatedQuote;
+    // characters read for the current record, and whether they ran past MAX_RECORD_LENGTH
+    private int recordLength;
+    private boolean tooLong;
+
+    CsvProductRowReader(Reader in) throws IOException
+    {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+
+        List<String> header = readRecord();
+        if (header == null)
+        {
+            throw new BadRequestException("The CSV is empty; it needs a header row naming the product fields.");
+        }
+        if (tooLong)
+        {
+            throw new BadRequestException("The CSV header is longer than " + MAX_RECORD_LENGTH + " characters.");
+        }
+        columns = new ProductField[header.size()];
+        Set<ProductField> seen = EnumSet.noneOf(ProductField.class);
+        for (int i = 0; i < columns.length; i++)
+        {
+            // a byte order mark is not part of the first column's name
+            String name = (i == 0 ? header.get(i).replace("\uFEFF", "") : header.get(i)).trim();
+            ProductField field = ProductField.fromJsonName(name);
+            if (field == null)
+            {
+                throw new BadRequestException("Unknown CSV column '" + name + "'.");
+            }
+            if (!seen.add(field))
+            {
+                throw new BadRequestException("CSV column '" + name + "' appears twice.");
+            }
+            columns[i] = field;
+        }
+        if (!seen.containsAll(REQUIRED))
+        {
+            throw new BadRequestException("The CSV header must include name, price and categoryId.");
+        }
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException
+    {
+        int start;
+        List<String> record;
+        do
+        {
+            start = line;
+            record = readRecord();
+            if (record == null)
+            {
+                return null;
+            }
+        }
+        while (record.size() == 1 && record.get(0).isEmpty() && columns.length > 1);
+
+        if (unterminatedQuote)
+        {
+            return ProductImportRow.invalid(start, "A quoted value is never closed.");
+        }
+        if (tooLong)
+        {
+            return ProductImportRow.invalid(start, "The record is longer than " + MAX_RECORD_LENGTH + " characters.");
+        }
+        if (record.size() != columns.length)
+        {
+            return ProductImportRow.invalid(start, "Expected " + columns.length + " values but found " + record.size() + ".");
+        }
+
+        Product product = new Product();
+        for (int i = 0; i < columns.length; i++)
+        {
+            String error = set(product, columns[i], record.get(i));
+            if (error != null)
+            {
+                return ProductImportRow.invalid(start, error);
+            }
+        }
+        return ProductImportRow.of(start, product);
+    }
+
+    // One record's values, or null at the end of the input
+    private List<String> readRecord() throws IOException
+    {
+        int c = in.read();
+        if (c == -1)
+        {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>(Math.max(1, columns == null ? 16 : columns.length));
+        value.setLength(0);
+        recordLength = 0;
+        tooLong = false;
+        boolean quoted = false;
+        // nothing of the current value read yet, so a quote here opens it
+        boolean fresh = true;
+        while (true)
+        {
+            if (c != -1 && ++recordLength > MAX_RECORD_LENGTH)
+            {
+                // read on to the record's end, keeping nothing
+                tooLong = true;
+                value.setLength(0);
+            }
+            if (quoted)
+            {
+                if (c == -1)
+                {
+                    unterminatedQuote = true;
+                    values.add(value.toString());
+                    return values;
+                }
+                if (c == '"')
+                {
+                    int next = in.read();
+                    if (next != '"')
+                    {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                    // the second quote of the pair counts towards the length too
+                    recordLength++;
+                    append('"');
+                }
+                else
+                {
+                    if (c == '\n')
+                    {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            }
+            else if (c == ',')
+            {
+                if (!tooLong)
+                {
+                    values.add(value.toString());
+                }
+                value.setLength(0);
+                fresh = true;
+            }
+            else if (c == '\n' || c == -1)
+            {
+                if (c == '\n')
+                {
+                    line++;
+                }
+                values.add(value.toString());
+                return values;
+            }
+            else if (c == '"' && fresh)
+            {
+                quoted = true;
+                fresh = false;
+            }
+            else if (c != '\r')
+            {
+                append((char) c);
+                fresh = false;
+            }
+            c = in.read();
+        }
+    }
+
+    private void append(char c)
+    {
+        if (!tooLong)
+        {
+            value.append(c);
+        }
+    }
+
+    // Why the value cannot go in the field, or null once it is set
+    private static String set(Product product, ProductField field, String value)
+    {
+        String trimmed = value.trim();
+        try
+        {
+            switch (field)
+            {
+                case PRODUCT_ID:
+                    product.setProductId(trimmed.isEmpty() ? 0 : Integer.parseInt(trimmed));
+                    break;
+                case NAME:
+                    product.setName(trimmed);
+                    break;
+                case PRICE:
+                    product.setPrice(trimmed.isEmpty() ? null : Money.parse(trimmed));
+                    break;
+                case CATEGORY_ID:
+                    product.setCategoryId(trimmed.isEmpty() ? 0 : Integer.parseInt(trimmed));
+                    break;
+                case DESCRIPTION:
+                    product.setDescription(value);
+                    break;
+                case COLOR:
+                    product.setColor(trimmed);
+                    break;
+                case STOCK:
+                    product.setStock(trimmed.isEmpty() ? 0 : Integer.parseInt(trimmed));
+                    break;
+                case FEATURED:
+                    if (trimmed.isEmpty() || trimmed.equalsIgnoreCase("false") || trimmed.equals("0"))
+                    {
+                        product.setFeatured(false);
+                    }
+                    else if (trimmed.equalsIgnoreCase("true") || trimmed.equals("1"))
+                    {
+                        product.setFeatured(true);
+                    }
+                    else
+                    {
+                        return "featured must be true or false, not '" + value + "'.";
+                    }
+                    break;
+                case IMAGE_URL:
+                    product.setImageUrl(trimmed);
+                    break;
+            }
+            return null;
+        }
+        catch (IllegalArgumentException | ArithmeticException e)
+        {
+            // NumberFormatException from the ids and stock, IllegalArgumentException from Money
+            return field.getJsonName() + " '" + value + "' is not a valid " + (field == ProductField.PRICE ? "amount." : "whole number.");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.yearup.data.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.yearup.models.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// Newline-delimited JSON: one product object per line, with the same property names as the product API
+final class NdjsonProductRowReader implements ProductRowReader
+{
+    private final BufferedReader in;
+    private final ObjectReader productReader;
+    private int line;
+
+    NdjsonProductRowReader(Reader in, ObjectMapper objectMapper)
+    {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.productReader = objectMapper.readerFor(Product.class);
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException
+    {
+        String text;
+        do
+        {
+            text = in.readLine();
+            line++;
+            if (text == null)
+            {
+                return null;
+            }
+        }
+        while (text.trim().isEmpty());
+
+        try
+        {
+            // a line such as null, 5 or [] parses, but is not a product
+            JsonNode node = productReader.readTree(text);
+            if (!node.isObject())
+            {
+                return ProductImportRow.invalid(line, "Not a valid product: expected a JSON object, not " + node.getNodeType().name().toLowerCase() + ".");
+            }
+            return ProductImportRow.of(line, productReader.readValue(node));
+        }
+        catch (JsonProcessingException e)
+        {
+            return ProductImportRow.invalid(line, "Not a valid product: " + e.getOriginalMessage());
+        }
+    }
+}
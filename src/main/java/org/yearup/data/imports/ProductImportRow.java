@@ -0,0 +1,43 @@
+package org.yearup.data.imports;
+
+import org.yearup.models.Product;
+
+// One record of an import: the product it describes, or why it could not be read, and the line it starts on
+final class ProductImportRow
+{
+    private final int line;
+    private final Product product;
+    private final String error;
+
+    private ProductImportRow(int line, Product product, String error)
+    {
+        this.line = line;
+        this.product = product;
+        this.error = error;
+    }
+
+    static ProductImportRow of(int line, Product product)
+    {
+        return new ProductImportRow(line, product, null);
+    }
+
+    static ProductImportRow invalid(int line, String error)
+    {
+        return new ProductImportRow(line, null, error);
+    }
+
+    int getLine()
+    {
+        return line;
+    }
+
+    Product getProduct()
+    {
+        return product;
+    }
+
+    String getError()
+    {
+        return error;
+    }
+}
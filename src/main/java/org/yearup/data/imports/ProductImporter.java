@@ -0,0 +1,185 @@
+package org.yearup.data.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+import org.yearup.models.ProductImportReport;
+import org.yearup.models.ProductRules;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk product import from CSV or newline-delimited JSON. A row with a productId overwrites that product, and a
+ * row without one creates a product.
+ * <p>
+ * The upload is read a record at a time as it arrives. Each record is checked, and the rows that pass are saved
+ * through {@link ProductDao#saveAll} one transaction of {@code rowsPerTransaction} rows at a time, sent as JDBC
+ * batches of {@code batchSize}. Memory holds one transaction's rows, however large the upload.
+ * <p>
+ * A record that cannot be read or fails a check is reported by line and skipped. If the database refuses a row,
+ * its transaction is rolled back and saved again one row at a time, so only that row is reported. Any other
+ * database failure stops the import, and the transactions before it stay committed.
+ * <p>
+ * The {@link CatalogVersion} is bumped once when the import ends, not once per row. Cached catalog responses are
+ * therefore dropped once, and until then they can still show the catalog as it was before the import. The
+ * in-memory catalog views are still told about every product as its transaction commits.
+ */
+public class ProductImporter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProductImporter.class);
+
+    private final ProductDao productDao;
+    private final CategoryDao categoryDao;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int rowsPerTransaction;
+
+    public ProductImporter(ProductDao productDao, CategoryDao categoryDao, CatalogVersion catalogVersion,
+                           ObjectMapper objectMapper, int batchSize, int rowsPerTransaction)
+    {
+        this.productDao = productDao;
+        this.categoryDao = categoryDao;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.rowsPerTransaction = rowsPerTransaction;
+    }
+
+    public ProductImportReport importCsv(Reader csv) throws IOException
+    {
+        return importRows(new CsvProductRowReader(csv));
+    }
+
+    public ProductImportReport importNdjson(Reader ndjson) throws IOException
+    {
+        return importRows(new NdjsonProductRowReader(ndjson, objectMapper));
+    }
+
+    private ProductImportReport importRows(ProductRowReader reader) throws IOException
+    {
+        Set<Integer> categoryIds = new HashSet<>();
+        for (Category category : categoryDao.getAllCategories())
+        {
+            categoryIds.add(category.getCategoryId());
+        }
+
+        ProductImportReport report = new ProductImportReport();
+        List<Product> products = new ArrayList<>(rowsPerTransaction);
+        List<Integer> lines = new ArrayList<>(rowsPerTransaction);
+        try
+        {
+            for (ProductImportRow row = reader.next(); row != null; row = reader.next())
+            {
+                String error = row.getError() != null ? row.getError() : ProductRules.check(row.getProduct(), categoryIds::contains);
+                if (error != null)
+                {
+                    report.addError(row.getLine(), error);
+                    continue;
+                }
+
+                products.add(row.getProduct());
+                lines.add(row.getLine());
+                if (products.size() == rowsPerTransaction)
+                {
+                    save(products, lines, report);
+                    products.clear();
+                    lines.clear();
+                }
+            }
+            if (!products.isEmpty())
+            {
+                save(products, lines, report);
+            }
+        }
+        finally
+        {
+            // also after a failure part way through, for the transactions that did commit
+            if (report.getCreated() > 0 || report.getUpdated() > 0)
+            {
+                catalogVersion.bump();
+            }
+        }
+        return report;
+    }
+
+    private void save(List<Product> products, List<Integer> lines, ProductImportReport report)
+    {
+        try
+        {
+            record(productDao.saveAll(products, batchSize), products, lines, report);
+        }
+        catch (RuntimeException e)
+        {
+            if (!isRejectedRow(e))
+            {
+                throw e;
+            }
+
+            // one row at a time, so the row the database refuses cannot take the others down with it
+            for (int i = 0; i < products.size(); i++)
+            {
+                List<Product> row = Collections.singletonList(products.get(i));
+                try
+                {
+                    record(productDao.saveAll(row, 1), row, lines.subList(i, i + 1), report);
+                }
+                catch (RuntimeException rowFailure)
+                {
+                    if (!isRejectedRow(rowFailure))
+                    {
+                        throw rowFailure;
+                    }
+                    LOG.warn("import row on line {} was rejected by the database", lines.get(i), rowFailure);
+                    report.addError(lines.get(i), "The database rejected this row.");
+                }
+            }
+        }
+    }
+
+    private static void record(List<Product> saved, List<Product> products, List<Integer> lines, ProductImportReport report)
+    {
+        for (int i = 0; i < saved.size(); i++)
+        {
+            if (saved.get(i) == null)
+            {
+                report.addError(lines.get(i), "No product with ID " + products.get(i).getProductId() + ".");
+            }
+            else if (products.get(i).getProductId() == 0)
+            {
+                report.addCreated();
+            }
+            else
+            {
+                report.addUpdated();
+            }
+        }
+    }
+
+    // A data or constraint error (SQLSTATE class 22 or 23), which is the row's fault, rather than the database
+    // being unreachable or slow
+    private static boolean isRejectedRow(Throwable failure)
+    {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof SQLException)
+            {
+                String state = ((SQLException) cause).getSQLState();
+                return state != null && (state.startsWith("22") || state.startsWith("23"));
+            }
+        }
+        return false;
+    }
+}
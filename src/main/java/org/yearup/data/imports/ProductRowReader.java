@@ -0,0 +1,10 @@
+package org.yearup.data.imports;
+
+import java.io.IOException;
+
+// Reads an upload one record at a time, so only the record being parsed is held in memory
+interface ProductRowReader
+{
+    // the next record, or null after the last one
+    ProductImportRow next() throws IOException;
+}
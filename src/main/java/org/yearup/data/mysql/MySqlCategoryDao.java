@@ -1,31 +1,43 @@
 package org.yearup.data.mysql;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.yearup.data.CatalogVersion;
 import org.yearup.data.CategoryDao;
 import org.yearup.models.Category;
+import org.yearup.models.CategoryWithProducts;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductOrder;
+import org.yearup.models.Revision;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 
 @Component
 public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
 {
-    public MySqlCategoryDao(DataSource dataSource)
+    private final CatalogVersion catalogVersion;
+
+    @Autowired
+    public MySqlCategoryDao(DataSource dataSource, CatalogVersion catalogVersion)
     {
         super(dataSource);
+        this.catalogVersion = catalogVersion;
     }
 
     @Override
     public List<Category> getAllCategories()
     {
         List<Category> categories = new ArrayList<>();
-        String sql = "SELECT category_id, name, description FROM categories";
+        String sql = "SELECT category_id, name, description, version, updated_at FROM categories";
 
         try (Connection connection = getConnection()) {
             PreparedStatement statement = connection.prepareStatement(sql);
@@ -40,10 +52,84 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
         return categories;
     }
 
+    // One statement for the whole page: each category's products are ranked in the database and only the
+    // first productsPerCategory of each come back, joined onto their category, in category then rank order
+    @Override
+    public List<CategoryWithProducts> getAllCategoriesWithProducts(int productsPerCategory, ProductOrder order, Set<ProductField> fields)
+    {
+        List<CategoryWithProducts> categories = new ArrayList<>();
+        String sql = buildCategoriesWithProductsSql(order, fields);
+
+        try (Connection connection = getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, productsPerCategory);
+            ResultSet row = statement.executeQuery();
+
+            CategoryWithProducts category = null;
+            while (row.next()) {
+                int categoryId = row.getInt("c_category_id");
+                if (category == null || category.getCategoryId() != categoryId) {
+                    category = mapCategoryColumns(row);
+                    category.setFields(fields);
+                    categories.add(category);
+                }
+                // a category without products still gets one row, with the product columns null
+                row.getInt("product_id");
+                if (!row.wasNull()) {
+                    category.getProducts().add(MySqlProductDao.mapRow(row, fields));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting categories with products: " + e.getMessage(), e);
+        }
+        return categories;
+    }
+
+    static String buildCategoriesWithProductsSql(ProductOrder order, Set<ProductField> fields)
+    {
+        // the join needs category_id whatever the caller asked for
+        Set<ProductField> read = EnumSet.copyOf(fields);
+        read.add(ProductField.CATEGORY_ID);
+        String productColumns = read.size() == ProductField.ALL.size() ? "products.*" : MySqlProductDao.selectList(read);
+
+        // the category columns are renamed, so the product columns keep the names MySqlProductDao.mapRow reads
+        return "SELECT c.category_id AS c_category_id, c.name AS c_name, c.description AS c_description, " +
+                "c.version AS c_version, c.updated_at AS c_updated_at, p.* " +
+                "FROM categories c " +
+                "LEFT JOIN (SELECT " + productColumns + ", " +
+                "ROW_NUMBER() OVER (PARTITION BY category_id ORDER BY " + orderBy(order) + ") AS product_rank " +
+                "FROM products) p ON p.category_id = c.category_id AND p.product_rank <= ? " +
+                "ORDER BY c.category_id, p.product_rank";
+    }
+
+    private static String orderBy(ProductOrder order)
+    {
+        switch (order)
+        {
+            case NAME:
+                return "name, product_id";
+            case PRICE:
+                return "price, product_id";
+            case FEATURED:
+            default:
+                return "featured DESC, name, product_id";
+        }
+    }
+
+    private static CategoryWithProducts mapCategoryColumns(ResultSet row) throws SQLException
+    {
+        CategoryWithProducts category = new CategoryWithProducts();
+        category.setCategoryId(row.getInt("c_category_id"));
+        category.setName(row.getString("c_name"));
+        category.setDescription(row.getString("c_description"));
+        category.setRevision(new Revision(row.getInt("c_version"), row.getTimestamp("c_updated_at").toInstant()));
+        return category;
+    }
+
     @Override
     public Category getById(int categoryId)
     {
-        String sql = "SELECT category_id, name, description FROM categories WHERE category_id = ?";
+        String sql = "SELECT category_id, name, description, version, updated_at FROM categories WHERE category_id = ?";
         try (Connection connection = getConnection()) {
             PreparedStatement statement = connection.prepareStatement(sql);
             statement.setInt(1, categoryId);
@@ -58,6 +144,24 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
         return null;
     }
 
+    @Override
+    public Revision getRevision(int categoryId)
+    {
+        String sql = "SELECT version, updated_at FROM categories WHERE category_id = ?";
+        try (Connection connection = getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, categoryId);
+            ResultSet row = statement.executeQuery();
+
+            if (row.next()) {
+                return getRevision(row);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting category revision: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
     @Override
     public Category create(Category category)
     {
@@ -69,6 +173,7 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
 
             int rowsAffected = ps.executeUpdate();
             if (rowsAffected > 0) {
+                catalogVersion.bump();
                 ResultSet rs = ps.getGeneratedKeys();
                 if (rs.next()) {
                     int newId = rs.getInt(1);
@@ -85,13 +190,15 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
     @Override
     public void update(int categoryId, Category category)
     {
-        String sql = "UPDATE categories SET name = ?, description = ? WHERE category_id = ?";
+        String sql = "UPDATE categories SET name = ?, description = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                "WHERE category_id = ?";
         try (Connection connection = getConnection()) {
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setString(1, category.getName());
             ps.setString(2, category.getDescription());
             ps.setInt(3, categoryId);
             ps.executeUpdate();
+            catalogVersion.bump();
         } catch (SQLException e) {
             throw new RuntimeException("Error updating category: " + e.getMessage(), e);
         }
@@ -105,6 +212,7 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setInt(1, categoryId);
             ps.executeUpdate();
+            catalogVersion.bump();
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting category: " + e.getMessage(), e);
         }
@@ -120,7 +228,8 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
         category.setCategoryId(categoryId);
         category.setName(name);
         category.setDescription(description);
+        category.setRevision(getRevision(row));
 
         return category;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,11 +1,23 @@
 package org.yearup.data.mysql;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.models.Money;
+import org.yearup.models.Revision;
+import org.yearup.monitoring.RequestTimings;
+import org.yearup.monitoring.TimedConnection;
+
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 public abstract class MySqlDaoBase
 {
+    private static final Logger LOG = LoggerFactory.getLogger(MySqlDaoBase.class);
+
     private DataSource dataSource;
 
     public MySqlDaoBase(DataSource dataSource)
@@ -15,6 +27,65 @@ public abstract class MySqlDaoBase
 
     protected Connection getConnection() throws SQLException
     {
-        return dataSource.getConnection();
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null)
+        {
+            return dataSource.getConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        timings.add(RequestTimings.Phase.DB_BORROW, System.nanoTime() - start);
+        return TimedConnection.wrap(connection, timings);
+    }
+
+    // Hands a connection taken for a transaction back with its auto-commit restored. The close has its own try, so a
+    // connection whose auto-commit cannot be reset still goes back to the pool.
+    protected static void release(Connection connection, boolean autoCommit)
+    {
+        if (connection == null)
+        {
+            return;
+        }
+        try
+        {
+            connection.setAutoCommit(autoCommit);
+        }
+        catch (SQLException e)
+        {
+            LOG.warn("Failed to restore auto-commit", e);
+        }
+        try
+        {
+            connection.close();
+        }
+        catch (SQLException e)
+        {
+            LOG.warn("Failed to release connection", e);
+        }
+    }
+
+    // DECIMAL columns come back from the driver as text, so parsing the string
+    // directly skips the BigDecimal that getBigDecimal() would build first
+    protected static Money getMoney(ResultSet row, String column) throws SQLException
+    {
+        return Money.parse(row.getString(column));
+    }
+
+    protected static Revision getRevision(ResultSet row) throws SQLException
+    {
+        return new Revision(row.getInt("version"), row.getTimestamp("updated_at").toInstant());
+    }
+
+    protected static void setMoney(PreparedStatement statement, int index, Money amount) throws SQLException
+    {
+        if (amount == null)
+        {
+            statement.setNull(index, Types.DECIMAL);
+        }
+        else
+        {
+            statement.setBigDecimal(index, amount.toBigDecimal());
+        }
     }
 }
@@ -0,0 +1,160 @@
+package org.yearup.data.mysql;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.CountedLines;
+import org.yearup.data.OrderLines;
+import org.yearup.util.IntIntMap;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads of {@code order_line_items} for the in-memory sales rankings and recommendations. Orders are written
+ * outside this application, so those views follow the table by line id instead of being told about new orders.
+ */
+@Component
+public class MySqlOrderLineDao extends MySqlDaoBase
+{
+    public MySqlOrderLineDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    /**
+     * Adds the units sold on every order line not yet in {@code counted} to {@code unitsSold}, by product id, and
+     * marks those lines counted.
+     * <p>
+     * A poll first counts the lines above the floor; if that matches the lines counted there, nothing new has
+     * committed and the poll costs that one range count on the primary key. Otherwise it reads the trailing window
+     * line by line and skips the ones already counted, which picks up lines that committed out of id order. The
+     * first read sums everything below the window in the database rather than sending every line ever sold.
+     */
+    public void addUnitsSold(CountedLines counted, IntIntMap unitsSold)
+    {
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement above = connection.prepareStatement(
+                    "SELECT COUNT(*), MAX(order_line_item_id) FROM order_line_items WHERE order_line_item_id > ?");
+            above.setInt(1, counted.getFloor());
+            ResultSet aboveRow = above.executeQuery();
+            aboveRow.next();
+            int lineCount = aboveRow.getInt(1);
+            int lastLineItemId = aboveRow.getInt(2);
+            if (lineCount == counted.size())
+            {
+                return;
+            }
+
+            int floor = lastLineItemId - CountedLines.WINDOW;
+            if (counted.getLast() == 0 && floor > counted.getFloor())
+            {
+                PreparedStatement sums = connection.prepareStatement(
+                        "SELECT product_id, SUM(quantity) AS units FROM order_line_items " +
+                        "WHERE order_line_item_id > ? AND order_line_item_id <= ? GROUP BY product_id");
+                sums.setInt(1, counted.getFloor());
+                sums.setInt(2, floor);
+
+                ResultSet row = sums.executeQuery();
+
+                while (row.next())
+                {
+                    unitsSold.addTo(row.getInt("product_id"), row.getInt("units"));
+                }
+                counted.advance(lastLineItemId);
+            }
+
+            // bounded above as well, so lines written since the MAX() are left for the next call
+            PreparedStatement lines = connection.prepareStatement(
+                    "SELECT order_line_item_id, product_id, quantity FROM order_line_items " +
+                    "WHERE order_line_item_id > ? AND order_line_item_id <= ?");
+            lines.setInt(1, counted.getFloor());
+            lines.setInt(2, lastLineItemId);
+
+            ResultSet row = lines.executeQuery();
+
+            while (row.next())
+            {
+                if (counted.add(row.getInt(1)))
+                {
+                    unitsSold.addTo(row.getInt(2), row.getInt(3));
+                }
+            }
+            counted.advance(lastLineItemId);
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Units sold per product over every order line there is, for a view ranked once rather than kept current
+    public Map<Integer, Integer> getUnitsSold()
+    {
+        IntIntMap unitsSold = new IntIntMap(1024);
+        addUnitsSold(new CountedLines(), unitsSold);
+
+        Map<Integer, Integer> byProductId = new HashMap<>(Math.max(16, unitsSold.size() * 2));
+        unitsSold.forEach(byProductId::put);
+        return byProductId;
+    }
+
+    /**
+     * Every line of every order with a line above the floor of {@code counted}, lines already counted included, so a
+     * caller can tell what each new line was bought with. With nothing counted yet that is every order line there
+     * is. As in {@link #addUnitsSold}, a poll where nothing new has committed stops after one range count.
+     */
+    public OrderLines getOrdersWithNewLines(CountedLines counted)
+    {
+        int afterLineItemId = counted.getFloor();
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement above = connection.prepareStatement(
+                    "SELECT COUNT(*), MAX(order_line_item_id) FROM order_line_items WHERE order_line_item_id > ?");
+            above.setInt(1, afterLineItemId);
+            ResultSet aboveRow = above.executeQuery();
+            aboveRow.next();
+            int lineCount = aboveRow.getInt(1);
+            int lastLineItemId = aboveRow.getInt(2);
+
+            OrderLines lines = new OrderLines(counted.getLast() == 0 ? 1024 : 64);
+            lines.setLastLineItemId(Math.max(counted.getLast(), lastLineItemId));
+            if (lineCount == counted.size())
+            {
+                return lines;
+            }
+
+            // lines past the MAX() are left out even from the orders read, so the next call sees them as new
+            String sql = afterLineItemId == 0
+                    ? "SELECT order_id, order_line_item_id, product_id FROM order_line_items " +
+                      "WHERE order_line_item_id <= ? ORDER BY order_id, order_line_item_id"
+                    : "SELECT order_id, order_line_item_id, product_id FROM order_line_items " +
+                      "WHERE order_line_item_id <= ? AND order_id IN (SELECT order_id FROM order_line_items " +
+                      "WHERE order_line_item_id > ? AND order_line_item_id <= ?) " +
+                      "ORDER BY order_id, order_line_item_id";
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, lastLineItemId);
+            if (afterLineItemId != 0)
+            {
+                statement.setInt(2, afterLineItemId);
+                statement.setInt(3, lastLineItemId);
+            }
+
+            ResultSet row = statement.executeQuery();
+
+            while (row.next())
+            {
+                lines.add(row.getInt(1), row.getInt(2), row.getInt(3));
+            }
+            return lines;
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,48 +1,99 @@
 package org.yearup.data.mysql;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.yearup.data.CatalogVersion;
+import org.yearup.exceptions.PreconditionFailedException;
+import org.yearup.models.Money;
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.ProductRules;
+import org.yearup.models.Revision;
 import org.yearup.data.ProductDao;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 {
-    public MySqlProductDao(DataSource dataSource)
+    private static final Logger LOG = LoggerFactory.getLogger(MySqlProductDao.class);
+
+    private static final Map<ProductField, String> COLUMNS = new EnumMap<>(ProductField.class);
+    static
+    {
+        COLUMNS.put(ProductField.PRODUCT_ID, "product_id");
+        COLUMNS.put(ProductField.NAME, "name");
+        COLUMNS.put(ProductField.PRICE, "price");
+        COLUMNS.put(ProductField.CATEGORY_ID, "category_id");
+        COLUMNS.put(ProductField.DESCRIPTION, "description");
+        COLUMNS.put(ProductField.COLOR, "color");
+        COLUMNS.put(ProductField.STOCK, "stock");
+        COLUMNS.put(ProductField.FEATURED, "featured");
+        COLUMNS.put(ProductField.IMAGE_URL, "image_url");
+    }
+
+    // ids per statement in getByIds and adjust(): a page of ids is one statement, and none grows without bound
+    static final int IDS_PER_QUERY = 500;
+
+    // create, update and saveAll bind the same eight columns in this order
+    private static final String INSERT_SQL = "INSERT INTO products(name, price, category_id, description, color, image_url, stock, featured) " +
+            " VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
+    private static final String UPDATE_SQL = "UPDATE products" +
+            " SET name = ? " +
+            "   , price = ? " +
+            "   , category_id = ? " +
+            "   , description = ? " +
+            "   , color = ? " +
+            "   , image_url = ? " +
+            "   , stock = ? " +
+            "   , featured = ? " +
+            "   , version = version + 1 " +
+            "   , updated_at = CURRENT_TIMESTAMP " +
+            " WHERE product_id = ?;";
+
+    // adjust() with new values per product: only the columns given for each one
+    private static final String SET_PRICE_AND_STOCK_SQL = "UPDATE products SET price = ?, stock = ?, " +
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE product_id = ?";
+    private static final String SET_PRICE_SQL = "UPDATE products SET price = ?, " +
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE product_id = ?";
+    private static final String SET_STOCK_SQL = "UPDATE products SET stock = ?, " +
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE product_id = ?";
+
+
+    private final CatalogVersion catalogVersion;
+
+    @Autowired
+    public MySqlProductDao(DataSource dataSource, CatalogVersion catalogVersion)
     {
         super(dataSource);
+        this.catalogVersion = catalogVersion;
     }
 
     @Override
-    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color)
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields)
     {
         List<Product> products = new ArrayList<>();
-
-        // Start with base SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM products WHERE 1=1"); // 1=1 for easy appending AND clauses
-
-        // Add conditions based on parameters provided
-        if (categoryId != null && categoryId != -1) { // Check for non-null and not a "default all" value
-            sqlBuilder.append(" AND category_id = ?");
-        }
-        if (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) >= 0) { // Check if minPrice is valid (>= 0)
-            sqlBuilder.append(" AND price >= ?");
-        }
-        if (maxPrice != null && maxPrice.compareTo(BigDecimal.ZERO) >= 0) { // Check if maxPrice is valid (>= 0)
-            sqlBuilder.append(" AND price <= ?");
-        }
-        if (color != null && !color.isEmpty()) { // Check if color is not null or empty
-            sqlBuilder.append(" AND color = ?");
-        }
+        String sql = buildSearchSql(categoryId, minPrice, maxPrice, color, fields);
 
         try (Connection connection = getConnection())
         {
-            PreparedStatement statement = connection.prepareStatement(sqlBuilder.toString());
+            PreparedStatement statement = connection.prepareStatement(sql);
 
             int paramIndex = 1; // Counter for prepared statement parameters
 
@@ -64,27 +115,64 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
             while (row.next())
             {
-                Product product = mapRow(row);
+                Product product = mapRow(row, fields);
                 products.add(product);
             }
         }
         catch (SQLException e)
         {
-            // Log the actual SQL exception for detailed debugging
-            System.err.println("Error searching products: " + e.getMessage());
-            e.printStackTrace(); // Print full stack trace to console
+            // not logged here: ApiExceptionHandler leaves it to the servlet container, which logs it once with the
+            // cause and answers 500, and LastGoodReads logs it when a kept result is served in its place
             throw new RuntimeException("Database error during product search.", e);
         }
 
         return products;
     }
 
+    // The placeholders added here must match the parameters bound in search()
+    static String buildSearchSql(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color)
+    {
+        return buildSearchSql(categoryId, minPrice, maxPrice, color, ProductField.ALL);
+    }
+
+    static String buildSearchSql(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields)
+    {
+        // Start with base SQL; 1=1 for easy appending AND clauses
+        String base = fields.size() == COLUMNS.size()
+                ? "SELECT * FROM products WHERE 1=1"
+                : "SELECT " + columnList(fields) + " FROM products WHERE 1=1";
+        boolean filtered = (categoryId != null && categoryId != -1)
+                || (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) >= 0)
+                || (maxPrice != null && maxPrice.compareTo(BigDecimal.ZERO) >= 0)
+                || (color != null && !color.isEmpty());
+        if (!filtered) {
+            return base;
+        }
+        StringBuilder sqlBuilder = new StringBuilder(base.length() + 64).append(base);
+
+        // Add conditions based on parameters provided
+        if (categoryId != null && categoryId != -1) { // Check for non-null and not a "default all" value
+            sqlBuilder.append(" AND category_id = ?");
+        }
+        if (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) >= 0) { // Check if minPrice is valid (>= 0)
+            sqlBuilder.append(" AND price >= ?");
+        }
+        if (maxPrice != null && maxPrice.compareTo(BigDecimal.ZERO) >= 0) { // Check if maxPrice is valid (>= 0)
+            sqlBuilder.append(" AND price <= ?");
+        }
+        if (color != null && !color.isEmpty()) { // Check if color is not null or empty
+            sqlBuilder.append(" AND color = ?");
+        }
+
+        return sqlBuilder.toString();
+    }
+
     @Override
-    public List<Product> getProductsByCategoryId(int categoryId)
+    public List<Product> getProductsByCategoryId(int categoryId, Set<ProductField> fields)
     {
         List<Product> products = new ArrayList<>();
 
-        String sql = "SELECT * FROM products " +
+        String sql = "SELECT " + selectList(fields) + " FROM products " +
                 " WHERE category_id = ? ";
 
         try (Connection connection = getConnection())
@@ -96,7 +184,7 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
             while (row.next())
             {
-                Product product = mapRow(row);
+                Product product = mapRow(row, fields);
                 products.add(product);
             }
         }
@@ -110,9 +198,9 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
 
     @Override
-    public Product getById(int productId)
+    public Product getById(int productId, Set<ProductField> fields)
     {
-        String sql = "SELECT * FROM products WHERE product_id = ?";
+        String sql = "SELECT " + selectList(fields) + " FROM products WHERE product_id = ?";
         try (Connection connection = getConnection())
         {
             PreparedStatement statement = connection.prepareStatement(sql);
@@ -122,7 +210,7 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
             if (row.next())
             {
-                return mapRow(row);
+                return mapRow(row, fields);
             }
         }
         catch (SQLException e)
@@ -133,27 +221,103 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
     }
 
     @Override
-    public Product create(Product product)
+    public List<Product> getByIds(Collection<Integer> productIds, Set<ProductField> fields)
+    {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        if (ids.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        Map<Integer, Product> found = new HashMap<>();
+
+        try (Connection connection = getConnection())
+        {
+            for (int start = 0; start < ids.size(); start += IDS_PER_QUERY)
+            {
+                List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + IDS_PER_QUERY));
+                try (PreparedStatement statement = connection.prepareStatement(buildGetByIdsSql(chunk.size(), fields)))
+                {
+                    for (int i = 0; i < chunk.size(); i++)
+                    {
+                        statement.setInt(i + 1, chunk.get(i));
+                    }
+
+                    ResultSet row = statement.executeQuery();
+
+                    while (row.next())
+                    {
+                        Product product = mapRow(row, fields);
+                        found.put(product.getProductId(), product);
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        // IN (...) comes back in index order, so put the products back in the order they were asked for
+        List<Product> products = new ArrayList<>(found.size());
+        for (Integer id : ids)
+        {
+            Product product = found.get(id);
+            if (product != null)
+            {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    static String buildGetByIdsSql(int idCount, Set<ProductField> fields)
     {
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList(fields))
+                .append(" FROM products WHERE product_id IN (");
+        for (int i = 0; i < idCount; i++)
+        {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    // just the columns behind ETag and Last-Modified, for answering conditional requests without the full row
+    @Override
+    public Revision getRevision(int productId)
+    {
+        String sql = "SELECT version, updated_at FROM products WHERE product_id = ?";
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, productId);
 
-        String sql = "INSERT INTO products(name, price, category_id, description, color, image_url, stock, featured) " +
-                " VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
+            ResultSet row = statement.executeQuery();
 
+            if (row.next())
+            {
+                return getRevision(row);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return null;
+    }
+
+    @Override
+    public Product create(Product product)
+    {
         try (Connection connection = getConnection())
         {
-            PreparedStatement statement = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-            statement.setString(1, product.getName());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getCategoryId());
-            statement.setString(4, product.getDescription());
-            statement.setString(5, product.getColor());
-            statement.setString(6, product.getImageUrl());
-            statement.setInt(7, product.getStock());
-            statement.setBoolean(8, product.isFeatured());
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
+            setColumns(statement, product);
 
             int rowsAffected = statement.executeUpdate();
 
             if (rowsAffected > 0) {
+                catalogVersion.bump();
+
                 // Retrieve the generated keys
                 ResultSet generatedKeys = statement.getGeneratedKeys();
 
@@ -174,33 +338,20 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
     }
 
     @Override
-    public void update(int productId, Product product)
-    {
-        String sql = "UPDATE products" +
-                " SET name = ? " +
-                "   , price = ? " +
-                "   , category_id = ? " +
-                "   , description = ? " +
-                "   , color = ? " +
-                "   , image_url = ? " +
-                "   , stock = ? " +
-                "   , featured = ? " +
-                " WHERE product_id = ?;";
-
+    public boolean update(int productId, Product product)
+    {
         try (Connection connection = getConnection())
         {
-            PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setString(1, product.getName());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getCategoryId());
-            statement.setString(4, product.getDescription());
-            statement.setString(5, product.getColor());
-            statement.setString(6, product.getImageUrl());
-            statement.setInt(7, product.getStock());
-            statement.setBoolean(8, product.isFeatured());
+            PreparedStatement statement = connection.prepareStatement(UPDATE_SQL);
+            setColumns(statement, product);
             statement.setInt(9, productId);
 
-            statement.executeUpdate();
+            if (statement.executeUpdate() == 0)
+            {
+                return false;
+            }
+            catalogVersion.bump();
+            return true;
         }
         catch (SQLException e)
         {
@@ -220,7 +371,11 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
             PreparedStatement statement = connection.prepareStatement(sql);
             statement.setInt(1, productId);
 
-            statement.executeUpdate();
+            // deleting a missing product changes nothing, so cached responses stay valid
+            if (statement.executeUpdate() > 0)
+            {
+                catalogVersion.bump();
+            }
         }
         catch (SQLException e)
         {
@@ -228,11 +383,483 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         }
     }
 
+    // Creates first, then updates, each as batches on one prepared statement; rewriteBatchedStatements in the
+    // MySQL URL turns a batch of inserts into one multi-row INSERT
+    @Override
+    public List<Product> saveAll(List<Product> products, int batchSize)
+    {
+        List<Product> saved = new ArrayList<>(products);
+        List<Integer> creates = new ArrayList<>();
+        List<Integer> updates = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++)
+        {
+            (products.get(i).getProductId() == 0 ? creates : updates).add(i);
+        }
+
+        Connection connection = null;
+        boolean autoCommit = true;
+        try
+        {
+            connection = getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS))
+            {
+                for (int start = 0; start < creates.size(); start += batchSize)
+                {
+                    List<Integer> batch = creates.subList(start, Math.min(creates.size(), start + batchSize));
+                    for (int index : batch)
+                    {
+                        setColumns(insert, products.get(index));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+
+                    ResultSet generatedKeys = insert.getGeneratedKeys();
+                    for (int index : batch)
+                    {
+                        if (!generatedKeys.next())
+                        {
+                            throw new SQLException("Fewer generated keys than rows inserted.");
+                        }
+                        saved.set(index, withId(products.get(index), generatedKeys.getInt(1)));
+                    }
+                }
+            }
+
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL))
+            {
+                for (int start = 0; start < updates.size(); start += batchSize)
+                {
+                    List<Integer> batch = updates.subList(start, Math.min(updates.size(), start + batchSize));
+                    for (int index : batch)
+                    {
+                        setColumns(update, products.get(index));
+                        update.setInt(9, products.get(index).getProductId());
+                        update.addBatch();
+                    }
+                    int[] rowsAffected = update.executeBatch();
+
+                    for (int i = 0; i < batch.size(); i++)
+                    {
+                        if (rowsAffected[i] == 0)
+                        {
+                            saved.set(batch.get(i), null);
+                        }
+                    }
+                }
+            }
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            try
+            {
+                if (connection != null) connection.rollback();
+            }
+            catch (SQLException ex)
+            {
+                LOG.warn("Rollback failed", ex);
+            }
+            throw new RuntimeException("Error saving products.", e);
+        }
+        finally
+        {
+            release(connection, autoCommit);
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Product> adjust(ProductAdjustment adjustment)
+    {
+        List<Product> changed;
+        Connection connection = null;
+        boolean autoCommit = true;
+        try
+        {
+            connection = getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            changed = adjustment.isFiltered() ? adjustMatching(connection, adjustment) : setValues(connection, adjustment);
+
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            try
+            {
+                if (connection != null) connection.rollback();
+            }
+            catch (SQLException ex)
+            {
+                LOG.warn("Rollback failed", ex);
+            }
+            throw new RuntimeException("Error adjusting products.", e);
+        }
+        finally
+        {
+            release(connection, autoCommit);
+        }
+
+        if (!changed.isEmpty())
+        {
+            catalogVersion.bump();
+        }
+        return changed;
+    }
+
+    // One UPDATE setting just the patched columns, then the row read back on the same connection. The version
+    // check is part of the UPDATE's WHERE, so a concurrent write between check and write cannot slip through.
+    @Override
+    public Product patch(int productId, ProductPatch patch, Set<Integer> expectedVersions)
+    {
+        int versions = expectedVersions == null ? 0 : expectedVersions.size();
+        try (Connection connection = getConnection())
+        {
+            int updated;
+            try (PreparedStatement update = connection.prepareStatement(buildPatchSql(patch.getFields(), versions)))
+            {
+                int index = bindPatch(update, patch);
+                update.setInt(index++, productId);
+                if (versions > 0)
+                {
+                    for (int version : expectedVersions)
+                    {
+                        update.setInt(index++, version);
+                    }
+                }
+                updated = update.executeUpdate();
+            }
+            if (updated > 0)
+            {
+                catalogVersion.bump();
+            }
+
+            try (PreparedStatement select = connection.prepareStatement("SELECT * FROM products WHERE product_id = ?"))
+            {
+                select.setInt(1, productId);
+
+                ResultSet row = select.executeQuery();
+
+                if (!row.next())
+                {
+                    return null;
+                }
+                if (updated == 0)
+                {
+                    throw new PreconditionFailedException("Product " + productId + " has changed since version "
+                            + versionList(expectedVersions) + "; it is now at version " + row.getInt("version") + ".");
+                }
+                return mapRow(row);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error patching product.", e);
+        }
+    }
+
+    // The placeholders added here must match the parameters bound in patch() and bindPatch()
+    static String buildPatchSql(Set<ProductField> fields, int versions)
+    {
+        StringBuilder sql = new StringBuilder("UPDATE products SET ");
+        for (ProductField field : fields)
+        {
+            sql.append(COLUMNS.get(field)).append(" = ?, ");
+        }
+        sql.append("version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE product_id = ?");
+        if (versions > 0)
+        {
+            sql.append(" AND version IN (");
+            for (int i = 0; i < versions; i++)
+            {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+
+    private static String versionList(Set<Integer> versions)
+    {
+        return versions.stream().map(String::valueOf).collect(Collectors.joining(" or "));
+    }
+
+    // binds the patched columns in the order buildPatchSql lists them and returns the next parameter index
+    private static int bindPatch(PreparedStatement statement, ProductPatch patch) throws SQLException
+    {
+        int index = 1;
+        for (ProductField field : patch.getFields())
+        {
+            switch (field)
+            {
+                case NAME:
+                    statement.setString(index++, patch.getName());
+                    break;
+                case PRICE:
+                    setMoney(statement, index++, patch.getPrice());
+                    break;
+                case CATEGORY_ID:
+                    statement.setInt(index++, patch.getCategoryId());
+                    break;
+                case DESCRIPTION:
+                    statement.setString(index++, patch.getDescription());
+                    break;
+                case COLOR:
+                    statement.setString(index++, patch.getColor());
+                    break;
+                case STOCK:
+                    statement.setInt(index++, patch.getStock());
+                    break;
+                case FEATURED:
+                    statement.setBoolean(index++, patch.getFeatured());
+                    break;
+                case IMAGE_URL:
+                    statement.setString(index++, patch.getImageUrl());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot patch " + field.getJsonName());
+            }
+        }
+        return index;
+    }
+
+    // The matching rows locked and their ids read first, then one UPDATE per page of those ids and the changed rows
+    // read back by id. The lock keeps the matched rows as they are until commit, and a product that only starts to
+    // match meanwhile is neither changed nor returned, so what comes back is exactly what the UPDATEs changed.
+    private static List<Product> adjustMatching(Connection connection, ProductAdjustment adjustment) throws SQLException
+    {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT product_id FROM products" + buildAdjustWhere(adjustment) + " FOR UPDATE"))
+        {
+            bindAdjustFilters(select, 1, adjustment);
+
+            ResultSet row = select.executeQuery();
+
+            while (row.next())
+            {
+                ids.add(row.getInt("product_id"));
+            }
+        }
+
+        for (int start = 0; start < ids.size(); start += IDS_PER_QUERY)
+        {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + IDS_PER_QUERY));
+            try (PreparedStatement update = connection.prepareStatement(buildAdjustSql(adjustment, chunk.size())))
+            {
+                int index = 1;
+                if (adjustment.getPricePercent() != null)
+                {
+                    update.setBigDecimal(index++, BigDecimal.ONE.add(adjustment.getPricePercent().movePointLeft(2)));
+                }
+                else if (adjustment.getPriceChange() != null)
+                {
+                    setMoney(update, index++, adjustment.getPriceChange());
+                }
+                if (adjustment.getStockChange() != null)
+                {
+                    update.setInt(index++, adjustment.getStockChange());
+                }
+                for (int id : chunk)
+                {
+                    update.setInt(index++, id);
+                }
+                update.executeUpdate();
+            }
+        }
+        return readBack(connection, ids);
+    }
+
+    // The placeholders added here must match the parameters bound in adjustMatching(). Prices stay within what
+    // DECIMAL(10, 2) holds however far the change would take them.
+    static String buildAdjustSql(ProductAdjustment adjustment, int idCount)
+    {
+        StringBuilder sql = new StringBuilder("UPDATE products SET ");
+        if (adjustment.getPricePercent() != null)
+        {
+            sql.append("price = LEAST(").append(ProductRules.MAX_PRICE).append(", GREATEST(0, ROUND(price * ?, 2))), ");
+        }
+        else if (adjustment.getPriceChange() != null)
+        {
+            sql.append("price = LEAST(").append(ProductRules.MAX_PRICE).append(", GREATEST(0, price + ?)), ");
+        }
+        if (adjustment.getStockChange() != null)
+        {
+            sql.append("stock = GREATEST(0, stock + ?), ");
+        }
+        sql.append("version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE product_id IN (");
+        for (int i = 0; i < idCount; i++)
+        {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static String buildAdjustWhere(ProductAdjustment adjustment)
+    {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        if (adjustment.getCategoryId() != null)
+        {
+            where.append(" AND category_id = ?");
+        }
+        if (adjustment.getColor() != null && !adjustment.getColor().isEmpty())
+        {
+            where.append(" AND color = ?");
+        }
+        List<Integer> ids = adjustment.getProductIds();
+        if (ids != null && !ids.isEmpty())
+        {
+            where.append(" AND product_id IN (");
+            for (int i = 0; i < ids.size(); i++)
+            {
+                where.append(i == 0 ? "?" : ", ?");
+            }
+            where.append(')');
+        }
+        return where.toString();
+    }
+
+    private static void bindAdjustFilters(PreparedStatement statement, int index, ProductAdjustment adjustment) throws SQLException
+    {
+        if (adjustment.getCategoryId() != null)
+        {
+            statement.setInt(index++, adjustment.getCategoryId());
+        }
+        if (adjustment.getColor() != null && !adjustment.getColor().isEmpty())
+        {
+            statement.setString(index++, adjustment.getColor());
+        }
+        if (adjustment.getProductIds() != null)
+        {
+            for (Integer id : adjustment.getProductIds())
+            {
+                statement.setInt(index++, id);
+            }
+        }
+    }
+
+    // A batch per statement shape (price and stock, price only, stock only), then the changed rows read back by id
+    private static List<Product> setValues(Connection connection, ProductAdjustment adjustment) throws SQLException
+    {
+        Map<Integer, Money> prices = adjustment.getPrices() != null ? adjustment.getPrices() : Collections.emptyMap();
+        Map<Integer, Integer> stock = adjustment.getStock() != null ? adjustment.getStock() : Collections.emptyMap();
+
+        List<Integer> changedIds = new ArrayList<>();
+        try (PreparedStatement both = connection.prepareStatement(SET_PRICE_AND_STOCK_SQL);
+             PreparedStatement priceOnly = connection.prepareStatement(SET_PRICE_SQL);
+             PreparedStatement stockOnly = connection.prepareStatement(SET_STOCK_SQL))
+        {
+            List<Integer> bothIds = new ArrayList<>();
+            List<Integer> priceIds = new ArrayList<>();
+            List<Integer> stockIds = new ArrayList<>();
+            for (Map.Entry<Integer, Money> price : prices.entrySet())
+            {
+                Integer newStock = stock.get(price.getKey());
+                if (newStock != null)
+                {
+                    setMoney(both, 1, price.getValue());
+                    both.setInt(2, newStock);
+                    both.setInt(3, price.getKey());
+                    both.addBatch();
+                    bothIds.add(price.getKey());
+                }
+                else
+                {
+                    setMoney(priceOnly, 1, price.getValue());
+                    priceOnly.setInt(2, price.getKey());
+                    priceOnly.addBatch();
+                    priceIds.add(price.getKey());
+                }
+            }
+            for (Map.Entry<Integer, Integer> newStock : stock.entrySet())
+            {
+                if (!prices.containsKey(newStock.getKey()))
+                {
+                    stockOnly.setInt(1, newStock.getValue());
+                    stockOnly.setInt(2, newStock.getKey());
+                    stockOnly.addBatch();
+                    stockIds.add(newStock.getKey());
+                }
+            }
+
+            executeBatch(both, bothIds, changedIds);
+            executeBatch(priceOnly, priceIds, changedIds);
+            executeBatch(stockOnly, stockIds, changedIds);
+        }
+
+        return readBack(connection, changedIds);
+    }
+
+    // the rows with these ids, read a page of ids at a time on the caller's connection
+    private static List<Product> readBack(Connection connection, List<Integer> ids) throws SQLException
+    {
+        List<Product> products = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += IDS_PER_QUERY)
+        {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + IDS_PER_QUERY));
+            try (PreparedStatement select = connection.prepareStatement(buildGetByIdsSql(chunk.size(), ProductField.ALL)))
+            {
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    select.setInt(i + 1, chunk.get(i));
+                }
+
+                ResultSet row = select.executeQuery();
+
+                while (row.next())
+                {
+                    products.add(mapRow(row));
+                }
+            }
+        }
+        return products;
+    }
+
+    // adds the ids of the rows the batch changed
+    private static void executeBatch(PreparedStatement statement, List<Integer> ids, List<Integer> changedIds) throws SQLException
+    {
+        if (ids.isEmpty())
+        {
+            return;
+        }
+        int[] rowsAffected = statement.executeBatch();
+        for (int i = 0; i < ids.size(); i++)
+        {
+            if (rowsAffected[i] != 0)
+            {
+                changedIds.add(ids.get(i));
+            }
+        }
+    }
+
+    private static void setColumns(PreparedStatement statement, Product product) throws SQLException
+    {
+        statement.setString(1, product.getName());
+        setMoney(statement, 2, product.getPrice());
+        statement.setInt(3, product.getCategoryId());
+        statement.setString(4, product.getDescription());
+        statement.setString(5, product.getColor());
+        statement.setString(6, product.getImageUrl());
+        statement.setInt(7, product.getStock());
+        statement.setBoolean(8, product.isFeatured());
+    }
+
+    private static Product withId(Product product, int productId)
+    {
+        return new Product(productId, product.getName(), product.getPrice(), product.getCategoryId(),
+                product.getDescription(), product.getColor(), product.getStock(), product.isFeatured(),
+                product.getImageUrl());
+    }
+
     protected static Product mapRow(ResultSet row) throws SQLException
     {
         int productId = row.getInt("product_id");
         String name = row.getString("name");
-        BigDecimal price = row.getBigDecimal("price");
+        Money price = getMoney(row, "price");
         int categoryId = row.getInt("category_id");
         String description = row.getString("description");
         String color = row.getString("color");
@@ -240,6 +867,74 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         boolean isFeatured = row.getBoolean("featured");
         String imageUrl = row.getString("image_url");
 
-        return new Product(productId, name, price, categoryId, description, color, stock, isFeatured, imageUrl);
+        Product product = new Product(productId, name, price, categoryId, description, color, stock, isFeatured, imageUrl);
+        product.setRevision(getRevision(row));
+        return product;
+    }
+
+    // Only the columns behind the requested fields, plus the key and the revision columns. All fields means
+    // every column of the table, which SELECT * already says in fewer bytes.
+    static String selectList(Set<ProductField> fields)
+    {
+        return fields.size() == COLUMNS.size() ? "*" : columnList(fields);
+    }
+
+    private static String columnList(Set<ProductField> fields)
+    {
+        StringBuilder columns = new StringBuilder("product_id");
+        for (ProductField field : fields)
+        {
+            if (field != ProductField.PRODUCT_ID)
+            {
+                columns.append(", ").append(COLUMNS.get(field));
+            }
+        }
+        return columns.append(", version, updated_at").toString();
+    }
+
+    protected static Product mapRow(ResultSet row, Set<ProductField> fields) throws SQLException
+    {
+        if (fields.size() == COLUMNS.size())
+        {
+            return mapRow(row);
+        }
+
+        // a partial row: unread properties keep their defaults, and the JSON view leaves them out
+        Product product = new Product();
+        product.setProductId(row.getInt("product_id"));
+        for (ProductField field : fields)
+        {
+            switch (field)
+            {
+                case NAME:
+                    product.setName(row.getString("name"));
+                    break;
+                case PRICE:
+                    product.setPrice(getMoney(row, "price"));
+                    break;
+                case CATEGORY_ID:
+                    product.setCategoryId(row.getInt("category_id"));
+                    break;
+                case DESCRIPTION:
+                    product.setDescription(row.getString("description"));
+                    break;
+                case COLOR:
+                    product.setColor(row.getString("color"));
+                    break;
+                case STOCK:
+                    product.setStock(row.getInt("stock"));
+                    break;
+                case FEATURED:
+                    product.setFeatured(row.getBoolean("featured"));
+                    break;
+                case IMAGE_URL:
+                    product.setImageUrl(row.getString("image_url"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        product.setRevision(getRevision(row));
+        return product;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package org.yearup.data.mysql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductStatsDao;
+import org.yearup.models.ProductStats;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+@Component
+public class MySqlProductStatsDao extends MySqlDaoBase implements ProductStatsDao
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MySqlProductStatsDao.class);
+
+    // rows per upsert: a flush is one statement unless it counted more products than this
+    static final int ROWS_PER_STATEMENT = 1000;
+
+    // whether the database takes the row alias of MySQL 8.0.19 and later; read from the first connection
+    private volatile Boolean rowAlias;
+
+    public MySqlProductStatsDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    @Override
+    public ProductStats getByProductId(int productId)
+    {
+        String sql = "SELECT views, cart_adds FROM product_stats WHERE product_id = ?";
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, productId);
+
+            ResultSet row = statement.executeQuery();
+
+            if (row.next())
+            {
+                return new ProductStats(productId, row.getLong("views"), row.getLong("cart_adds"));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return new ProductStats(productId, 0, 0);
+    }
+
+    // One multi-row upsert adding to the stored counts; a larger batch is split, in one transaction so a
+    // failed flush can be retried whole without counting anything twice
+    @Override
+    public void addAll(List<ProductStats> deltas)
+    {
+        if (deltas.isEmpty())
+        {
+            return;
+        }
+
+        Connection connection = null;
+        boolean autoCommit = true;
+        try
+        {
+            connection = getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            for (int start = 0; start < deltas.size(); start += ROWS_PER_STATEMENT)
+            {
+                List<ProductStats> chunk = deltas.subList(start, Math.min(deltas.size(), start + ROWS_PER_STATEMENT));
+                try (PreparedStatement statement = connection.prepareStatement(buildUpsertSql(chunk.size(), rowAlias(connection))))
+                {
+                    int index = 1;
+                    for (ProductStats delta : chunk)
+                    {
+                        statement.setInt(index++, delta.getProductId());
+                        statement.setLong(index++, delta.getViews());
+                        statement.setLong(index++, delta.getCartAdds());
+                    }
+                    statement.executeUpdate();
+                }
+            }
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            try
+            {
+                if (connection != null) connection.rollback();
+            }
+            catch (SQLException ex)
+            {
+                LOG.warn("Rollback failed", ex);
+            }
+            throw new RuntimeException("Error writing product stats.", e);
+        }
+        finally
+        {
+            release(connection, autoCommit);
+        }
+    }
+
+    // MySQL deprecates VALUES(col) in ON DUPLICATE KEY UPDATE in favour of a row alias, which H2's MySQL mode (the
+    // embedded database) does not parse, so the older form is only used where the alias is not understood
+    static String buildUpsertSql(int rows, boolean rowAlias)
+    {
+        StringBuilder sql = new StringBuilder("INSERT INTO product_stats (product_id, views, cart_adds) VALUES ");
+        for (int i = 0; i < rows; i++)
+        {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        if (rowAlias)
+        {
+            return sql.append(" AS new ON DUPLICATE KEY UPDATE views = views + new.views, cart_adds = cart_adds + new.cart_adds")
+                    .toString();
+        }
+        return sql.append(" ON DUPLICATE KEY UPDATE views = views + VALUES(views), cart_adds = cart_adds + VALUES(cart_adds)")
+                .toString();
+    }
+
+    private boolean rowAlias(Connection connection) throws SQLException
+    {
+        Boolean known = rowAlias;
+        if (known == null)
+        {
+            DatabaseMetaData database = connection.getMetaData();
+            known = "MySQL".equals(database.getDatabaseProductName())
+                    && isAtLeast(database.getDatabaseProductVersion(), 8, 0, 19);
+            rowAlias = known;
+        }
+        return known;
+    }
+
+    // compares a version such as "8.0.33" or "8.0.19-log" with major.minor.patch
+    static boolean isAtLeast(String version, int... wanted)
+    {
+        String[] parts = version.split("[^0-9]+");
+        for (int i = 0; i < wanted.length; i++)
+        {
+            int part = i < parts.length && !parts[i].isEmpty() ? Integer.parseInt(parts[i]) : 0;
+            if (part != wanted[i])
+            {
+                return part > wanted[i];
+            }
+        }
+        return true;
+    }
+}
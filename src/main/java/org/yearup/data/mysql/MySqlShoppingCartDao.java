@@ -1,8 +1,9 @@
 package org.yearup.data.mysql;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.yearup.data.ProductDao;
 import org.yearup.data.ShoppingCartDao;
 import org.yearup.models.Product;
 import org.yearup.models.ShoppingCart;
@@ -18,19 +19,21 @@ import java.time.format.DateTimeFormatter;
 
 @Component
 public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDao {
-    private ProductDao productDao;
+    private static final Logger LOG = LoggerFactory.getLogger(MySqlShoppingCartDao.class);
 
     @Autowired
-    public MySqlShoppingCartDao(DataSource dataSource, ProductDao productDao) {
+    public MySqlShoppingCartDao(DataSource dataSource) {
         super(dataSource);
-        this.productDao = productDao;
     }
 
     @Override
     public ShoppingCart getByUserId(int userId) {
         ShoppingCart cart = new ShoppingCart();
-        String sql = "SELECT sc.user_id, sc.product_id, sc.quantity " +
+        // Join the products in so the whole cart is read in one round trip
+        // instead of one product query per cart line
+        String sql = "SELECT sc.quantity, p.* " +
                 "FROM shopping_cart sc " +
+                "JOIN products p ON p.product_id = sc.product_id " +
                 "WHERE sc.user_id = ?";
 
         try (Connection connection = getConnection();
@@ -40,26 +43,10 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
 
             try (ResultSet row = statement.executeQuery()) {
                 while (row.next()) {
-                    int productId = row.getInt("product_id");
-                    int quantity = row.getInt("quantity");
-
-                    Product product = productDao.getById(productId);
-
-                    if (product != null) {
-                        ShoppingCartItem item = new ShoppingCartItem();
-                        item.setProduct(product);
-                        item.setQuantity(quantity);
-                        item.setLineTotal(product.getPrice().multiply(new java.math.BigDecimal(quantity)));
-
-                        cart.addProduct(item);
-                    } else {
-                        System.err.println("Product with ID " + productId + " in cart not found in products table. Skipping item.");
-                    }
+                    cart.addProduct(mapRowToShoppingCartItem(row));
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting shopping cart by user ID: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Error getting shopping cart by user ID.", e);
         }
         return cart;
@@ -112,11 +99,13 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
             try {
                 if (connection != null) connection.rollback(); // Access connection directly
             } catch (SQLException ex) {
-                System.err.println("Rollback failed: " + ex.getMessage());
+                LOG.warn("Rollback failed", ex);
             }
-            System.err.println("Error adding product to cart: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Error adding product to cart.", e);
+        } finally {
+            // Hand the connection back to the pool in its default state;
+            // without this every add leaked a pooled connection
+            release(connection, true);
         }
     }
 
@@ -137,8 +126,6 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
 
             statement.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error updating product quantity in cart: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Error updating product quantity in cart.", e);
         }
     }
@@ -155,8 +142,6 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
 
             statement.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error removing product from cart: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Error removing product from cart.", e);
         }
     }
@@ -172,27 +157,19 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
 
             statement.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error clearing shopping cart: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Error clearing shopping cart.", e);
         }
     }
 
+    // Expects a row from the shopping_cart / products join in getByUserId
     protected ShoppingCartItem mapRowToShoppingCartItem(ResultSet row) throws SQLException {
-        int productId = row.getInt("product_id");
+        Product product = MySqlProductDao.mapRow(row);
         int quantity = row.getInt("quantity");
 
-        Product product = productDao.getById(productId);
-
-        if (product == null) {
-            System.err.println("Warning: Product with ID " + productId + " not found for shopping cart item.");
-            return null;
-        }
-
         ShoppingCartItem item = new ShoppingCartItem();
         item.setProduct(product);
         item.setQuantity(quantity);
-        item.setLineTotal(product.getPrice().multiply(new java.math.BigDecimal(quantity)));
+        item.setLineTotal(product.getPrice().times(quantity));
 
         return item;
     }
@@ -1,5 +1,7 @@
 package org.yearup.data.mysql;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.yearup.data.UserDao;
@@ -14,6 +16,8 @@ import java.util.List;
 @Component
 public class MySqlUserDao extends MySqlDaoBase implements UserDao
 {
+    private static final Logger LOG = LoggerFactory.getLogger(MySqlUserDao.class);
+
     @Autowired
     public MySqlUserDao(DataSource dataSource)
     {
@@ -50,21 +54,18 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
                     return createdUser;
                 } else {
                     // This case indicates an issue with retrieving generated keys
-                    System.err.println("Warning: User created, but could not retrieve generated ID.");
+                    LOG.warn("User {} created, but could not retrieve generated ID", newUser.getUsername());
                     return null; // Or throw a more specific exception
                 }
             } else {
                 // This case indicates no rows were affected by the insert
-                System.err.println("Error: No rows affected when creating user.");
+                LOG.error("No rows affected when creating user {}", newUser.getUsername());
                 return null; // Or throw a more specific exception
             }
 
         }
         catch (SQLException e)
         {
-            // Log the actual SQL exception for detailed debugging
-            System.err.println("Error creating user in database: " + e.getMessage());
-            e.printStackTrace(); // Print full stack trace to console
             // Re-throw as a RuntimeException with the original cause for Spring to handle
             throw new RuntimeException("Database error during user creation.", e);
         }
@@ -141,9 +142,7 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
         }
         catch (SQLException e)
         {
-            // This is good, it prints the error to System.out.
-            System.out.println("Error retrieving user by username: " + e.getMessage());
-            e.printStackTrace(); // Added for more detailed logging
+            LOG.error("Error retrieving user by username", e);
         }
 
         return null;
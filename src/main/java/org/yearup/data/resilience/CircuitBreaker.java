@@ -0,0 +1,82 @@
+package org.yearup.data.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts consecutive bad database calls (failed, or slower than the slow-call threshold) and opens after
+ * {@code failureThreshold} of them. While open, {@link #tryAcquire()} refuses calls; once {@code openDuration}
+ * has passed, it lets exactly one call through as a probe (half-open). A good call closes the breaker again,
+ * a bad probe re-opens it for another {@code openDuration}.
+ */
+public class CircuitBreaker
+{
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openUntil;
+
+    public CircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration)
+    {
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public State getState()
+    {
+        return state.get();
+    }
+
+    public Duration getOpenDuration()
+    {
+        return Duration.ofNanos(openNanos);
+    }
+
+    /**
+     * Whether a call may go to the database now. While open, the first caller after the open period becomes
+     * the probe and gets {@code true}; everyone else gets {@code false} until the probe reports back.
+     */
+    public boolean tryAcquire()
+    {
+        State current = state.get();
+        if (current == State.CLOSED)
+        {
+            return true;
+        }
+        return current == State.OPEN
+                && System.nanoTime() - openUntil >= 0
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    public void record(long elapsedNanos, boolean failed)
+    {
+        if (failed || elapsedNanos > slowCallNanos)
+        {
+            onFailure();
+        }
+        else
+        {
+            consecutiveFailures.set(0);
+            state.set(State.CLOSED);
+        }
+    }
+
+    private void onFailure()
+    {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold)
+        {
+            openUntil = System.nanoTime() + openNanos;
+            state.set(State.OPEN);
+        }
+    }
+}
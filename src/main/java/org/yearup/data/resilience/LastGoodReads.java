@@ -0,0 +1,353 @@
+package org.yearup.data.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.yearup.exceptions.ServiceUnavailableException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last good result of the catalog's canonical reads and falls back to it when the database misbehaves.
+ * <p>
+ * Reads go to the database while the {@link CircuitBreaker} is closed. The results of {@link #read} are kept, up
+ * to {@code maxBytes} of them by {@link ResultSizes}' estimate, least recently used first out. {@link #readWithoutFallback}
+ * is for reads whose arguments a client chooses freely, such as filtered searches: kept per argument combination
+ * they would push the reads everyone shares out of memory, so they only get the breaker's fail-fast.
+ * A read that fails is answered from the kept result if there is one. Once the breaker opens, reads are not
+ * sent to the database at all: they are answered from memory, marked stale with a {@code Warning} header,
+ * and refreshed in the background by at most {@code refreshConcurrency} threads, one refresh per key at a time.
+ * A read with nothing kept fails with a 503 instead of waiting on the database.
+ * <p>
+ * One instance is shared by the product and category DAOs, since they share the database and its breaker.
+ */
+public class LastGoodReads
+{
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private static final Logger LOG = LoggerFactory.getLogger(LastGoodReads.class);
+
+    private final CircuitBreaker breaker;
+    private final long maxBytes;
+    // access-ordered, so the eldest entry is the least recently used; guarded by itself
+    private final LinkedHashMap<Object, Entry> lastGood = new LinkedHashMap<>(64, 0.75f, true);
+    private long keptBytes;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final Semaphore refreshPermits;
+    private final ExecutorService refresher;
+    private final Counter fresh;
+    private final Counter stale;
+    private final Counter unavailable;
+
+    public LastGoodReads(CircuitBreaker breaker, long maxBytes, int refreshConcurrency, MeterRegistry registry)
+    {
+        this.breaker = breaker;
+        this.maxBytes = maxBytes;
+        this.refreshPermits = new Semaphore(refreshConcurrency);
+        this.refresher = Executors.newFixedThreadPool(refreshConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fresh = reads(registry, "fresh");
+        this.stale = reads(registry, "stale");
+        this.unavailable = reads(registry, "unavailable");
+        Gauge.builder("easyshop.resilience.circuit", breaker, b -> b.getState().ordinal())
+                .description("Database circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        Gauge.builder("easyshop.resilience.kept.bytes", this, LastGoodReads::keptBytes)
+                .description("Estimated heap held by the last good results")
+                .register(registry);
+    }
+
+    /**
+     * @param key    identifies the read, arguments included; equal keys share one kept result
+     * @param loader runs the read against the database
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V read(Object key, Supplier<V> loader)
+    {
+        Entry kept;
+        if (breaker.tryAcquire())
+        {
+            try
+            {
+                V value = load(key, loader);
+                fresh.increment();
+                return value;
+            }
+            catch (RuntimeException e)
+            {
+                kept = kept(key);
+                if (kept == null)
+                {
+                    throw e;
+                }
+                LOG.warn("serving the last good result of {} after a database error", key, e);
+            }
+        }
+        else
+        {
+            kept = kept(key);
+            if (kept == null)
+            {
+                throw unavailable();
+            }
+            refreshInBackground(key, () -> load(key, loader));
+        }
+
+        stale.increment();
+        markStale();
+        return (V) kept.value;
+    }
+
+    /**
+     * {@link #read} for many keys in one database call, kept per key, so a multi-get shares its kept results with
+     * the single reads of the same keys. The fallback is only used when every key has a kept result.
+     *
+     * @param loader runs the read for the keys given and returns their results; a key it leaves out gets null
+     */
+    public <K, V> Map<K, V> readAll(List<K> keys, Function<List<K>, Map<K, V>> loader)
+    {
+        Map<K, V> kept;
+        if (breaker.tryAcquire())
+        {
+            try
+            {
+                Map<K, V> values = loadAll(keys, loader);
+                fresh.increment();
+                return values;
+            }
+            catch (RuntimeException e)
+            {
+                kept = keptAll(keys);
+                if (kept == null)
+                {
+                    throw e;
+                }
+                LOG.warn("serving the last good results of {} after a database error", keys, e);
+            }
+        }
+        else
+        {
+            kept = keptAll(keys);
+            if (kept == null)
+            {
+                throw unavailable();
+            }
+            List<K> refreshed = new ArrayList<>(keys);
+            refreshInBackground(refreshed, () -> loadAll(refreshed, loader));
+        }
+
+        stale.increment();
+        markStale();
+        return kept;
+    }
+
+    /**
+     * Runs the read against the database through the breaker without keeping its result: it fails fast with a 503
+     * while the breaker is open, and a failure is passed on.
+     */
+    public <V> V readWithoutFallback(Supplier<V> loader)
+    {
+        if (!breaker.tryAcquire())
+        {
+            throw unavailable();
+        }
+        V value = call(loader);
+        fresh.increment();
+        return value;
+    }
+
+    public void shutdown()
+    {
+        refresher.shutdownNow();
+    }
+
+    private <V> V load(Object key, Supplier<V> loader)
+    {
+        V value = call(loader);
+        keep(key, value);
+        return value;
+    }
+
+    private <K, V> Map<K, V> loadAll(List<K> keys, Function<List<K>, Map<K, V>> loader)
+    {
+        Map<K, V> values = call(() -> loader.apply(keys));
+        for (K key : keys)
+        {
+            keep(key, values.get(key));
+        }
+        return values;
+    }
+
+    private <V> V call(Supplier<V> loader)
+    {
+        long start = System.nanoTime();
+        V value;
+        try
+        {
+            value = loader.get();
+        }
+        catch (RuntimeException e)
+        {
+            breaker.record(System.nanoTime() - start, true);
+            throw e;
+        }
+        breaker.record(System.nanoTime() - start, false);
+        return value;
+    }
+
+    private Entry kept(Object key)
+    {
+        synchronized (lastGood)
+        {
+            return lastGood.get(key);
+        }
+    }
+
+    // null unless every key has a kept result
+    @SuppressWarnings("unchecked")
+    private <K, V> Map<K, V> keptAll(List<K> keys)
+    {
+        Map<K, V> values = new HashMap<>();
+        synchronized (lastGood)
+        {
+            for (K key : keys)
+            {
+                Entry entry = lastGood.get(key);
+                if (entry == null)
+                {
+                    return null;
+                }
+                values.put(key, (V) entry.value);
+            }
+        }
+        return values;
+    }
+
+    // replaces the key's entry, then drops least recently used entries until the total fits again
+    private void keep(Object key, Object value)
+    {
+        Entry entry = new Entry(value, ResultSizes.of(value));
+        synchronized (lastGood)
+        {
+            Entry replaced = entry.bytes <= maxBytes ? lastGood.put(key, entry) : lastGood.remove(key);
+            keptBytes += (entry.bytes <= maxBytes ? entry.bytes : 0) - (replaced != null ? replaced.bytes : 0);
+
+            Iterator<Entry> eldest = lastGood.values().iterator();
+            while (keptBytes > maxBytes && eldest.hasNext())
+            {
+                keptBytes -= eldest.next().bytes;
+                eldest.remove();
+            }
+        }
+    }
+
+    private long keptBytes()
+    {
+        synchronized (lastGood)
+        {
+            return keptBytes;
+        }
+    }
+
+    private ServiceUnavailableException unavailable()
+    {
+        unavailable.increment();
+        return new ServiceUnavailableException("The catalog is temporarily unavailable. Please try again shortly.",
+                Math.max(1, breaker.getOpenDuration().getSeconds()));
+    }
+
+    // key only stops the same read being refreshed twice at once
+    private void refreshInBackground(Object key, Runnable refresh)
+    {
+        if (!refreshing.add(key))
+        {
+            return;
+        }
+        if (!refreshPermits.tryAcquire())
+        {
+            refreshing.remove(key);
+            return;
+        }
+
+        try
+        {
+            refresher.execute(() -> {
+                try
+                {
+                    refresh.run();
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.debug("background refresh of {} failed", key, e);
+                }
+                finally
+                {
+                    refreshPermits.release();
+                    refreshing.remove(key);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            refreshPermits.release();
+            refreshing.remove(key);
+        }
+    }
+
+    // the controllers write the body after the DAO returns, so the header still makes it out
+    private static void markStale()
+    {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes)
+        {
+            HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+            if (response != null && !response.isCommitted())
+            {
+                response.setHeader("Warning", STALE_WARNING);
+            }
+        }
+    }
+
+    private static Counter reads(MeterRegistry registry, String result)
+    {
+        return Counter.builder("easyshop.resilience.reads")
+                .description("Catalog reads, by whether they were answered from the database, from the last good result, or not at all")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    // holds null results too: a product that did not exist is still reported missing while stale
+    private static final class Entry
+    {
+        private final Object value;
+        private final long bytes;
+
+        private Entry(Object value, long bytes)
+        {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.yearup.data.resilience;
+
+import org.yearup.data.CategoryDao;
+import org.yearup.models.Category;
+import org.yearup.models.CategoryWithProducts;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductOrder;
+import org.yearup.models.Revision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Category reads through {@link LastGoodReads}, so they keep being answered while the database is slow or down.
+ * Writes go straight to the wrapped DAO and fail as usual.
+ */
+public class ResilientCategoryDao implements CategoryDao
+{
+    private final CategoryDao delegate;
+    private final LastGoodReads reads;
+
+    public ResilientCategoryDao(CategoryDao delegate, LastGoodReads reads)
+    {
+        this.delegate = delegate;
+        this.reads = reads;
+    }
+
+    @Override
+    public List<Category> getAllCategories()
+    {
+        List<Object> key = Collections.singletonList("categories.getAllCategories");
+        return new ArrayList<>(reads.read(key, delegate::getAllCategories));
+    }
+
+    @Override
+    public List<CategoryWithProducts> getAllCategoriesWithProducts(int productsPerCategory, ProductOrder order, Set<ProductField> fields)
+    {
+        if (!fields.equals(ProductField.ALL))
+        {
+            return reads.readWithoutFallback(() -> delegate.getAllCategoriesWithProducts(productsPerCategory, order, fields));
+        }
+        List<Object> key = Arrays.asList("categories.getAllCategoriesWithProducts", productsPerCategory, order);
+        return new ArrayList<>(reads.read(key, () -> delegate.getAllCategoriesWithProducts(productsPerCategory, order, fields)));
+    }
+
+    @Override
+    public Category getById(int categoryId)
+    {
+        return reads.read(Arrays.asList("categories.getById", categoryId), () -> delegate.getById(categoryId));
+    }
+
+    @Override
+    public Revision getRevision(int categoryId)
+    {
+        return reads.read(Arrays.asList("categories.getRevision", categoryId), () -> delegate.getRevision(categoryId));
+    }
+
+    @Override
+    public Category create(Category category)
+    {
+        return delegate.create(category);
+    }
+
+    @Override
+    public void update(int categoryId, Category category)
+    {
+        delegate.update(categoryId, category);
+    }
+
+    @Override
+    public void delete(int categoryId)
+    {
+        delegate.delete(categoryId);
+    }
+}
@@ -0,0 +1,152 @@
+package org.yearup.data.resilience;
+
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductField;
+import org.yearup.models.ProductPatch;
+import org.yearup.models.Revision;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Product reads through {@link LastGoodReads}, so they keep being answered while the database is slow or down.
+ * Only the reads most clients share keep a fallback: single products, which multi-gets are assembled from, and the
+ * whole catalog or one category with every field. Filtered searches and projections fail fast while the breaker is open instead of each keeping a
+ * copy of most of the catalog. Writes go straight to the wrapped DAO and fail as usual.
+ */
+public class ResilientProductDao implements ProductDao
+{
+    private final ProductDao delegate;
+    private final LastGoodReads reads;
+
+    public ResilientProductDao(ProductDao delegate, LastGoodReads reads)
+    {
+        this.delegate = delegate;
+        this.reads = reads;
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color, Set<ProductField> fields)
+    {
+        if (minPrice != null || maxPrice != null || color != null || !fields.equals(ProductField.ALL))
+        {
+            return reads.readWithoutFallback(() -> delegate.search(categoryId, minPrice, maxPrice, color, fields));
+        }
+        List<Object> key = Arrays.asList("products.search", categoryId);
+        return new ArrayList<>(reads.read(key, () -> delegate.search(categoryId, null, null, null, fields)));
+    }
+
+    @Override
+    public List<Product> getProductsByCategoryId(int categoryId, Set<ProductField> fields)
+    {
+        if (!fields.equals(ProductField.ALL))
+        {
+            return reads.readWithoutFallback(() -> delegate.getProductsByCategoryId(categoryId, fields));
+        }
+        List<Object> key = Arrays.asList("products.getProductsByCategoryId", categoryId);
+        return new ArrayList<>(reads.read(key, () -> delegate.getProductsByCategoryId(categoryId, fields)));
+    }
+
+    @Override
+    public Product getById(int productId, Set<ProductField> fields)
+    {
+        if (!fields.equals(ProductField.ALL))
+        {
+            return reads.readWithoutFallback(() -> delegate.getById(productId, fields));
+        }
+        return reads.read(productKey(productId), () -> delegate.getById(productId, fields));
+    }
+
+    // kept per product, with getById's keys: every cart is a different id list, but they share their products
+    @Override
+    public List<Product> getByIds(Collection<Integer> productIds, Set<ProductField> fields)
+    {
+        if (!fields.equals(ProductField.ALL))
+        {
+            return reads.readWithoutFallback(() -> delegate.getByIds(productIds, fields));
+        }
+
+        List<List<Object>> keys = new ArrayList<>();
+        for (Integer productId : new LinkedHashSet<>(productIds))
+        {
+            keys.add(productKey(productId));
+        }
+        Map<List<Object>, Product> found = reads.readAll(keys, missing -> {
+            List<Integer> ids = new ArrayList<>();
+            missing.forEach(key -> ids.add((Integer) key.get(1)));
+            Map<List<Object>, Product> loaded = new HashMap<>();
+            for (Product product : delegate.getByIds(ids, fields))
+            {
+                loaded.put(productKey(product.getProductId()), product);
+            }
+            return loaded;
+        });
+
+        List<Product> products = new ArrayList<>(keys.size());
+        for (List<Object> key : keys)
+        {
+            Product product = found.get(key);
+            if (product != null)
+            {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public Revision getRevision(int productId)
+    {
+        return reads.read(Arrays.asList("products.getRevision", productId), () -> delegate.getRevision(productId));
+    }
+
+    private static List<Object> productKey(int productId)
+    {
+        return Arrays.asList("products.getById", productId);
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        return delegate.create(product);
+    }
+
+    @Override
+    public boolean update(int productId, Product product)
+    {
+        return delegate.update(productId, product);
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        delegate.delete(productId);
+    }
+
+    @Override
+    public List<Product> saveAll(List<Product> products, int batchSize)
+    {
+        return delegate.saveAll(products, batchSize);
+    }
+
+    @Override
+    public List<Product> adjust(ProductAdjustment adjustment)
+    {
+        return delegate.adjust(adjustment);
+    }
+
+    @Override
+    public Product patch(int productId, ProductPatch patch, Set<Integer> expectedVersions)
+    {
+        return delegate.patch(productId, patch, expectedVersions);
+    }
+}
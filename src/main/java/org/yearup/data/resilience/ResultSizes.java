@@ -0,0 +1,77 @@
+package org.yearup.data.resilience;
+
+import org.yearup.models.Category;
+import org.yearup.models.CategoryWithProducts;
+import org.yearup.models.Product;
+
+import java.util.Collection;
+
+/**
+ * Rough heap size of the catalog results {@link LastGoodReads} keeps, so its bound is in bytes rather than in
+ * entries: a list of every product and a single revision should not count the same. Object headers and
+ * references are estimated for a 64-bit JVM with compressed pointers; the strings dominate anyway.
+ */
+final class ResultSizes
+{
+    private static final long OBJECT = 16;
+    private static final long REFERENCE = 4;
+    private static final long REVISION = OBJECT + 8 + OBJECT + 12;
+    private static final long MONEY = OBJECT + 8;
+
+    private ResultSizes()
+    {
+    }
+
+    static long of(Object value)
+    {
+        if (value == null)
+        {
+            return 0;
+        }
+        if (value instanceof Product)
+        {
+            return product((Product) value);
+        }
+        if (value instanceof CategoryWithProducts)
+        {
+            return category((Category) value) + of(((CategoryWithProducts) value).getProducts());
+        }
+        if (value instanceof Category)
+        {
+            return category((Category) value);
+        }
+        if (value instanceof Collection)
+        {
+            long size = OBJECT + 16;
+            for (Object element : (Collection<?>) value)
+            {
+                size += REFERENCE + of(element);
+            }
+            return size;
+        }
+        if (value instanceof String)
+        {
+            return string((String) value);
+        }
+        // a Revision, a boxed id and so on
+        return REVISION;
+    }
+
+    private static long product(Product product)
+    {
+        return OBJECT + 8 * REFERENCE + MONEY + REVISION
+                + string(product.getName()) + string(product.getDescription())
+                + string(product.getColor()) + string(product.getImageUrl());
+    }
+
+    private static long category(Category category)
+    {
+        return OBJECT + 4 * REFERENCE + REVISION + string(category.getName()) + string(category.getDescription());
+    }
+
+    // compact strings: Latin-1 text takes a byte per character
+    private static long string(String value)
+    {
+        return value == null ? 0 : OBJECT + 8 + OBJECT + value.length();
+    }
+}
@@ -0,0 +1,164 @@
+package org.yearup.data.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.data.ProductStatsDao;
+import org.yearup.models.ProductStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product view and add-to-cart counts, counted in memory and written to {@code product_stats} in batches.
+ * <p>
+ * Each product has a {@link LongAdder} per count. An adder spreads concurrent increments over per-thread cells
+ * instead of making every request fight over one value, so counting costs a map lookup and an add. Every
+ * flush interval, whatever was counted since the last flush goes to the database as one statement. A flush
+ * that fails is retried in full by the next one. A crash loses at most what was counted since the last
+ * successful flush, and {@link #shutdown} flushes one last time.
+ * <p>
+ * The adders are never reset, because a reset can wipe out an increment that lands during it. Instead the
+ * flusher remembers how much of each adder it has already written.
+ */
+public class ProductCounters
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProductCounters.class);
+
+    private final ProductStatsDao productStatsDao;
+    private final Map<Integer, Counts> counts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    // held for writing while a flush writes and marks its counts written, so a read never sees them twice or not at all
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    public ProductCounters(ProductStatsDao productStatsDao, Duration flushInterval)
+    {
+        this.productStatsDao = productStatsDao;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-stats-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(() -> {
+            // a flush that throws would cancel the schedule
+            try
+            {
+                flush();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("writing product stats failed; the counts are kept for the next flush", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordView(int productId)
+    {
+        counts(productId).views.increment();
+    }
+
+    public void recordCartAdd(int productId)
+    {
+        counts(productId).cartAdds.increment();
+    }
+
+    // the stored counts plus what has been counted since the last flush
+    public ProductStats get(int productId)
+    {
+        flushLock.readLock().lock();
+        try
+        {
+            ProductStats stored = productStatsDao.getByProductId(productId);
+            Counts pending = counts.get(productId);
+            if (pending == null)
+            {
+                return stored;
+            }
+            return new ProductStats(productId,
+                    stored.getViews() + pending.views.sum() - pending.writtenViews,
+                    stored.getCartAdds() + pending.cartAdds.sum() - pending.writtenCartAdds);
+        }
+        finally
+        {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    public void flush()
+    {
+        flushLock.writeLock().lock();
+        try
+        {
+            List<ProductStats> deltas = new ArrayList<>();
+            List<Counts> flushed = new ArrayList<>();
+            for (Map.Entry<Integer, Counts> entry : counts.entrySet())
+            {
+                Counts count = entry.getValue();
+                long views = count.views.sum() - count.writtenViews;
+                long cartAdds = count.cartAdds.sum() - count.writtenCartAdds;
+                if (views != 0 || cartAdds != 0)
+                {
+                    deltas.add(new ProductStats(entry.getKey(), views, cartAdds));
+                    flushed.add(count);
+                }
+            }
+            if (deltas.isEmpty())
+            {
+                return;
+            }
+
+            productStatsDao.addAll(deltas);
+
+            for (int i = 0; i < deltas.size(); i++)
+            {
+                flushed.get(i).writtenViews += deltas.get(i).getViews();
+                flushed.get(i).writtenCartAdds += deltas.get(i).getCartAdds();
+            }
+        }
+        finally
+        {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    public void shutdown()
+    {
+        // lets a flush already running finish, then writes whatever came after it
+        flusher.shutdown();
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("writing product stats on shutdown failed; the counts since the last flush are lost", e);
+        }
+    }
+
+    private Counts counts(int productId)
+    {
+        // get first: computeIfAbsent locks its bin even when the key is already there
+        Counts count = counts.get(productId);
+        return count != null ? count : counts.computeIfAbsent(productId, id -> new Counts());
+    }
+
+    private static final class Counts
+    {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder cartAdds = new LongAdder();
+        // how much of each adder the database already has; guarded by flushLock
+        private long writtenViews;
+        private long writtenCartAdds;
+    }
+}
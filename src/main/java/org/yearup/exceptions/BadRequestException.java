@@ -0,0 +1,12 @@
+package org.yearup.exceptions;
+
+/**
+ * The request is malformed or asks for something that is not allowed (HTTP 400).
+ */
+public class BadRequestException extends EasyShopException
+{
+    public BadRequestException(String message)
+    {
+        super(message);
+    }
+}
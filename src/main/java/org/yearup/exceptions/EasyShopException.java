@@ -0,0 +1,17 @@
+package org.yearup.exceptions;
+
+/**
+ * Base class for the expected ways a request can fail: the client asked for something that does not exist,
+ * sent invalid input, and so on. These are ordinary outcomes rather than bugs, so instances carry no stack
+ * trace and no cause: creating one costs about as much as any other small object, which matters when a
+ * client or a bot hammers a missing id.
+ * <p>
+ * {@link org.yearup.controllers.ApiExceptionHandler} turns each subclass into its HTTP status.
+ */
+public abstract class EasyShopException extends RuntimeException
+{
+    protected EasyShopException(String message)
+    {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,12 @@
+package org.yearup.exceptions;
+
+/**
+ * The requested resource does not exist (HTTP 404).
+ */
+public class NotFoundException extends EasyShopException
+{
+    public NotFoundException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package org.yearup.exceptions;
+
+/**
+ * The client made the request conditional on a version of the resource that is no longer current (HTTP 412).
+ */
+public class PreconditionFailedException extends EasyShopException
+{
+    public PreconditionFailedException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package org.yearup.exceptions;
+
+/**
+ * A dependency the request needs is down and there is no fallback to serve instead (HTTP 503).
+ */
+public class ServiceUnavailableException extends EasyShopException
+{
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds)
+    {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds()
+    {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,51 @@
+package org.yearup.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's AsyncAppender with {@code neverBlock} drops events when its queue is full but keeps no record
+ * of it. This one counts them, so the application can publish the count as a metric: a request thread never
+ * waits on the console, and we still know when we lost log lines.
+ * <p>
+ * Configure it with {@code neverBlock=true} and {@code discardingThreshold=0}, so that a full queue is the
+ * only reason an event is dropped.
+ */
+public class CountingAsyncAppender extends AsyncAppender
+{
+    private static final LongAdder DROPPED = new LongAdder();
+
+    /**
+     * Events dropped by every CountingAsyncAppender in this JVM.
+     */
+    public static LongAdder droppedEvents()
+    {
+        return DROPPED;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event)
+    {
+        // a racing producer can still fill the last slot after this check; the queue then drops the event
+        // uncounted, which only makes the count a slight undercount under extreme pressure
+        if (isNeverBlock() && getRemainingCapacity() == 0)
+        {
+            DROPPED.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    @Override
+    public void stop()
+    {
+        long dropped = DROPPED.sum();
+        if (dropped > 0)
+        {
+            addWarn("Dropped " + dropped + " log events because the async queue was full");
+        }
+        super.stop();
+    }
+}
@@ -0,0 +1,20 @@
+package org.yearup.logging;
+
+/**
+ * MDC keys added to every log line written while a request is handled (see logback-spring.xml).
+ */
+public final class LogFields
+{
+    /** HTTP method and path of the request, e.g. {@code GET /cart}. */
+    public static final String ENDPOINT = "endpoint";
+
+    /** Login name of the authenticated user; the JWT subject. */
+    public static final String USER_ID = "userId";
+
+    /** The DAO call running the current SQL, e.g. {@code MySqlProductDao.search}. */
+    public static final String SQL = "sql";
+
+    private LogFields()
+    {
+    }
+}
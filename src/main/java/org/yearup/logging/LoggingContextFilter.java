@@ -0,0 +1,34 @@
+package org.yearup.logging;
+
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Puts the request's endpoint into the MDC for the duration of the request, and clears every
+ * {@link LogFields} key afterwards so nothing leaks to the next request served by the same thread.
+ */
+public class LoggingContextFilter extends OncePerRequestFilter
+{
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        MDC.put(LogFields.ENDPOINT, request.getMethod() + " " + request.getRequestURI());
+        try
+        {
+            filterChain.doFilter(request, response);
+        }
+        finally
+        {
+            MDC.remove(LogFields.ENDPOINT);
+            MDC.remove(LogFields.USER_ID);
+            MDC.remove(LogFields.SQL);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.yearup.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Category
 {
     private int categoryId;
     private String name;
     private String description;
+    private Revision revision;
 
     public Category()
     {
@@ -46,4 +49,17 @@ public class Category
     {
         this.description = description;
     }
+
+    // sent as the ETag and Last-Modified headers rather than in the body
+    @JsonIgnore
+    public Revision getRevision()
+    {
+        return revision;
+    }
+
+    @JsonIgnore
+    public void setRevision(Revision revision)
+    {
+        this.revision = revision;
+    }
 }
@@ -0,0 +1,50 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A category with the first few of its products, for pages that show every category at once.
+ * <p>
+ * The products may have been read with only some {@link ProductField}s; those are the ones written out.
+ */
+public class CategoryWithProducts extends Category
+{
+    private List<Product> products = new ArrayList<>();
+    private Set<ProductField> fields = ProductField.ALL;
+
+    @JsonIgnore
+    public List<Product> getProducts()
+    {
+        return products;
+    }
+
+    @JsonIgnore
+    public void setProducts(List<Product> products)
+    {
+        this.products = products;
+    }
+
+    @JsonIgnore
+    public Set<ProductField> getFields()
+    {
+        return fields;
+    }
+
+    @JsonIgnore
+    public void setFields(Set<ProductField> fields)
+    {
+        this.fields = fields;
+    }
+
+    // what goes out as "products": whole products, or only the fields they were read with
+    @JsonProperty("products")
+    public Object getProductsJson()
+    {
+        return fields.size() == ProductField.ALL.size() ? products : ProductView.of(products, fields);
+    }
+}
@@ -0,0 +1,215 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * An immutable amount of money stored as a whole number of cents.
+ * <p>
+ * All prices in the database are DECIMAL(10, 2), so two decimal places are always enough. Keeping the
+ * amount in a {@code long} lets cart and order math run without allocating a {@link BigDecimal} for every
+ * multiplication and addition. Arithmetic is overflow-checked and throws {@link ArithmeticException}
+ * rather than silently wrapping.
+ * <p>
+ * In JSON a Money is written as a plain number with two decimals (e.g. {@code 499.99}), the same shape
+ * the API produced when prices were BigDecimal.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>
+{
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long CENTS_PER_UNIT = 100;
+
+    private final long cents;
+
+    private Money(long cents)
+    {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents)
+    {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money of(BigDecimal amount)
+    {
+        if (amount == null) return null;
+        // throws ArithmeticException if the amount has fractions of a cent or does not fit in a long
+        return ofCents(amount.setScale(SCALE).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a plain decimal string such as {@code "499.99"}, {@code "-5"} or {@code "0.5"} without going
+     * through BigDecimal. This is what the DAOs use to read DECIMAL columns straight from the result set.
+     */
+    public static Money parse(CharSequence text)
+    {
+        if (text == null) return null;
+
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+'))
+        {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int integerDigits = 0;
+        for (; i < length && text.charAt(i) != '.'; i++)
+        {
+            units = Math.addExact(Math.multiplyExact(units, 10), digit(text, i));
+            integerDigits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < length)
+        {
+            // skip the decimal point
+            for (i++; i < length; i++)
+            {
+                int digit = digit(text, i);
+                if (fractionDigits < SCALE)
+                {
+                    fraction = fraction * 10 + digit;
+                    fractionDigits++;
+                }
+                else if (digit != 0)
+                {
+                    throw new IllegalArgumentException("Amount has fractions of a cent: " + text);
+                }
+            }
+        }
+
+        if (integerDigits == 0 && fractionDigits == 0)
+        {
+            throw new IllegalArgumentException("Not a valid amount: '" + text + "'");
+        }
+
+        for (; fractionDigits < SCALE; fractionDigits++)
+        {
+            fraction *= 10;
+        }
+
+        long cents = Math.addExact(Math.multiplyExact(units, CENTS_PER_UNIT), fraction);
+        return ofCents(negative ? -cents : cents);
+    }
+
+    private static int digit(CharSequence text, int index)
+    {
+        char c = text.charAt(index);
+        if (c < '0' || c > '9')
+        {
+            throw new IllegalArgumentException("Not a valid amount: '" + text + "'");
+        }
+        return c - '0';
+    }
+
+    public long getCents()
+    {
+        return cents;
+    }
+
+    public Money plus(Money other)
+    {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other)
+    {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(int quantity)
+    {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public boolean isNegative()
+    {
+        return cents < 0;
+    }
+
+    public BigDecimal toBigDecimal()
+    {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other)
+    {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        return cents == ((Money) o).cents;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Plain decimal representation with exactly two fraction digits, e.g. {@code "1499.99"} or {@code "-0.05"}.
+     */
+    @Override
+    public String toString()
+    {
+        long abs = Math.abs(cents);
+        long units = abs / CENTS_PER_UNIT;
+        int fraction = (int) (abs % CENTS_PER_UNIT);
+
+        StringBuilder builder = new StringBuilder(24);
+        if (cents < 0) builder.append('-');
+        builder.append(units).append('.');
+        if (fraction < 10) builder.append('0');
+        builder.append(fraction);
+        return builder.toString();
+    }
+
+    static class Serializer extends JsonSerializer<Money>
+    {
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider serializers) throws IOException
+        {
+            generator.writeNumber(value.toString());
+        }
+    }
+
+    static class Deserializer extends JsonDeserializer<Money>
+    {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException
+        {
+            try
+            {
+                return parse(parser.getText().trim());
+            }
+            catch (IllegalArgumentException | ArithmeticException e)
+            {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), e.getMessage());
+            }
+        }
+    }
+}
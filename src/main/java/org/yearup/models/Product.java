@@ -1,24 +1,25 @@
 package org.yearup.models;
 
-import java.math.BigDecimal;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class Product
 {
     private int productId;
     private String name;
-    private BigDecimal price;
+    private Money price;
     private int categoryId;
     private String description;
     private String color;
     private int stock;
     private boolean isFeatured;
     private String imageUrl;
+    private Revision revision;
 
     public Product()
     {
     }
 
-    public Product(int productId, String name, BigDecimal price, int categoryId, String description, String color, int stock, boolean isFeatured, String imageUrl)
+    public Product(int productId, String name, Money price, int categoryId, String description, String color, int stock, boolean isFeatured, String imageUrl)
     {
         this.productId = productId;
         this.name = name;
@@ -51,12 +52,12 @@ public class Product
         this.name = name;
     }
 
-    public BigDecimal getPrice()
+    public Money getPrice()
     {
         return price;
     }
 
-    public void setPrice(BigDecimal price)
+    public void setPrice(Money price)
     {
         this.price = price;
     }
@@ -120,4 +121,17 @@ public class Product
     {
         this.imageUrl = imageUrl;
     }
+
+    // sent as the ETag and Last-Modified headers rather than in the body
+    @JsonIgnore
+    public Revision getRevision()
+    {
+        return revision;
+    }
+
+    @JsonIgnore
+    public void setRevision(Revision revision)
+    {
+        this.revision = revision;
+    }
 }
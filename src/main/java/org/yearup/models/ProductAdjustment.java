@@ -0,0 +1,129 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bulk change to product prices and stock, in one of two forms.
+ * <p>
+ * A change applied to every product the filters match (categoryId, color and productIds, all of them that are
+ * given): prices moved by pricePercent or by priceChange, stock moved by stockChange. Neither can go below zero.
+ * <p>
+ * Or new values for listed products: prices and stock, each keyed by product id.
+ */
+public class ProductAdjustment
+{
+    private Integer categoryId;
+    private String color;
+    private List<Integer> productIds;
+
+    private BigDecimal pricePercent;
+    private Money priceChange;
+    private Integer stockChange;
+
+    private Map<Integer, Money> prices;
+    private Map<Integer, Integer> stock;
+
+    public Integer getCategoryId()
+    {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId)
+    {
+        this.categoryId = categoryId;
+    }
+
+    public String getColor()
+    {
+        return color;
+    }
+
+    public void setColor(String color)
+    {
+        this.color = color;
+    }
+
+    public List<Integer> getProductIds()
+    {
+        return productIds;
+    }
+
+    public void setProductIds(List<Integer> productIds)
+    {
+        this.productIds = productIds;
+    }
+
+    public BigDecimal getPricePercent()
+    {
+        return pricePercent;
+    }
+
+    public void setPricePercent(BigDecimal pricePercent)
+    {
+        this.pricePercent = pricePercent;
+    }
+
+    public Money getPriceChange()
+    {
+        return priceChange;
+    }
+
+    public void setPriceChange(Money priceChange)
+    {
+        this.priceChange = priceChange;
+    }
+
+    public Integer getStockChange()
+    {
+        return stockChange;
+    }
+
+    public void setStockChange(Integer stockChange)
+    {
+        this.stockChange = stockChange;
+    }
+
+    public Map<Integer, Money> getPrices()
+    {
+        return prices;
+    }
+
+    public void setPrices(Map<Integer, Money> prices)
+    {
+        this.prices = prices;
+    }
+
+    public Map<Integer, Integer> getStock()
+    {
+        return stock;
+    }
+
+    public void setStock(Map<Integer, Integer> stock)
+    {
+        this.stock = stock;
+    }
+
+    // the first form: a change to every product the filters match
+    @JsonIgnore
+    public boolean isFiltered()
+    {
+        return categoryId != null || (color != null && !color.isEmpty()) || (productIds != null && !productIds.isEmpty());
+    }
+
+    @JsonIgnore
+    public boolean hasChange()
+    {
+        return pricePercent != null || priceChange != null || stockChange != null;
+    }
+
+    // the second form: new values per product
+    @JsonIgnore
+    public boolean hasValues()
+    {
+        return (prices != null && !prices.isEmpty()) || (stock != null && !stock.isEmpty());
+    }
+}
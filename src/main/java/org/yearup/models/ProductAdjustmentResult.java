@@ -0,0 +1,28 @@
+package org.yearup.models;
+
+import java.util.List;
+
+/**
+ * What a bulk price and stock change did: how many products it changed, and which listed ids had no product.
+ */
+public class ProductAdjustmentResult
+{
+    private final int updated;
+    private final List<Integer> notFound;
+
+    public ProductAdjustmentResult(int updated, List<Integer> notFound)
+    {
+        this.updated = updated;
+        this.notFound = notFound;
+    }
+
+    public int getUpdated()
+    {
+        return updated;
+    }
+
+    public List<Integer> getNotFound()
+    {
+        return notFound;
+    }
+}
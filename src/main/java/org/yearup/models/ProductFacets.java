@@ -0,0 +1,112 @@
+package org.yearup.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sidebar counts for a product listing. {@code total} is the number of products matching every filter; each
+ * facet counts the products matching every filter except its own, so it also shows how many products the
+ * other choices of that facet would give.
+ */
+public class ProductFacets
+{
+    private int total;
+    // category id -> count
+    private Map<Integer, Integer> categories = new LinkedHashMap<>();
+    // colour -> count, most common first
+    private Map<String, Integer> colors = new LinkedHashMap<>();
+    private List<PriceBucket> prices = new ArrayList<>();
+
+    public int getTotal()
+    {
+        return total;
+    }
+
+    public void setTotal(int total)
+    {
+        this.total = total;
+    }
+
+    public Map<Integer, Integer> getCategories()
+    {
+        return categories;
+    }
+
+    public void setCategories(Map<Integer, Integer> categories)
+    {
+        this.categories = categories;
+    }
+
+    public Map<String, Integer> getColors()
+    {
+        return colors;
+    }
+
+    public void setColors(Map<String, Integer> colors)
+    {
+        this.colors = colors;
+    }
+
+    public List<PriceBucket> getPrices()
+    {
+        return prices;
+    }
+
+    public void setPrices(List<PriceBucket> prices)
+    {
+        this.prices = prices;
+    }
+
+    /**
+     * Products priced from {@code min} (inclusive) up to {@code max} (exclusive); the last bucket has no max.
+     */
+    public static class PriceBucket
+    {
+        private Money min;
+        private Money max;
+        private int count;
+
+        public PriceBucket()
+        {
+        }
+
+        public PriceBucket(Money min, Money max, int count)
+        {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public Money getMin()
+        {
+            return min;
+        }
+
+        public void setMin(Money min)
+        {
+            this.min = min;
+        }
+
+        public Money getMax()
+        {
+            return max;
+        }
+
+        public void setMax(Money max)
+        {
+            this.max = max;
+        }
+
+        public int getCount()
+        {
+            return count;
+        }
+
+        public void setCount(int count)
+        {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.yearup.models;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The properties of a {@link Product} a client can ask for with {@code ?fields=}, by their JSON names.
+ */
+public enum ProductField
+{
+    PRODUCT_ID("productId", Product::getProductId),
+    NAME("name", Product::getName),
+    PRICE("price", Product::getPrice),
+    CATEGORY_ID("categoryId", Product::getCategoryId),
+    DESCRIPTION("description", Product::getDescription),
+    COLOR("color", Product::getColor),
+    STOCK("stock", Product::getStock),
+    FEATURED("featured", Product::isFeatured),
+    IMAGE_URL("imageUrl", Product::getImageUrl);
+
+    public static final Set<ProductField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ProductField.class));
+
+    private final String jsonName;
+    private final Function<Product, Object> getter;
+
+    ProductField(String jsonName, Function<Product, Object> getter)
+    {
+        this.jsonName = jsonName;
+        this.getter = getter;
+    }
+
+    public String getJsonName()
+    {
+        return jsonName;
+    }
+
+    public Object get(Product product)
+    {
+        return getter.apply(product);
+    }
+
+    // null for a name that is not a product property
+    public static ProductField fromJsonName(String jsonName)
+    {
+        for (ProductField field : values())
+        {
+            if (field.jsonName.equals(jsonName))
+            {
+                return field;
+            }
+        }
+        return null;
+    }
+}
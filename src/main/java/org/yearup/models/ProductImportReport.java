@@ -0,0 +1,86 @@
+package org.yearup.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * What a bulk product import did: how many rows created or updated a product, and which rows were skipped and why.
+ */
+public class ProductImportReport
+{
+    // skipped rows past this many are counted but not listed; the ones listed are those on the lowest lines, in
+    // line order, however late the database refused them
+    public static final int MAX_ERRORS = 1000;
+
+    private int created;
+    private int updated;
+    private int rejected;
+    // the highest line at the head, to make way for a lower one
+    private final PriorityQueue<RowError> errors = new PriorityQueue<>(Comparator.comparingInt(RowError::getLine).reversed());
+
+    public void addCreated()
+    {
+        created++;
+    }
+
+    public void addUpdated()
+    {
+        updated++;
+    }
+
+    public void addError(int line, String message)
+    {
+        rejected++;
+        errors.add(new RowError(line, message));
+        if (errors.size() > MAX_ERRORS)
+        {
+            errors.poll();
+        }
+    }
+
+    public int getCreated()
+    {
+        return created;
+    }
+
+    public int getUpdated()
+    {
+        return updated;
+    }
+
+    public int getRejected()
+    {
+        return rejected;
+    }
+
+    public List<RowError> getErrors()
+    {
+        List<RowError> listed = new ArrayList<>(errors);
+        listed.sort(Comparator.comparingInt(RowError::getLine));
+        return listed;
+    }
+
+    public static class RowError
+    {
+        private final int line;
+        private final String message;
+
+        public RowError(int line, String message)
+        {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine()
+        {
+            return line;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+    }
+}
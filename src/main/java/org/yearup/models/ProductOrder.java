@@ -0,0 +1,38 @@
+package org.yearup.models;
+
+/**
+ * The orders a client can ask for products in, by the names used in query parameters.
+ */
+public enum ProductOrder
+{
+    // featured products first, then by name
+    FEATURED("featured"),
+    NAME("name"),
+    // cheapest first
+    PRICE("price");
+
+    private final String parameterName;
+
+    ProductOrder(String parameterName)
+    {
+        this.parameterName = parameterName;
+    }
+
+    public String getParameterName()
+    {
+        return parameterName;
+    }
+
+    // null for a name that is not an order
+    public static ProductOrder fromParameterName(String parameterName)
+    {
+        for (ProductOrder order : values())
+        {
+            if (order.parameterName.equals(parameterName))
+            {
+                return order;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,136 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The body of a partial product update: only the properties sent, with {@link #getFields()} saying which ones those
+ * were. Jackson calls a setter only for a property that is in the JSON, an explicit null included, so a field left
+ * out keeps its stored value and one sent as null is cleared. Properties that cannot be patched, productId among
+ * them, are collected in {@link #getUnknown()} so the caller can reject them instead of dropping them silently.
+ */
+public class ProductPatch
+{
+    private final Set<ProductField> fields = EnumSet.noneOf(ProductField.class);
+    private final Set<String> unknown = new TreeSet<>();
+
+    private String name;
+    private Money price;
+    private Integer categoryId;
+    private String description;
+    private String color;
+    private Integer stock;
+    private Boolean featured;
+    private String imageUrl;
+
+    @JsonIgnore
+    public Set<ProductField> getFields()
+    {
+        return Collections.unmodifiableSet(fields);
+    }
+
+    @JsonIgnore
+    public Set<String> getUnknown()
+    {
+        return Collections.unmodifiableSet(unknown);
+    }
+
+    @JsonAnySetter
+    public void setUnknown(String name, Object value)
+    {
+        unknown.add(name);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+        fields.add(ProductField.NAME);
+    }
+
+    public Money getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(Money price)
+    {
+        this.price = price;
+        fields.add(ProductField.PRICE);
+    }
+
+    public Integer getCategoryId()
+    {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId)
+    {
+        this.categoryId = categoryId;
+        fields.add(ProductField.CATEGORY_ID);
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public void setDescription(String description)
+    {
+        this.description = description;
+        fields.add(ProductField.DESCRIPTION);
+    }
+
+    public String getColor()
+    {
+        return color;
+    }
+
+    public void setColor(String color)
+    {
+        this.color = color;
+        fields.add(ProductField.COLOR);
+    }
+
+    public Integer getStock()
+    {
+        return stock;
+    }
+
+    public void setStock(Integer stock)
+    {
+        this.stock = stock;
+        fields.add(ProductField.STOCK);
+    }
+
+    public Boolean getFeatured()
+    {
+        return featured;
+    }
+
+    public void setFeatured(Boolean featured)
+    {
+        this.featured = featured;
+        fields.add(ProductField.FEATURED);
+    }
+
+    public String getImageUrl()
+    {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl)
+    {
+        this.imageUrl = imageUrl;
+        fields.add(ProductField.IMAGE_URL);
+    }
+}
@@ -0,0 +1,139 @@
+package org.yearup.models;
+
+import java.util.function.IntPredicate;
+
+/**
+ * What a product must be to fit the products table, shared by every way a product is written: a full product on
+ * POST, PUT or import, the properties sent in a PATCH, and the prices and stock of a bulk adjust. Each check returns why the
+ * value cannot be saved, or null if it can, so callers decide how to report it.
+ */
+public final class ProductRules
+{
+    // the products table's column sizes
+    public static final int MAX_NAME_LENGTH = 100;
+    public static final int MAX_COLOR_LENGTH = 20;
+    public static final int MAX_IMAGE_URL_LENGTH = 200;
+    // the largest DECIMAL(10, 2)
+    public static final Money MAX_PRICE = Money.parse("99999999.99");
+
+    private ProductRules()
+    {
+    }
+
+    public static String check(Product product, IntPredicate categoryExists)
+    {
+        if (product.getProductId() < 0)
+        {
+            return "productId cannot be negative.";
+        }
+        String error = checkName(product.getName());
+        if (error == null) error = checkPrice("price", product.getPrice());
+        if (error == null) error = checkCategory(product.getCategoryId(), categoryExists);
+        if (error == null) error = checkStock("stock", product.getStock());
+        if (error == null) error = checkColor(product.getColor());
+        if (error == null) error = checkImageUrl(product.getImageUrl());
+        return error;
+    }
+
+    // the same rules, applied only to the properties sent
+    public static String check(ProductPatch patch, IntPredicate categoryExists)
+    {
+        String error = null;
+        for (ProductField field : patch.getFields())
+        {
+            switch (field)
+            {
+                case NAME:
+                    error = checkName(patch.getName());
+                    break;
+                case PRICE:
+                    error = checkPrice("price", patch.getPrice());
+                    break;
+                case CATEGORY_ID:
+                    error = patch.getCategoryId() == null ? "categoryId is required." : checkCategory(patch.getCategoryId(), categoryExists);
+                    break;
+                case STOCK:
+                    error = checkStock("stock", patch.getStock());
+                    break;
+                case COLOR:
+                    error = checkColor(patch.getColor());
+                    break;
+                case IMAGE_URL:
+                    error = checkImageUrl(patch.getImageUrl());
+                    break;
+                case FEATURED:
+                    error = patch.getFeatured() == null ? "featured is required." : null;
+                    break;
+                default:
+                    break;
+            }
+            if (error != null)
+            {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    public static String checkName(String name)
+    {
+        if (name == null || name.trim().isEmpty())
+        {
+            return "name is required.";
+        }
+        if (name.length() > MAX_NAME_LENGTH)
+        {
+            return "name is longer than " + MAX_NAME_LENGTH + " characters.";
+        }
+        return null;
+    }
+
+    public static String checkPrice(String what, Money price)
+    {
+        if (price == null)
+        {
+            return what + " is required.";
+        }
+        if (price.isNegative() || price.compareTo(MAX_PRICE) > 0)
+        {
+            return what + " must be between 0 and " + MAX_PRICE + ".";
+        }
+        return null;
+    }
+
+    public static String checkStock(String what, Integer stock)
+    {
+        if (stock == null)
+        {
+            return what + " is required.";
+        }
+        if (stock < 0)
+        {
+            return what + " cannot be negative.";
+        }
+        return null;
+    }
+
+    public static String checkCategory(int categoryId, IntPredicate categoryExists)
+    {
+        return categoryExists.test(categoryId) ? null : "No category with ID " + categoryId + ".";
+    }
+
+    public static String checkColor(String color)
+    {
+        if (color != null && color.length() > MAX_COLOR_LENGTH)
+        {
+            return "color is longer than " + MAX_COLOR_LENGTH + " characters.";
+        }
+        return null;
+    }
+
+    public static String checkImageUrl(String imageUrl)
+    {
+        if (imageUrl != null && imageUrl.length() > MAX_IMAGE_URL_LENGTH)
+        {
+            return "imageUrl is longer than " + MAX_IMAGE_URL_LENGTH + " characters.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package org.yearup.models;
+
+/**
+ * How often a product has been viewed and added to a cart.
+ */
+public class ProductStats
+{
+    private final int productId;
+    private final long views;
+    private final long cartAdds;
+
+    public ProductStats(int productId, long views, long cartAdds)
+    {
+        this.productId = productId;
+        this.views = views;
+        this.cartAdds = cartAdds;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public long getViews()
+    {
+        return views;
+    }
+
+    public long getCartAdds()
+    {
+        return cartAdds;
+    }
+}
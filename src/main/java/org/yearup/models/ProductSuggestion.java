@@ -0,0 +1,26 @@
+package org.yearup.models;
+
+/**
+ * One typeahead entry: just enough for the search box to show a name and link to the product.
+ */
+public class ProductSuggestion
+{
+    private final int productId;
+    private final String name;
+
+    public ProductSuggestion(int productId, String name)
+    {
+        this.productId = productId;
+        this.name = name;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+}
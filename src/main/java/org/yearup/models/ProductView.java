@@ -0,0 +1,72 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One product or a list of them, written to JSON with only the chosen {@link ProductField}s. The properties
+ * keep the names and formats of a full {@link Product}; the ones not chosen are left out rather than written
+ * as null or zero.
+ */
+@JsonSerialize(using = ProductView.Serializer.class)
+public final class ProductView
+{
+    private final List<Product> products;
+    private final boolean single;
+    private final Set<ProductField> fields;
+
+    private ProductView(List<Product> products, boolean single, Set<ProductField> fields)
+    {
+        this.products = products;
+        this.single = single;
+        this.fields = fields;
+    }
+
+    public static ProductView of(Product product, Set<ProductField> fields)
+    {
+        return new ProductView(Collections.singletonList(product), true, fields);
+    }
+
+    public static ProductView of(List<Product> products, Set<ProductField> fields)
+    {
+        return new ProductView(products, false, fields);
+    }
+
+    static class Serializer extends JsonSerializer<ProductView>
+    {
+        @Override
+        public void serialize(ProductView view, JsonGenerator generator, SerializerProvider provider) throws IOException
+        {
+            if (view.single)
+            {
+                write(view.products.get(0), view.fields, generator, provider);
+                return;
+            }
+
+            generator.writeStartArray();
+            for (Product product : view.products)
+            {
+                write(product, view.fields, generator, provider);
+            }
+            generator.writeEndArray();
+        }
+
+        private static void write(Product product, Set<ProductField> fields, JsonGenerator generator,
+                                  SerializerProvider provider) throws IOException
+        {
+            generator.writeStartObject();
+            for (ProductField field : fields)
+            {
+                provider.defaultSerializeField(field.getJsonName(), field.get(product), generator);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.yearup.models;
+
+import java.time.Instant;
+
+/**
+ * Which edit of a row a client has: the row's version, bumped on every update, and when that update happened.
+ * Served as the {@code ETag} and {@code Last-Modified} of the resource.
+ */
+public class Revision
+{
+    private final int version;
+    private final Instant updatedAt;
+
+    public Revision(int version, Instant updatedAt)
+    {
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public int getVersion()
+    {
+        return version;
+    }
+
+    public Instant getUpdatedAt()
+    {
+        return updatedAt;
+    }
+
+    public String getETag()
+    {
+        return "\"" + version + "\"";
+    }
+}
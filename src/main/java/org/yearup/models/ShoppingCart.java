@@ -1,6 +1,5 @@
 package org.yearup.models;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,12 +7,12 @@ public class ShoppingCart {
     // Using a Map where key is productId and value is ShoppingCartItem
     // This matches the JSON structure like "1": { ...item details... } on Page 12 of PDF
     private Map<Integer, ShoppingCartItem> items;
-    private BigDecimal total;
+    private Money total;
 
     // Default Constructor
     public ShoppingCart() {
         this.items = new HashMap<>(); // Initialize map
-        this.total = BigDecimal.ZERO;
+        this.total = Money.ZERO;
     }
 
     // --- Getters and Setters ---
@@ -25,20 +24,21 @@ public class ShoppingCart {
         this.items = items;
     }
 
-    public BigDecimal getTotal() {
-        // Calculate total dynamically based on items, as per typical cart logic
-        BigDecimal calculatedTotal = BigDecimal.ZERO;
+    public Money getTotal() {
+        // Calculate total dynamically based on items, as per typical cart logic.
+        // Summing raw cents avoids creating an intermediate Money for every line.
+        long calculatedCents = 0;
         if (items != null) {
             for (ShoppingCartItem item : items.values()) {
                 if (item.getLineTotal() != null) {
-                    calculatedTotal = calculatedTotal.add(item.getLineTotal());
+                    calculatedCents = Math.addExact(calculatedCents, item.getLineTotal().getCents());
                 }
             }
         }
-        return calculatedTotal;
+        return Money.ofCents(calculatedCents);
     }
 
-    public void setTotal(BigDecimal total) {
+    public void setTotal(Money total) {
         // This setter might not be strictly necessary if getTotal calculates dynamically
         this.total = total;
     }
@@ -60,6 +60,6 @@ public class ShoppingCart {
     // Helper method to clear the cart
     public void clear() {
         this.items.clear();
-        this.total = BigDecimal.ZERO;
+        this.total = Money.ZERO;
     }
 }
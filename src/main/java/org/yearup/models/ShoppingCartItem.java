@@ -1,24 +1,22 @@
 package org.yearup.models;
 
-import java.math.BigDecimal; // Import for price/lineTotal
-
 public class ShoppingCartItem {
     private Product product;
     private int quantity;
     // private BigDecimal discountPercent; // REMOVE THIS LINE
-    private BigDecimal lineTotal;
+    private Money lineTotal;
 
     // Default Constructor
     public ShoppingCartItem() {
         this.product = new Product();
         this.quantity = 0;
         // this.discountPercent = BigDecimal.ZERO; // REMOVE OR COMMENT OUT THIS LINE
-        this.lineTotal = BigDecimal.ZERO;
+        this.lineTotal = Money.ZERO;
     }
 
     // Constructor with all fields (Adjust parameters)
     // REMOVE THE discountPercent PARAMETER
-    public ShoppingCartItem(Product product, int quantity, BigDecimal lineTotal) {
+    public ShoppingCartItem(Product product, int quantity, Money lineTotal) {
         this.product = product;
         this.quantity = quantity;
         this.lineTotal = lineTotal;
@@ -50,11 +48,11 @@ public class ShoppingCartItem {
     //     this.discountPercent = discountPercent;
     // }
 
-    public BigDecimal getLineTotal() {
+    public Money getLineTotal() {
         return lineTotal;
     }
 
-    public void setLineTotal(BigDecimal lineTotal) {
+    public void setLineTotal(Money lineTotal) {
         this.lineTotal = lineTotal;
     }
 
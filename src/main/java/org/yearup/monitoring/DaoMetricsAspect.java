@@ -0,0 +1,72 @@
+package org.yearup.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.yearup.logging.LogFields;
+
+/**
+ * Times every public DAO call as {@code easyshop.dao}, tagged with the DAO class, the method and the
+ * exception thrown (or {@code none}). Each DAO method runs its own statement(s), so this is the per-query
+ * view next to Boot's per-endpoint {@code http.server.requests}.
+ * <p>
+ * While the call runs, the {@link LogFields#SQL} MDC field names it, so log lines from inside a DAO say
+ * which query they belong to.
+ */
+@Aspect
+@Component
+public class DaoMetricsAspect
+{
+    public static final String METRIC_NAME = "easyshop.dao";
+
+    private final MeterRegistry registry;
+
+    public DaoMetricsAspect(MeterRegistry registry)
+    {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * org.yearup.data.mysql.MySql*Dao.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable
+    {
+        String dao = joinPoint.getTarget().getClass().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        String outerSql = MDC.get(LogFields.SQL);
+        MDC.put(LogFields.SQL, dao + "." + method);
+
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try
+        {
+            return joinPoint.proceed();
+        }
+        catch (Throwable e)
+        {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        }
+        finally
+        {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("DAO calls, one or more SQL statements each")
+                    .tag("dao", dao)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry));
+
+            // a DAO call made from inside another one hands the field back to the outer call
+            if (outerSql == null)
+            {
+                MDC.remove(LogFields.SQL);
+            }
+            else
+            {
+                MDC.put(LogFields.SQL, outerSql);
+            }
+        }
+    }
+}
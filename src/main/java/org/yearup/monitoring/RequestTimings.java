@@ -0,0 +1,142 @@
+package org.yearup.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in each phase of the request being handled on the current thread.
+ * <p>
+ * {@link ServerTimingFilter} opens a RequestTimings for every request when Server-Timing is enabled; the
+ * instrumented code asks for {@link #current()} and does nothing when it is {@code null}, so with the
+ * feature off the only cost is one ThreadLocal lookup per hook.
+ */
+public final class RequestTimings
+{
+    public enum Phase
+    {
+        AUTH("auth"),
+        DB_BORROW("db-borrow"),
+        SQL("sql"),
+        MAPPING("mapping"),
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName)
+        {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName()
+        {
+            return metricName;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+
+    private RequestTimings()
+    {
+    }
+
+    static RequestTimings open()
+    {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void close()
+    {
+        CURRENT.remove();
+    }
+
+    /**
+     * The timings of the request on this thread, or {@code null} when nothing is being recorded.
+     */
+    public static RequestTimings current()
+    {
+        return CURRENT.get();
+    }
+
+    public void add(Phase phase, long elapsedNanos)
+    {
+        add(phase, elapsedNanos, 1);
+    }
+
+    public void add(Phase phase, long elapsedNanos, int calls)
+    {
+        nanos[phase.ordinal()] += elapsedNanos;
+        counts[phase.ordinal()] += calls;
+    }
+
+    public long getNanos(Phase phase)
+    {
+        return nanos[phase.ordinal()];
+    }
+
+    public int getCount(Phase phase)
+    {
+        return counts[phase.ordinal()];
+    }
+
+    public long getElapsedNanos()
+    {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * The value of a {@code Server-Timing} header, e.g.
+     * {@code auth;dur=0.41, db-borrow;dur=0.02, sql;dur=3.10;desc="2 calls", total;dur=5.77}.
+     */
+    public String toServerTimingHeader(long totalNanos)
+    {
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES)
+        {
+            int count = counts[phase.ordinal()];
+            if (count == 0)
+            {
+                continue;
+            }
+            header.append(phase.getMetricName()).append(";dur=").append(millis(nanos[phase.ordinal()]));
+            if (count > 1)
+            {
+                header.append(";desc=\"").append(count).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(totalNanos)).toString();
+    }
+
+    /**
+     * The phases as space-separated {@code key=value} pairs for a log line, e.g.
+     * {@code total_ms=812.40 auth_ms=0.41 sql_ms=790.12 sql_count=2}.
+     */
+    public String toLogFields(long totalNanos)
+    {
+        StringBuilder fields = new StringBuilder(160).append("total_ms=").append(millis(totalNanos));
+        for (Phase phase : PHASES)
+        {
+            int count = counts[phase.ordinal()];
+            if (count == 0)
+            {
+                continue;
+            }
+            String key = phase.getMetricName().replace('-', '_');
+            fields.append(' ').append(key).append("_ms=").append(millis(nanos[phase.ordinal()]));
+            fields.append(' ').append(key).append("_count=").append(count);
+        }
+        return fields.toString();
+    }
+
+    private static String millis(long nanos)
+    {
+        long hundredths = TimeUnit.NANOSECONDS.toMicros(nanos) / 10;
+        return hundredths / 100 + "." + (hundredths % 100 < 10 ? "0" : "") + hundredths % 100;
+    }
+}
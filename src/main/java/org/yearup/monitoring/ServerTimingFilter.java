@@ -0,0 +1,73 @@
+package org.yearup.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Records where each request spends its time (see {@link RequestTimings.Phase}) and reports it as a
+ * {@code Server-Timing} response header and/or a log line for requests slower than the threshold.
+ * <p>
+ * The header has to be set before the body is committed, and the body is written during serialization,
+ * which is one of the phases being measured. With the header turned on the response is therefore buffered
+ * until the request completes; the slow-request log alone does not buffer anything.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter
+{
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final boolean header;
+    private final long slowRequestNanos;
+
+    /**
+     * @param header               add the {@code Server-Timing} header to every response
+     * @param slowRequestThreshold log the breakdown of requests that take at least this long; zero or
+     *                             negative turns the log off
+     */
+    public ServerTimingFilter(boolean header, Duration slowRequestThreshold)
+    {
+        this.header = header;
+        this.slowRequestNanos = slowRequestThreshold.isNegative() || slowRequestThreshold.isZero()
+                ? Long.MAX_VALUE
+                : slowRequestThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        RequestTimings timings = RequestTimings.open();
+        ContentCachingResponseWrapper buffered = header ? new ContentCachingResponseWrapper(response) : null;
+        try
+        {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        }
+        finally
+        {
+            RequestTimings.close();
+            long total = timings.getElapsedNanos();
+
+            if (buffered != null)
+            {
+                buffered.setHeader(SERVER_TIMING_HEADER, timings.toServerTimingHeader(total));
+                buffered.copyBodyToResponse();
+            }
+
+            if (total >= slowRequestNanos)
+            {
+                LOG.warn("slow request method={} uri={} status={} {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), timings.toLogFields(total));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.yearup.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps a borrowed connection to split the time it is held into SQL (statement execution and fetching rows
+ * with {@code ResultSet.next()}) and everything else the DAO does while holding it, which is mostly mapping
+ * rows into models. Both are added to the request's {@link RequestTimings} when the connection is closed.
+ * <p>
+ * Only used while a request is being timed; otherwise DAOs get the pooled connection untouched.
+ */
+public final class TimedConnection
+{
+    private final RequestTimings timings;
+    private final long borrowedAt = System.nanoTime();
+    private long sqlNanos;
+    private int statements;
+    private boolean closed;
+
+    private TimedConnection(RequestTimings timings)
+    {
+        this.timings = timings;
+    }
+
+    public static Connection wrap(Connection connection, RequestTimings timings)
+    {
+        TimedConnection timed = new TimedConnection(timings);
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            if ("close".equals(method.getName()))
+            {
+                timed.report();
+                return invoke(target, method, args);
+            }
+
+            Object result = invoke(target, method, args);
+            if (result instanceof CallableStatement)
+            {
+                return timed.statement(CallableStatement.class, (CallableStatement) result);
+            }
+            if (result instanceof PreparedStatement)
+            {
+                return timed.statement(PreparedStatement.class, (PreparedStatement) result);
+            }
+            if (result instanceof Statement)
+            {
+                return timed.statement(Statement.class, (Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, T statement)
+    {
+        return proxy(type, statement, (target, method, args) -> {
+            if (!method.getName().startsWith("execute"))
+            {
+                return invoke(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            try
+            {
+                Object result = invoke(target, method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            }
+            finally
+            {
+                sqlNanos += System.nanoTime() - start;
+                statements++;
+            }
+        });
+    }
+
+    private ResultSet resultSet(ResultSet resultSet)
+    {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            if (!"next".equals(method.getName()))
+            {
+                return invoke(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            try
+            {
+                return invoke(target, method, args);
+            }
+            finally
+            {
+                sqlNanos += System.nanoTime() - start;
+            }
+        });
+    }
+
+    private void report()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+
+        long held = System.nanoTime() - borrowedAt;
+        timings.add(RequestTimings.Phase.SQL, sqlNanos, statements);
+        timings.add(RequestTimings.Phase.MAPPING, Math.max(0, held - sqlNanos));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler)
+    {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(TimedConnection.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    private interface Handler<T>
+    {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,43 @@
+package org.yearup.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The usual Jackson converter, adding the time spent writing response bodies to the request's
+ * {@link RequestTimings.Phase#SERIALIZE} phase.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter
+{
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper)
+    {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException
+    {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null)
+        {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try
+        {
+            super.writeInternal(object, type, outputMessage);
+        }
+        finally
+        {
+            timings.add(RequestTimings.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.yearup.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns product text and search queries into index terms: lower-cased runs of letters and digits, common
+ * English stop words dropped, and each word reduced to its stem by {@link EnglishStemmer}, so
+ * "Running Shoes" and "run shoe" end up with the same terms.
+ */
+public final class Analyzer
+{
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in", "into", "is", "it",
+            "its", "of", "on", "or", "our", "so", "that", "the", "their", "then", "there", "these", "this", "to",
+            "was", "will", "with", "you", "your"));
+
+    private Analyzer()
+    {
+    }
+
+    public static List<String> terms(String text)
+    {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+        {
+            return terms;
+        }
+
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++)
+        {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0)
+            {
+                start = i;
+            }
+            else if (!wordChar && start >= 0)
+            {
+                String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(word))
+                {
+                    terms.add(EnglishStemmer.stem(word));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
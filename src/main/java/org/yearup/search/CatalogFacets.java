@@ -0,0 +1,335 @@
+package org.yearup.search;
+
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.exceptions.ServiceUnavailableException;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+import org.yearup.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Facet counts (category, colour, price bucket) over a columnar in-memory copy of the catalog.
+ * <p>
+ * Only the columns the facets and filters need are kept, one primitive array each. Categories and colours are
+ * ordinals into small dictionaries and each row's price bucket is worked out when it is written, so a count is
+ * a single pass of array reads and increments: every row evaluates the three filters once and adds itself to
+ * each facet whose other filters it passes.
+ * <p>
+ * Writes keep it current through {@link ProductChangeListener}; a deleted row is filled with the last one, so
+ * the columns stay dense. Reads share a read lock and writes take the write lock.
+ */
+public class CatalogFacets implements ProductChangeListener
+{
+    // far below any real price, and far enough from Long.MIN_VALUE that subtracting a bound cannot overflow
+    private static final long NO_PRICE = -(1L << 62);
+
+    // upper bounds of all but the last bucket, ascending
+    private final long[] bucketBounds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // all guarded by lock
+    private int[] productIds = new int[1024];
+    private int[] categories = new int[1024];
+    private long[] prices = new long[1024];
+    private int[] priceBuckets = new int[1024];
+    private int[] colors = new int[1024];
+    private int rows;
+    private IntIntMap rowByProductId = new IntIntMap(1024);
+    private final IntIntMap categoryOrdinals = new IntIntMap(64);
+    private int[] categoryIds = new int[64];
+    // lower-cased colour -> ordinal, and the spelling first seen for each ordinal
+    private final Map<String, Integer> colorOrdinals = new HashMap<>();
+    private final List<String> colorNames = new ArrayList<>();
+
+    private volatile boolean ready;
+
+    /**
+     * @param bucketBounds where one price bucket ends and the next begins, ascending: {@code 25, 50} gives
+     *                     under 25, 25 up to 50, and 50 and over
+     */
+    public CatalogFacets(List<Money> bucketBounds)
+    {
+        this.bucketBounds = new long[bucketBounds.size()];
+        for (int i = 0; i < this.bucketBounds.length; i++)
+        {
+            this.bucketBounds[i] = bucketBounds.get(i).getCents();
+            if (i > 0 && this.bucketBounds[i] <= this.bucketBounds[i - 1])
+            {
+                throw new IllegalArgumentException("Price bucket bounds must be ascending: " + bucketBounds);
+            }
+        }
+    }
+
+    /**
+     * Replaces the whole snapshot with the products the source returns. As with {@link ProductIndex#rebuild},
+     * the source is read under the write lock.
+     */
+    public void rebuild(Supplier<? extends Collection<Product>> source)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Collection<Product> products = source.get();
+            int capacity = Math.max(1024, products.size());
+            productIds = new int[capacity];
+            categories = new int[capacity];
+            prices = new long[capacity];
+            priceBuckets = new int[capacity];
+            colors = new int[capacity];
+            rows = 0;
+            rowByProductId = new IntIntMap(capacity);
+
+            for (Product product : products)
+            {
+                save(product);
+            }
+            ready = true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return rows;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductFacets count(ProductFilter filter)
+    {
+        if (!ready)
+        {
+            throw new ServiceUnavailableException("Product facets are still loading. Please try again shortly.", 5);
+        }
+
+        lock.readLock().lock();
+        try
+        {
+            // 1 for every category and colour ordinal the filter lets through, 0 otherwise
+            int categoryCount = categoryOrdinals.size();
+            int[] categoryMatch = new int[categoryCount];
+            for (int category = 0; category < categoryCount; category++)
+            {
+                categoryMatch[category] = filter.matchesCategory(categoryIds[category]) ? 1 : 0;
+            }
+            // colour ordinals shifted by one, so products without a colour use slot 0
+            int[] colorMatch = new int[colorNames.size() + 1];
+            colorMatch[0] = filter.matchesColor(null) ? 1 : 0;
+            for (int color = 0; color < colorNames.size(); color++)
+            {
+                colorMatch[color + 1] = filter.matchesColor(colorNames.get(color)) ? 1 : 0;
+            }
+
+            // an unpriced row fails any bound; with no bound every row passes
+            boolean priceBounded = filter.minCents() != Long.MIN_VALUE || filter.maxCents() != Long.MAX_VALUE;
+            long low = priceBounded ? Math.max(filter.minCents(), NO_PRICE + 1) : NO_PRICE;
+            long high = priceBounded ? Math.min(filter.maxCents(), -NO_PRICE) : -NO_PRICE;
+
+            int total = 0;
+            int[] categoryCounts = new int[categoryCount];
+            int[] colorCounts = new int[colorNames.size() + 1];
+            // one extra for products without a price
+            int[] priceCounts = new int[bucketBounds.length + 2];
+
+            // whether a row matches is close to random, so the counts are added as 0 or 1 rather than
+            // branched on, which the CPU could not predict; see ProductFilter for the rules this mirrors
+            for (int row = 0; row < rows; row++)
+            {
+                long price = prices[row];
+                int category = categories[row];
+                int color = colors[row];
+                int categoryMatches = categoryMatch[category];
+                // both differences are non-negative exactly when low <= price <= high
+                int priceMatches = (int) (((price - low) | (high - price)) >>> 63) ^ 1;
+                int colorMatches = colorMatch[color + 1];
+
+                categoryCounts[category] += priceMatches & colorMatches;
+                priceCounts[priceBuckets[row]] += categoryMatches & colorMatches;
+                colorCounts[color + 1] += categoryMatches & priceMatches;
+                total += categoryMatches & priceMatches & colorMatches;
+            }
+            return toFacets(total, categoryCounts, Arrays.copyOfRange(colorCounts, 1, colorCounts.length),
+                    Arrays.copyOf(priceCounts, bucketBounds.length + 1));
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            save(product);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            int row = rowByProductId.get(productId, -1);
+            if (row < 0)
+            {
+                return;
+            }
+            rowByProductId.remove(productId);
+
+            int last = --rows;
+            if (row != last)
+            {
+                productIds[row] = productIds[last];
+                categories[row] = categories[last];
+                prices[row] = prices[last];
+                priceBuckets[row] = priceBuckets[last];
+                colors[row] = colors[last];
+                rowByProductId.put(productIds[row], row);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // callers hold the write lock
+    private void save(Product product)
+    {
+        int row = rowByProductId.get(product.getProductId(), -1);
+        if (row < 0)
+        {
+            if (rows == productIds.length)
+            {
+                int capacity = rows * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                priceBuckets = Arrays.copyOf(priceBuckets, capacity);
+                colors = Arrays.copyOf(colors, capacity);
+            }
+            row = rows++;
+            rowByProductId.put(product.getProductId(), row);
+        }
+
+        productIds[row] = product.getProductId();
+        categories[row] = categoryOrdinal(product.getCategoryId());
+        prices[row] = product.getPrice() == null ? NO_PRICE : product.getPrice().getCents();
+        priceBuckets[row] = product.getPrice() == null ? bucketBounds.length + 1 : bucket(prices[row]);
+        colors[row] = colorOrdinal(product.getColor());
+    }
+
+    private int categoryOrdinal(int categoryId)
+    {
+        int ordinal = categoryOrdinals.get(categoryId, -1);
+        if (ordinal < 0)
+        {
+            ordinal = categoryOrdinals.size();
+            categoryOrdinals.put(categoryId, ordinal);
+            if (ordinal == categoryIds.length)
+            {
+                categoryIds = Arrays.copyOf(categoryIds, ordinal * 2);
+            }
+            categoryIds[ordinal] = categoryId;
+        }
+        return ordinal;
+    }
+
+    // colours compare case-insensitively, as in ProductFilter; a blank colour has no ordinal
+    private int colorOrdinal(String color)
+    {
+        if (color == null || color.isEmpty())
+        {
+            return -1;
+        }
+        String key = color.toLowerCase(Locale.ROOT);
+        Integer ordinal = colorOrdinals.get(key);
+        if (ordinal == null)
+        {
+            ordinal = colorNames.size();
+            colorOrdinals.put(key, ordinal);
+            colorNames.add(color);
+        }
+        return ordinal;
+    }
+
+    private int bucket(long cents)
+    {
+        int index = Arrays.binarySearch(bucketBounds, cents);
+        // a price equal to a bound starts the next bucket
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private ProductFacets toFacets(int total, int[] categoryCounts, int[] colorCounts, int[] priceCounts)
+    {
+        ProductFacets facets = new ProductFacets();
+        facets.setTotal(total);
+
+        List<Integer> usedCategories = new ArrayList<>();
+        for (int category = 0; category < categoryCounts.length; category++)
+        {
+            if (categoryCounts[category] > 0)
+            {
+                usedCategories.add(category);
+            }
+        }
+        usedCategories.sort((a, b) -> Integer.compare(categoryIds[a], categoryIds[b]));
+        for (int category : usedCategories)
+        {
+            facets.getCategories().put(categoryIds[category], categoryCounts[category]);
+        }
+
+        List<Integer> usedColors = new ArrayList<>();
+        for (int color = 0; color < colorCounts.length; color++)
+        {
+            if (colorCounts[color] > 0)
+            {
+                usedColors.add(color);
+            }
+        }
+        usedColors.sort((a, b) -> colorCounts[a] != colorCounts[b]
+                ? Integer.compare(colorCounts[b], colorCounts[a])
+                : colorNames.get(a).compareToIgnoreCase(colorNames.get(b)));
+        for (int color : usedColors)
+        {
+            facets.getColors().put(colorNames.get(color), colorCounts[color]);
+        }
+
+        for (int i = 0; i < priceCounts.length; i++)
+        {
+            Money min = i == 0 ? Money.ZERO : Money.ofCents(bucketBounds[i - 1]);
+            Money max = i < bucketBounds.length ? Money.ofCents(bucketBounds[i]) : null;
+            facets.getPrices().add(new ProductFacets.PriceBucket(min, max, priceCounts[i]));
+        }
+        return facets;
+    }
+}
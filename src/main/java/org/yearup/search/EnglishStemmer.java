@@ -0,0 +1,76 @@
+package org.yearup.search;
+
+/**
+ * A light English stemmer: plural endings (-s, -es, -ies) and the -ing, -ed and -ly suffixes. Much smaller than
+ * Porter's algorithm and it misses derivational suffixes (-ness, -ation), but it conflates the forms shoppers
+ * actually type for product names, and it never produces a stem shorter than three letters.
+ */
+final class EnglishStemmer
+{
+    private EnglishStemmer()
+    {
+    }
+
+    static String stem(String word)
+    {
+        if (word.length() < 4 || !Character.isLetter(word.charAt(word.length() - 1)))
+        {
+            return word;
+        }
+
+        String stem = plural(word);
+        if (stem.endsWith("ing") && hasVowel(stem, stem.length() - 3))
+        {
+            stem = undouble(stem.substring(0, stem.length() - 3));
+        }
+        else if (stem.endsWith("ed") && hasVowel(stem, stem.length() - 2))
+        {
+            stem = undouble(stem.substring(0, stem.length() - 2));
+        }
+        else if (stem.endsWith("ly") && stem.length() > 5)
+        {
+            stem = stem.substring(0, stem.length() - 2);
+        }
+        return stem.length() < 3 ? word : stem;
+    }
+
+    private static String plural(String word)
+    {
+        if (word.endsWith("ies") && word.length() > 4)
+        {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("sses") || word.endsWith("xes") || word.endsWith("ches") || word.endsWith("shes"))
+        {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is"))
+        {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static boolean hasVowel(String word, int end)
+    {
+        for (int i = 0; i < end; i++)
+        {
+            if ("aeiouy".indexOf(word.charAt(i)) >= 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // running -> runn -> run, but keep the double letter in words like "dressed" -> "dress"
+    private static String undouble(String stem)
+    {
+        int n = stem.length();
+        if (n >= 3 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0)
+        {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,98 @@
+package org.yearup.search;
+
+import org.yearup.models.Product;
+import org.yearup.models.ProductRules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The catalog filters of {@code GET /products} (category, price range, colour), evaluated in memory with
+ * the same meaning as {@code ProductDao.search}: a null or negative bound, a category of -1 and a blank
+ * colour mean "any", and colours compare case-insensitively like MySQL's default collation.
+ */
+public final class ProductFilter
+{
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null);
+
+    // one cent more than any stored price can be, so every bound past it means the same
+    private static final long ABOVE_ANY_PRICE = ProductRules.MAX_PRICE.getCents() + 1;
+
+    private final int categoryId;
+    private final long minCents;
+    private final long maxCents;
+    private final String color;
+
+    public ProductFilter(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String color)
+    {
+        this.categoryId = categoryId == null ? -1 : categoryId;
+        this.minCents = minPrice == null || minPrice.signum() < 0
+                ? Long.MIN_VALUE
+                : cents(minPrice, RoundingMode.CEILING);
+        this.maxCents = maxPrice == null || maxPrice.signum() < 0
+                ? Long.MAX_VALUE
+                : cents(maxPrice, RoundingMode.FLOOR);
+        this.color = color == null || color.isEmpty() ? null : color;
+    }
+
+    // clamped first, since a bound too large for a long would otherwise wrap around
+    private static long cents(BigDecimal price, RoundingMode rounding)
+    {
+        if (price.compareTo(BigDecimal.valueOf(ABOVE_ANY_PRICE, 2)) >= 0)
+        {
+            return ABOVE_ANY_PRICE;
+        }
+        return price.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    public boolean matches(Product product)
+    {
+        return matchesCategory(product.getCategoryId())
+                && matchesPrice(product.getPrice() != null, product.getPrice() == null ? 0 : product.getPrice().getCents())
+                && matchesColor(product.getColor());
+    }
+
+    boolean matchesCategory(int productCategoryId)
+    {
+        return categoryId == -1 || productCategoryId == categoryId;
+    }
+
+    // a product without a price only passes when no bound is set
+    boolean matchesPrice(boolean priced, long cents)
+    {
+        if (minCents == Long.MIN_VALUE && maxCents == Long.MAX_VALUE)
+        {
+            return true;
+        }
+        return priced && cents >= minCents && cents <= maxCents;
+    }
+
+    boolean matchesColor(String productColor)
+    {
+        return color == null || color.equalsIgnoreCase(productColor);
+    }
+
+    // -1 when any category matches
+    int categoryId()
+    {
+        return categoryId;
+    }
+
+    // Long.MIN_VALUE when unbounded
+    long minCents()
+    {
+        return minCents;
+    }
+
+    // Long.MAX_VALUE when unbounded
+    long maxCents()
+    {
+        return maxCents;
+    }
+
+    // null when any colour matches
+    String color()
+    {
+        return color;
+    }
+}
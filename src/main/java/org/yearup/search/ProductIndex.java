@@ -0,0 +1,391 @@
+package org.yearup.search;
+
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.exceptions.ServiceUnavailableException;
+import org.yearup.models.Product;
+import org.yearup.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory inverted index over product names and descriptions, ranked with BM25.
+ * <p>
+ * Every product gets a dense internal document number; each term maps to a postings list of
+ * (document, term frequency) pairs in plain int arrays, sorted by document. Name terms count
+ * {@value #NAME_BOOST} times, so a match in the name outranks the same word buried in a description. A query
+ * walks its terms' postings side by side, scores each document they contain once, applies the catalog
+ * filters, and keeps the best {@code limit} in a small heap.
+ * <p>
+ * Writes keep it current through {@link ProductChangeListener}: an update removes the old document and adds
+ * a new one, and deleted documents stay in the postings as tombstones until there are enough of them to be
+ * worth a compaction. Reads share a read lock; writes and compactions take the write lock.
+ */
+public class ProductIndex implements ProductChangeListener
+{
+    static final int NAME_BOOST = 2;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // all guarded by lock
+    private Product[] documents = new Product[1024];
+    private int[] lengths = new int[1024];
+    private int documentCount;
+    private int liveDocuments;
+    private long totalLength;
+    private IntIntMap documentByProductId = new IntIntMap(1024);
+    private Map<String, Postings> postings = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Replaces the whole index with the products the source returns and makes it available for searching.
+     * The source is read under the write lock, so a write reported while it runs is applied afterwards
+     * instead of being overwritten by an older snapshot.
+     */
+    public void rebuild(Supplier<? extends Collection<Product>> source)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Collection<Product> products = source.get();
+            clear(products.size());
+            for (Product product : products)
+            {
+                add(product);
+            }
+            ready = true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return liveDocuments;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The products best matching the query among those the filter lets through, best first.
+     */
+    public List<Product> search(String query, ProductFilter filter, int limit)
+    {
+        if (!ready)
+        {
+            throw new ServiceUnavailableException("Product search is still loading. Please try again shortly.", 5);
+        }
+
+        Set<String> terms = new LinkedHashSet<>(Analyzer.terms(query));
+        if (terms.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try
+        {
+            if (liveDocuments == 0)
+            {
+                return new ArrayList<>();
+            }
+            float averageLength = (float) totalLength / liveDocuments;
+
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms)
+            {
+                Postings list = postings.get(term);
+                if (list != null)
+                {
+                    lists.add(list);
+                }
+            }
+            return top(lists, averageLength, filter, limit);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            add(product);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            int document = documentByProductId.get(productId, -1);
+            if (document >= 0)
+            {
+                remove(document);
+                compactIfWorthIt();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Document at a time: postings are sorted by document, so walking all lists in step scores each
+    // document completely in one visit and needs no per-query map of partial scores.
+    private List<Product> top(List<Postings> lists, float averageLength, ProductFilter filter, int limit)
+    {
+        int terms = lists.size();
+        int[] positions = new int[terms];
+        float[] idfs = new float[terms];
+        for (int t = 0; t < terms; t++)
+        {
+            int documentFrequency = lists.get(t).documentFrequency;
+            idfs[t] = (float) Math.log(1 + (liveDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+
+        // lowest score at the head, so the heap always evicts the weakest of the current best
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+
+        while (true)
+        {
+            int document = Integer.MAX_VALUE;
+            for (int t = 0; t < terms; t++)
+            {
+                Postings list = lists.get(t);
+                if (positions[t] < list.size)
+                {
+                    document = Math.min(document, list.documents[positions[t]]);
+                }
+            }
+            if (document == Integer.MAX_VALUE)
+            {
+                break;
+            }
+
+            float score = 0;
+            for (int t = 0; t < terms; t++)
+            {
+                Postings list = lists.get(t);
+                int position = positions[t];
+                if (position < list.size && list.documents[position] == document)
+                {
+                    int tf = list.frequencies[position];
+                    float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                    score += idfs[t] * tf * (K1 + 1) / (tf + norm);
+                    positions[t] = position + 1;
+                }
+            }
+
+            // most documents cannot beat the current best, so the product itself (and the filter) is only
+            // looked at for the few that might
+            Hit weakest = best.size() < limit ? null : best.peek();
+            if (weakest != null && score < weakest.score)
+            {
+                continue;
+            }
+            Product product = documents[document];
+            if (product == null || !filter.matches(product))
+            {
+                continue;
+            }
+            if (weakest == null)
+            {
+                best.add(new Hit(product, score));
+            }
+            else if (Hit.compare(score, product.getProductId(), weakest) > 0)
+            {
+                best.poll();
+                best.add(new Hit(product, score));
+            }
+        }
+
+        Product[] ranked = new Product[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--)
+        {
+            ranked[i] = best.poll().product;
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    // callers hold the write lock
+    private void add(Product product)
+    {
+        int existing = documentByProductId.get(product.getProductId(), -1);
+        if (existing >= 0)
+        {
+            remove(existing);
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Analyzer.terms(product.getName()))
+        {
+            frequencies.merge(term, NAME_BOOST, Integer::sum);
+        }
+        for (String term : Analyzer.terms(product.getDescription()))
+        {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        if (documentCount == documents.length)
+        {
+            documents = Arrays.copyOf(documents, documentCount * 2);
+            lengths = Arrays.copyOf(lengths, documentCount * 2);
+        }
+        int document = documentCount++;
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet())
+        {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(document, entry.getValue());
+            length += entry.getValue();
+        }
+
+        documents[document] = product;
+        lengths[document] = length;
+        totalLength += length;
+        liveDocuments++;
+        documentByProductId.put(product.getProductId(), document);
+
+        if (existing >= 0)
+        {
+            compactIfWorthIt();
+        }
+    }
+
+    private void remove(int document)
+    {
+        Product product = documents[document];
+        Set<String> terms = new LinkedHashSet<>(Analyzer.terms(product.getName()));
+        terms.addAll(Analyzer.terms(product.getDescription()));
+        for (String term : terms)
+        {
+            Postings list = postings.get(term);
+            if (list != null && --list.documentFrequency == 0)
+            {
+                postings.remove(term);
+            }
+        }
+
+        documents[document] = null;
+        totalLength -= lengths[document];
+        liveDocuments--;
+        documentByProductId.remove(product.getProductId());
+    }
+
+    private void compactIfWorthIt()
+    {
+        int tombstones = documentCount - liveDocuments;
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT || tombstones < liveDocuments / 4)
+        {
+            return;
+        }
+
+        List<Product> live = new ArrayList<>(liveDocuments);
+        for (int document = 0; document < documentCount; document++)
+        {
+            if (documents[document] != null)
+            {
+                live.add(documents[document]);
+            }
+        }
+        clear(live.size());
+        for (Product product : live)
+        {
+            add(product);
+        }
+    }
+
+    private void clear(int expectedSize)
+    {
+        int capacity = Math.max(1024, expectedSize);
+        documents = new Product[capacity];
+        lengths = new int[capacity];
+        documentCount = 0;
+        liveDocuments = 0;
+        totalLength = 0;
+        documentByProductId = new IntIntMap(capacity);
+        postings = new HashMap<>();
+    }
+
+    private static final class Postings
+    {
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        // live documents only; the arrays may still hold tombstones
+        private int documentFrequency;
+
+        private void add(int document, int frequency)
+        {
+            if (size == documents.length)
+            {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+    }
+
+    // ordered weakest first: lower score, then higher product id on ties
+    private static final class Hit implements Comparable<Hit>
+    {
+        private final Product product;
+        private final float score;
+
+        private Hit(Product product, float score)
+        {
+            this.product = product;
+            this.score = score;
+        }
+
+        private static int compare(float score, int productId, Hit other)
+        {
+            return score != other.score
+                    ? Float.compare(score, other.score)
+                    : Integer.compare(other.product.getProductId(), productId);
+        }
+
+        @Override
+        public int compareTo(Hit other)
+        {
+            return compare(score, product.getProductId(), other);
+        }
+    }
+}
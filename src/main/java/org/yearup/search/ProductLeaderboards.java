@@ -0,0 +1,319 @@
+package org.yearup.search;
+
+import org.yearup.data.CountedLines;
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.exceptions.ServiceUnavailableException;
+import org.yearup.models.Product;
+import org.yearup.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Featured products and each category's best sellers, ranked by units sold and kept ready to serve.
+ * <p>
+ * A board is a short array of product ids, best first, published as an immutable list of products that reads
+ * take without a lock. Units sold only ever go up, so a sale can only move the product that sold: it moves up
+ * within its boards, or enters one by pushing out the last entry. Product writes can take a product off a
+ * board (another category, no longer featured, deleted), and refilling it needs the next best product from
+ * outside, so those boards are recomputed from every product. Product writes are rare next to sales.
+ * <p>
+ * Sales come from a {@link SalesSource}: all of them on {@link #rebuild}, then the lines not yet counted on each
+ * {@link #pollSales}, late commits included (see {@link CountedLines}). Product writes arrive through {@link ProductChangeListener}, as for the other views.
+ */
+public class ProductLeaderboards implements ProductChangeListener
+{
+    public static final int MAX_ENTRIES = 20;
+
+    private final SalesSource sales;
+
+    // one poll at a time; counted is only touched under pollLock
+    private final Object pollLock = new Object();
+    private CountedLines counted = new CountedLines();
+
+    // writes hold lock; reads only look at the published lists
+    private final Object lock = new Object();
+    private final Map<Integer, Product> products = new HashMap<>();
+    private IntIntMap unitsSold = new IntIntMap(1024);
+    private final Map<Integer, Board> topSellers = new ConcurrentHashMap<>();
+    private final Board featured = new Board();
+
+    private volatile boolean ready;
+
+    public ProductLeaderboards(SalesSource sales)
+    {
+        this.sales = sales;
+    }
+
+    /**
+     * Replaces every board, ranking the products the source returns by all sales so far. As with
+     * {@link ProductIndex#rebuild}, the sources are read under the lock.
+     */
+    public void rebuild(Supplier<? extends Collection<Product>> source)
+    {
+        synchronized (pollLock)
+        {
+            synchronized (lock)
+            {
+                Collection<Product> loaded = source.get();
+                IntIntMap units = new IntIntMap(Math.max(1024, loaded.size()));
+                CountedLines all = new CountedLines();
+                sales.addUnitsSold(all, units);
+                counted = all;
+                unitsSold = units;
+
+                products.clear();
+                for (Product product : loaded)
+                {
+                    products.put(product.getProductId(), product);
+                }
+                topSellers.clear();
+                for (Product product : loaded)
+                {
+                    topSellers.computeIfAbsent(product.getCategoryId(), categoryId -> new Board());
+                }
+                for (Map.Entry<Integer, Board> board : topSellers.entrySet())
+                {
+                    recompute(board.getValue(), topSellerOf(board.getKey()));
+                }
+                recompute(featured, Product::isFeatured);
+                ready = true;
+            }
+        }
+    }
+
+    /**
+     * Counts the sales written since the last poll. The source is read before the lock is taken, so reads and
+     * product writes only wait for the boards to be updated, not for the database.
+     */
+    public void pollSales()
+    {
+        if (!ready)
+        {
+            return;
+        }
+
+        synchronized (pollLock)
+        {
+            IntIntMap sold = new IntIntMap(64);
+            sales.addUnitsSold(counted, sold);
+            if (sold.size() > 0)
+            {
+                addSales(sold);
+            }
+        }
+    }
+
+    public int size()
+    {
+        synchronized (lock)
+        {
+            return products.size();
+        }
+    }
+
+    // featured products, best sellers first
+    public List<Product> featured(int limit)
+    {
+        checkReady();
+        return head(featured.published, limit);
+    }
+
+    // the category's products that have sold at least once, best sellers first
+    public List<Product> topSellers(int categoryId, int limit)
+    {
+        checkReady();
+        Board board = topSellers.get(categoryId);
+        return board == null ? Collections.emptyList() : head(board.published, limit);
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        synchronized (lock)
+        {
+            Product previous = products.put(product.getProductId(), product);
+
+            recompute(topSellers.computeIfAbsent(product.getCategoryId(), categoryId -> new Board()),
+                    topSellerOf(product.getCategoryId()));
+            if (previous != null && previous.getCategoryId() != product.getCategoryId())
+            {
+                recompute(topSellers.get(previous.getCategoryId()), topSellerOf(previous.getCategoryId()));
+            }
+            if (product.isFeatured() || (previous != null && previous.isFeatured()))
+            {
+                recompute(featured, Product::isFeatured);
+            }
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        synchronized (lock)
+        {
+            Product previous = products.remove(productId);
+            if (previous == null)
+            {
+                return;
+            }
+
+            recompute(topSellers.get(previous.getCategoryId()), topSellerOf(previous.getCategoryId()));
+            if (previous.isFeatured())
+            {
+                recompute(featured, Product::isFeatured);
+            }
+        }
+    }
+
+    private void addSales(IntIntMap sold)
+    {
+        synchronized (lock)
+        {
+            List<Board> changed = new ArrayList<>();
+            sold.forEach((productId, units) -> {
+                unitsSold.addTo(productId, units);
+                Product product = products.get(productId);
+                if (product == null)
+                {
+                    return;
+                }
+                Board board = topSellers.get(product.getCategoryId());
+                if (offer(board, productId) && !changed.contains(board))
+                {
+                    changed.add(board);
+                }
+                if (product.isFeatured() && offer(featured, productId) && !changed.contains(featured))
+                {
+                    changed.add(featured);
+                }
+            });
+            for (Board board : changed)
+            {
+                publish(board);
+            }
+        }
+    }
+
+    private Predicate<Product> topSellerOf(int categoryId)
+    {
+        return product -> product.getCategoryId() == categoryId && unitsSold.get(product.getProductId(), 0) > 0;
+    }
+
+    // callers hold lock
+    private void recompute(Board board, Predicate<Product> eligible)
+    {
+        board.size = 0;
+        for (Product product : products.values())
+        {
+            if (eligible.test(product))
+            {
+                offer(board, product.getProductId());
+            }
+        }
+        publish(board);
+    }
+
+    // Puts the product in its place on the board if it belongs there; its units can only have gone up since it
+    // was last placed. Returns whether the board changed. Callers hold lock.
+    private boolean offer(Board board, int productId)
+    {
+        int[] ids = board.ids;
+        int position = -1;
+        for (int i = 0; i < board.size; i++)
+        {
+            if (ids[i] == productId)
+            {
+                position = i;
+                break;
+            }
+        }
+
+        if (position < 0)
+        {
+            if (board.size < MAX_ENTRIES)
+            {
+                position = board.size++;
+            }
+            else if (outranks(productId, ids[MAX_ENTRIES - 1]))
+            {
+                position = MAX_ENTRIES - 1;
+            }
+            else
+            {
+                return false;
+            }
+            ids[position] = productId;
+        }
+        else if (position == 0 || !outranks(productId, ids[position - 1]))
+        {
+            return false;
+        }
+
+        while (position > 0 && outranks(productId, ids[position - 1]))
+        {
+            ids[position] = ids[position - 1];
+            ids[--position] = productId;
+        }
+        return true;
+    }
+
+    // more units sold first, then the lower product id
+    private boolean outranks(int productId, int otherProductId)
+    {
+        int units = unitsSold.get(productId, 0);
+        int otherUnits = unitsSold.get(otherProductId, 0);
+        return units != otherUnits ? units > otherUnits : productId < otherProductId;
+    }
+
+    private void publish(Board board)
+    {
+        Product[] ranked = new Product[board.size];
+        for (int i = 0; i < board.size; i++)
+        {
+            ranked[i] = products.get(board.ids[i]);
+        }
+        board.published = Collections.unmodifiableList(Arrays.asList(ranked));
+    }
+
+    private void checkReady()
+    {
+        if (!ready)
+        {
+            throw new ServiceUnavailableException("Product rankings are still loading. Please try again shortly.", 5);
+        }
+    }
+
+    private static List<Product> head(List<Product> products, int limit)
+    {
+        return products.size() <= limit ? products : products.subList(0, limit);
+    }
+
+    /**
+     * Where sales are read from.
+     */
+    @FunctionalInterface
+    public interface SalesSource
+    {
+        // adds the units sold on every order line not yet in counted to unitsSold, by product id, and marks
+        // those lines counted
+        void addUnitsSold(CountedLines counted, IntIntMap unitsSold);
+    }
+
+    private static final class Board
+    {
+        // guarded by lock
+        private final int[] ids = new int[MAX_ENTRIES];
+        private int size;
+
+        private volatile List<Product> published = Collections.emptyList();
+    }
+}
@@ -0,0 +1,428 @@
+package org.yearup.search;
+
+import org.yearup.data.CountedLines;
+import org.yearup.data.OrderLines;
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.exceptions.ServiceUnavailableException;
+import org.yearup.models.Product;
+import org.yearup.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * "Frequently bought together": for each product, the products that most often share an order with it.
+ * <p>
+ * The counts are a sparse co-occurrence matrix, one {@link IntIntMap} row per product (co-product id -> orders
+ * containing both). A row only keeps its most frequent pairs: once it holds {@value #PRUNE_AT} co-products it is
+ * cut back to its top {@value #TRACKED_PER_PRODUCT}. That bounds memory for products bought with everything, and
+ * the long tail it drops is far from the top {@value #MAX_RELATED} that are served. Each row's top list is
+ * worked out when the row changes and published as an id array, so a read is a map lookup and a few product
+ * lookups, with no lock and no database.
+ * <p>
+ * {@link #rebuild} counts every historical order exactly, split across a fork/join pool, and prunes afterwards.
+ * {@link #pollSales} then adds the pairs each new order line forms with the rest of its order, whether those
+ * were read before or arrive alongside it. New means not yet in {@link CountedLines}, so a line that commits after
+ * lines with higher ids is still counted. Product writes only change which products can be shown.
+ */
+public class ProductRecommendations implements ProductChangeListener
+{
+    public static final int MAX_RELATED = 10;
+
+    static final int TRACKED_PER_PRODUCT = 100;
+    static final int PRUNE_AT = 2 * TRACKED_PER_PRODUCT;
+    // orders a fork/join task counts itself rather than splitting further
+    static final int ORDERS_PER_TASK = 2048;
+
+    private final OrderSource orders;
+    private final ForkJoinPool pool;
+
+    // one poll at a time
+    private final Object pollLock = new Object();
+    private CountedLines counted = new CountedLines();
+
+    // counts are only touched under pollLock; products and related are read without a lock
+    private Map<Integer, IntIntMap> counts = new HashMap<>();
+    private final Map<Integer, Product> products = new ConcurrentHashMap<>();
+    private volatile Map<Integer, int[]> related = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public ProductRecommendations(OrderSource orders, ForkJoinPool pool)
+    {
+        this.orders = orders;
+        this.pool = pool;
+    }
+
+    /**
+     * Replaces everything with the products the source returns and the co-occurrence counts of every order so far.
+     */
+    public void rebuild(Supplier<? extends Collection<Product>> source)
+    {
+        synchronized (pollLock)
+        {
+            CountedLines all = new CountedLines();
+            OrderLines lines = orders.getOrdersWithNewLines(all);
+            int[] orderStarts = orderStarts(lines);
+            Map<Integer, IntIntMap> built = pool.invoke(new CountTask(lines, orderStarts, 0, orderStarts.length - 1));
+
+            Map<Integer, int[]> builtRelated = new ConcurrentHashMap<>(Math.max(16, built.size() * 2));
+            for (Map.Entry<Integer, IntIntMap> row : built.entrySet())
+            {
+                row.setValue(prune(row.getValue(), TRACKED_PER_PRODUCT));
+                builtRelated.put(row.getKey(), top(row.getValue(), MAX_RELATED));
+            }
+
+            products.clear();
+            for (Product product : source.get())
+            {
+                products.put(product.getProductId(), product);
+            }
+            counts = built;
+            related = builtRelated;
+            // advanced first, so only the trailing window of line ids is remembered
+            all.advance(lines.getLastLineItemId());
+            markCounted(lines, all);
+            counted = all;
+            ready = true;
+        }
+    }
+
+    /**
+     * Counts the pairs formed by order lines written since the last poll.
+     */
+    public void pollSales()
+    {
+        if (!ready)
+        {
+            return;
+        }
+
+        synchronized (pollLock)
+        {
+            OrderLines lines = orders.getOrdersWithNewLines(counted);
+            if (lines.size() > 0)
+            {
+                addOrders(lines);
+                markCounted(lines, counted);
+            }
+            counted.advance(lines.getLastLineItemId());
+        }
+    }
+
+    public int size()
+    {
+        return products.size();
+    }
+
+    /**
+     * Up to {@code limit} products most often bought with the given one, most often first; null for a product
+     * that is not in the catalog.
+     */
+    public List<Product> related(int productId, int limit)
+    {
+        if (!ready)
+        {
+            throw new ServiceUnavailableException("Product recommendations are still loading. Please try again shortly.", 5);
+        }
+        if (!products.containsKey(productId))
+        {
+            return null;
+        }
+
+        int[] relatedIds = related.get(productId);
+        if (relatedIds == null)
+        {
+            return new ArrayList<>();
+        }
+        List<Product> result = new ArrayList<>(Math.min(limit, relatedIds.length));
+        for (int relatedId : relatedIds)
+        {
+            // a deleted product keeps its counts but is not shown
+            Product product = products.get(relatedId);
+            if (product != null)
+            {
+                result.add(product);
+                if (result.size() == limit)
+                {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        products.put(product.getProductId(), product);
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        products.remove(productId);
+    }
+
+    // callers hold pollLock
+    private void addOrders(OrderLines lines)
+    {
+        int[] orderStarts = orderStarts(lines);
+        IntIntMap touched = new IntIntMap(64);
+        int[] known = new int[16];
+        int[] added = new int[16];
+
+        for (int order = 0; order + 1 < orderStarts.length; order++)
+        {
+            int start = orderStarts[order];
+            int end = orderStarts[order + 1];
+            if (end - start > known.length)
+            {
+                known = new int[end - start];
+                added = new int[end - start];
+            }
+
+            // the order's products already counted, then the ones its new lines bring
+            int knownCount = 0;
+            for (int line = start; line < end; line++)
+            {
+                if (counted.isCounted(lines.lineItemId(line)))
+                {
+                    knownCount = addDistinct(known, knownCount, lines.productId(line));
+                }
+            }
+            int addedCount = 0;
+            for (int line = start; line < end; line++)
+            {
+                int productId = lines.productId(line);
+                if (!counted.isCounted(lines.lineItemId(line)) && indexOf(known, knownCount, productId) < 0)
+                {
+                    addedCount = addDistinct(added, addedCount, productId);
+                }
+            }
+
+            for (int i = 0; i < addedCount; i++)
+            {
+                touched.put(added[i], 0);
+                for (int j = 0; j < knownCount; j++)
+                {
+                    addPair(counts, added[i], known[j]);
+                    touched.put(known[j], 0);
+                }
+                for (int j = i + 1; j < addedCount; j++)
+                {
+                    addPair(counts, added[i], added[j]);
+                }
+            }
+        }
+
+        Map<Integer, int[]> published = related;
+        touched.forEach((productId, ignored) -> {
+            IntIntMap row = counts.get(productId);
+            if (row.size() >= PRUNE_AT)
+            {
+                row = prune(row, TRACKED_PER_PRODUCT);
+                counts.put(productId, row);
+            }
+            published.put(productId, top(row, MAX_RELATED));
+        });
+    }
+
+    private static void markCounted(OrderLines lines, CountedLines counted)
+    {
+        for (int line = 0; line < lines.size(); line++)
+        {
+            counted.add(lines.lineItemId(line));
+        }
+    }
+
+    // start of each order's lines, plus lines.size() at the end
+    private static int[] orderStarts(OrderLines lines)
+    {
+        int[] starts = new int[16];
+        int count = 0;
+        for (int line = 0; line < lines.size(); line++)
+        {
+            if (line == 0 || lines.orderId(line) != lines.orderId(line - 1))
+            {
+                if (count + 1 >= starts.length)
+                {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = line;
+            }
+        }
+        starts[count] = lines.size();
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    private static void addPair(Map<Integer, IntIntMap> counts, int productId, int otherProductId)
+    {
+        counts.computeIfAbsent(productId, id -> new IntIntMap(16)).addTo(otherProductId, 1);
+        counts.computeIfAbsent(otherProductId, id -> new IntIntMap(16)).addTo(productId, 1);
+    }
+
+    private static int addDistinct(int[] values, int count, int value)
+    {
+        if (indexOf(values, count, value) < 0)
+        {
+            values[count++] = value;
+        }
+        return count;
+    }
+
+    private static int indexOf(int[] values, int count, int value)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (values[i] == value)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // the row's keep most frequent co-products
+    private static IntIntMap prune(IntIntMap row, int keep)
+    {
+        if (row.size() <= keep)
+        {
+            return row;
+        }
+        long[] ranked = ranked(row);
+        IntIntMap pruned = new IntIntMap(keep);
+        for (int i = ranked.length - 1; i >= ranked.length - keep; i--)
+        {
+            pruned.put(productId(ranked[i]), (int) (ranked[i] >>> 32));
+        }
+        return pruned;
+    }
+
+    // the ids of the row's limit most frequent co-products, most frequent first
+    private static int[] top(IntIntMap row, int limit)
+    {
+        long[] ranked = ranked(row);
+        int[] ids = new int[Math.min(limit, ranked.length)];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = productId(ranked[ranked.length - 1 - i]);
+        }
+        return ids;
+    }
+
+    // Each entry packed as count in the high half and the id's complement in the low half, sorted ascending:
+    // the last entry has the highest count and, among equal counts, the lowest id
+    private static long[] ranked(IntIntMap row)
+    {
+        long[] ranked = new long[row.size()];
+        int[] next = {0};
+        row.forEach((productId, count) -> ranked[next[0]++] = ((long) count << 32) | (~productId & 0xFFFFFFFFL));
+        Arrays.sort(ranked);
+        return ranked;
+    }
+
+    private static int productId(long ranked)
+    {
+        return ~(int) ranked;
+    }
+
+    /**
+     * Where orders are read from.
+     */
+    @FunctionalInterface
+    public interface OrderSource
+    {
+        // every line of every order with a line above counted's floor, sorted by order id, with the highest line id
+        // read as its last line id; nothing if every line above the floor is already counted
+        OrderLines getOrdersWithNewLines(CountedLines counted);
+    }
+
+    // Counts the pairs in a range of orders; halves are counted in parallel and the smaller result added into the larger
+    private static final class CountTask extends RecursiveTask<Map<Integer, IntIntMap>>
+    {
+        private final OrderLines lines;
+        private final int[] orderStarts;
+        private final int fromOrder;
+        private final int toOrder;
+
+        private CountTask(OrderLines lines, int[] orderStarts, int fromOrder, int toOrder)
+        {
+            this.lines = lines;
+            this.orderStarts = orderStarts;
+            this.fromOrder = fromOrder;
+            this.toOrder = toOrder;
+        }
+
+        @Override
+        protected Map<Integer, IntIntMap> compute()
+        {
+            if (toOrder - fromOrder <= ORDERS_PER_TASK)
+            {
+                return countDirectly();
+            }
+
+            int middle = (fromOrder + toOrder) >>> 1;
+            CountTask left = new CountTask(lines, orderStarts, fromOrder, middle);
+            left.fork();
+            Map<Integer, IntIntMap> right = new CountTask(lines, orderStarts, middle, toOrder).compute();
+            return merge(left.join(), right);
+        }
+
+        private Map<Integer, IntIntMap> countDirectly()
+        {
+            Map<Integer, IntIntMap> counts = new HashMap<>();
+            int[] distinct = new int[16];
+            for (int order = fromOrder; order < toOrder; order++)
+            {
+                int start = orderStarts[order];
+                int end = orderStarts[order + 1];
+                if (end - start > distinct.length)
+                {
+                    distinct = new int[end - start];
+                }
+
+                int count = 0;
+                for (int line = start; line < end; line++)
+                {
+                    count = addDistinct(distinct, count, lines.productId(line));
+                }
+                for (int i = 0; i < count; i++)
+                {
+                    for (int j = i + 1; j < count; j++)
+                    {
+                        addPair(counts, distinct[i], distinct[j]);
+                    }
+                }
+            }
+            return counts;
+        }
+
+        private static Map<Integer, IntIntMap> merge(Map<Integer, IntIntMap> a, Map<Integer, IntIntMap> b)
+        {
+            Map<Integer, IntIntMap> into = a.size() >= b.size() ? a : b;
+            Map<Integer, IntIntMap> from = into == a ? b : a;
+            for (Map.Entry<Integer, IntIntMap> row : from.entrySet())
+            {
+                IntIntMap target = into.get(row.getKey());
+                if (target == null)
+                {
+                    into.put(row.getKey(), row.getValue());
+                }
+                else
+                {
+                    row.getValue().forEach(target::addTo);
+                }
+            }
+            return into;
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package org.yearup.search;
+
+import org.yearup.data.events.ProductChangeListener;
+import org.yearup.exceptions.ServiceUnavailableException;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+import org.yearup.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Typeahead over product names: the best products whose name has a word starting with the typed prefix,
+ * featured products first, then by units sold.
+ * <p>
+ * Every word start of a (lower-cased) name is a key, and keys live in a burst trie. A prefix only gets a trie
+ * node once more than {@value #BUCKET_CAPACITY} keys share it; until then its keys sit in a small bucket that
+ * a query scans. Trie nodes keep their best {@value #MAX_SUGGESTIONS} products as a ready-made response, so
+ * the prefixes that match many products, the short ones typed first, are answered without looking at a single
+ * key or allocating a result. The tree grows with the number of busy prefixes rather than with every
+ * character of every name.
+ * <p>
+ * Writes keep it current through {@link ProductChangeListener}. A new key improves the precomputed lists along
+ * its path in place; a removed product's lists are rebuilt from their children's, deepest first. Reads share a
+ * read lock and writes take the write lock; the precomputed lists are immutable, so a response stays valid
+ * after the lock is released.
+ */
+public class ProductSuggester implements ProductChangeListener
+{
+    public static final int MAX_SUGGESTIONS = 10;
+
+    static final int BUCKET_CAPACITY = 64;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // all guarded by lock
+    private Node root = Node.trie(0);
+    private Entry[] entries = new Entry[1024];
+    private int entryCount;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private IntIntMap slotByProductId = new IntIntMap(1024);
+
+    private volatile boolean ready;
+
+    /**
+     * Replaces all suggestions with the products the source returns, ranked with the given units sold per
+     * product id. As with {@link ProductIndex#rebuild}, the source is read under the write lock.
+     */
+    public void rebuild(Supplier<? extends Collection<Product>> source, Map<Integer, Integer> unitsSold)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Collection<Product> products = source.get();
+            root = Node.trie(0);
+            entries = new Entry[Math.max(1024, products.size())];
+            entryCount = 0;
+            freeSlotCount = 0;
+            slotByProductId = new IntIntMap(Math.max(1024, products.size()));
+
+            for (Product product : products)
+            {
+                add(new Entry(product, unitsSold.getOrDefault(product.getProductId(), 0)), false);
+            }
+            root.publishAll();
+            ready = true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return slotByProductId.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} (at most {@value #MAX_SUGGESTIONS}) products with a name word starting with the
+     * prefix, best first. Matching ignores case and repeated whitespace.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit)
+    {
+        if (!ready)
+        {
+            throw new ServiceUnavailableException("Product suggestions are still loading. Please try again shortly.", 5);
+        }
+
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit < 1)
+        {
+            return Collections.emptyList();
+        }
+        limit = Math.min(limit, MAX_SUGGESTIONS);
+
+        lock.readLock().lock();
+        try
+        {
+            Node node = root;
+            while (node.depth < key.length())
+            {
+                Node child = node.child(key.charAt(node.depth));
+                if (child == null)
+                {
+                    return Collections.emptyList();
+                }
+                if (child.bucket)
+                {
+                    return scan(child, key, limit);
+                }
+                node = child;
+            }
+
+            List<ProductSuggestion> suggestions = node.suggestions;
+            return suggestions.size() <= limit ? suggestions : suggestions.subList(0, limit);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            // an update keeps the sales figure; only the name and featured flag come from the product
+            Entry previous = remove(product.getProductId());
+            add(new Entry(product, previous != null ? previous.popularity : 0), true);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            remove(productId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lower case, runs of whitespace as a single space, no leading whitespace. A trailing space is kept, so
+     * "red " only matches names where "red" is a whole word.
+     */
+    static String normalize(String text)
+    {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c))
+            {
+                if (!space)
+                {
+                    normalized.append(' ');
+                    space = true;
+                }
+            }
+            else
+            {
+                normalized.append(c);
+                space = false;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // callers hold the write lock
+    private void add(Entry entry, boolean publish)
+    {
+        int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : entryCount++;
+        if (slot == entries.length)
+        {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[slot] = entry;
+        slotByProductId.put(entry.suggestion.getProductId(), slot);
+
+        String key = entry.key;
+        for (int offset = 0; offset < key.length(); offset++)
+        {
+            if (isWordStart(key, offset))
+            {
+                insert(root, entry, offset, publish);
+            }
+        }
+    }
+
+    // callers hold the write lock
+    private Entry remove(int productId)
+    {
+        int slot = slotByProductId.get(productId, -1);
+        if (slot < 0)
+        {
+            return null;
+        }
+        Entry entry = entries[slot];
+        entries[slot] = null;
+        slotByProductId.remove(productId);
+        if (freeSlotCount == freeSlots.length)
+        {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+
+        List<Node> changed = new ArrayList<>();
+        String key = entry.key;
+        for (int offset = 0; offset < key.length(); offset++)
+        {
+            if (isWordStart(key, offset))
+            {
+                removeKey(entry, offset, changed);
+            }
+        }
+
+        // deepest first, so each list is rebuilt from children that are already up to date
+        changed.sort(Comparator.comparingInt((Node node) -> node.depth).reversed());
+        for (Node node : changed)
+        {
+            node.recomputeTop();
+            node.publish();
+        }
+        return entry;
+    }
+
+    private void insert(Node node, Entry entry, int offset, boolean publish)
+    {
+        int length = entry.key.length() - offset;
+        while (true)
+        {
+            if (node.offerTop(entry) && publish)
+            {
+                node.publish();
+            }
+            if (length == node.depth)
+            {
+                node.addKey(entry, offset);
+                return;
+            }
+
+            char label = entry.key.charAt(offset + node.depth);
+            Node child = node.child(label);
+            if (child == null)
+            {
+                child = Node.bucket(node.depth + 1);
+                node.addChild(label, child);
+            }
+            if (child.bucket)
+            {
+                child.addKey(entry, offset);
+                if (child.keyCount > BUCKET_CAPACITY)
+                {
+                    burst(child, publish);
+                }
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // turns a full bucket into a trie node, redistributing its keys into buckets one character further down
+    private void burst(Node bucket, boolean publish)
+    {
+        Entry[] keyEntries = bucket.keyEntries;
+        int[] keyOffsets = bucket.keyOffsets;
+        int keyCount = bucket.keyCount;
+        bucket.becomeTrie();
+
+        for (int i = 0; i < keyCount; i++)
+        {
+            insert(bucket, keyEntries[i], keyOffsets[i], false);
+        }
+        if (publish)
+        {
+            bucket.publishAll();
+        }
+    }
+
+    private void removeKey(Entry entry, int offset, List<Node> changed)
+    {
+        int length = entry.key.length() - offset;
+        Node node = root;
+        while (true)
+        {
+            if (node.inTop(entry) && !changed.contains(node))
+            {
+                changed.add(node);
+            }
+            if (length == node.depth)
+            {
+                node.removeKey(entry, offset);
+                return;
+            }
+
+            char label = entry.key.charAt(offset + node.depth);
+            Node child = node.child(label);
+            if (child == null)
+            {
+                return;
+            }
+            if (child.bucket)
+            {
+                child.removeKey(entry, offset);
+                if (child.keyCount == 0)
+                {
+                    node.removeChild(label);
+                }
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private static List<ProductSuggestion> scan(Node bucket, String key, int limit)
+    {
+        Entry[] best = new Entry[limit];
+        int size = 0;
+        int matched = bucket.depth;
+        int remaining = key.length() - matched;
+        for (int i = 0; i < bucket.keyCount; i++)
+        {
+            Entry entry = bucket.keyEntries[i];
+            int offset = bucket.keyOffsets[i];
+            if (entry.key.regionMatches(offset + matched, key, matched, remaining))
+            {
+                size = offer(best, size, entry);
+            }
+        }
+
+        List<ProductSuggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            suggestions.add(best[i].suggestion);
+        }
+        return suggestions;
+    }
+
+    // keeps best[0..size) sorted best first and free of duplicates; returns the new size
+    private static int offer(Entry[] best, int size, Entry entry)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (best[i] == entry)
+            {
+                return size;
+            }
+        }
+        if (size == best.length && entry.compareTo(best[size - 1]) >= 0)
+        {
+            return size;
+        }
+
+        int position = Math.min(size, best.length - 1);
+        while (position > 0 && entry.compareTo(best[position - 1]) < 0)
+        {
+            best[position] = best[position - 1];
+            position--;
+        }
+        best[position] = entry;
+        return Math.min(size + 1, best.length);
+    }
+
+    // a letter or digit that does not continue a word; an apostrophe joins ("men's" has no word "s")
+    private static boolean isWordStart(String key, int offset)
+    {
+        if (!Character.isLetterOrDigit(key.charAt(offset)))
+        {
+            return false;
+        }
+        if (offset == 0)
+        {
+            return true;
+        }
+        char previous = key.charAt(offset - 1);
+        return !Character.isLetterOrDigit(previous) && previous != '\'';
+    }
+
+    // ordered best first: featured, then more units sold, then lower product id
+    private static final class Entry implements Comparable<Entry>
+    {
+        private final ProductSuggestion suggestion;
+        private final String key;
+        private final boolean featured;
+        private final int popularity;
+
+        private Entry(Product product, int popularity)
+        {
+            this.suggestion = new ProductSuggestion(product.getProductId(), product.getName());
+            this.key = normalize(product.getName() == null ? "" : product.getName());
+            this.featured = product.isFeatured();
+            this.popularity = popularity;
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            if (featured != other.featured)
+            {
+                return featured ? -1 : 1;
+            }
+            if (popularity != other.popularity)
+            {
+                return Integer.compare(other.popularity, popularity);
+            }
+            return Integer.compare(suggestion.getProductId(), other.suggestion.getProductId());
+        }
+    }
+
+    /**
+     * A trie node holds the keys that end exactly at its depth, children by next character, and its best
+     * entries. A bucket holds every key below its prefix and nothing precomputed.
+     */
+    private static final class Node
+    {
+        private final int depth;
+        private boolean bucket;
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        private Entry[] keyEntries = new Entry[4];
+        private int[] keyOffsets = new int[4];
+        private int keyCount;
+
+        private Entry[] top;
+        private int topSize;
+        private List<ProductSuggestion> suggestions;
+
+        private Node(int depth, boolean bucket)
+        {
+            this.depth = depth;
+            this.bucket = bucket;
+        }
+
+        private static Node trie(int depth)
+        {
+            Node node = new Node(depth, true);
+            node.becomeTrie();
+            return node;
+        }
+
+        private static Node bucket(int depth)
+        {
+            return new Node(depth, true);
+        }
+
+        private void becomeTrie()
+        {
+            bucket = false;
+            keyEntries = new Entry[4];
+            keyOffsets = new int[4];
+            keyCount = 0;
+            top = new Entry[MAX_SUGGESTIONS];
+            topSize = 0;
+            suggestions = Collections.emptyList();
+        }
+
+        private Node child(char label)
+        {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private void addChild(char label, Node child)
+        {
+            int index = -Arrays.binarySearch(labels, 0, childCount, label) - 1;
+            if (childCount == labels.length)
+            {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            labels[index] = label;
+            children[index] = child;
+            childCount++;
+        }
+
+        private void removeChild(char label)
+        {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index < 0)
+            {
+                return;
+            }
+            System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        private void addKey(Entry entry, int offset)
+        {
+            if (keyCount == keyEntries.length)
+            {
+                keyEntries = Arrays.copyOf(keyEntries, keyCount * 2);
+                keyOffsets = Arrays.copyOf(keyOffsets, keyCount * 2);
+            }
+            keyEntries[keyCount] = entry;
+            keyOffsets[keyCount] = offset;
+            keyCount++;
+        }
+
+        private void removeKey(Entry entry, int offset)
+        {
+            for (int i = 0; i < keyCount; i++)
+            {
+                if (keyEntries[i] == entry && keyOffsets[i] == offset)
+                {
+                    keyCount--;
+                    keyEntries[i] = keyEntries[keyCount];
+                    keyOffsets[i] = keyOffsets[keyCount];
+                    keyEntries[keyCount] = null;
+                    return;
+                }
+            }
+        }
+
+        // true if the entry made it into the best list
+        private boolean offerTop(Entry entry)
+        {
+            int before = topSize;
+            Entry last = topSize > 0 ? top[topSize - 1] : null;
+            topSize = offer(top, topSize, entry);
+            return topSize != before || top[topSize - 1] != last;
+        }
+
+        private boolean inTop(Entry entry)
+        {
+            for (int i = 0; i < topSize; i++)
+            {
+                if (top[i] == entry)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void recomputeTop()
+        {
+            Arrays.fill(top, null);
+            topSize = 0;
+            for (int i = 0; i < keyCount; i++)
+            {
+                topSize = offer(top, topSize, keyEntries[i]);
+            }
+            for (int c = 0; c < childCount; c++)
+            {
+                Node child = children[c];
+                if (child.bucket)
+                {
+                    for (int i = 0; i < child.keyCount; i++)
+                    {
+                        topSize = offer(top, topSize, child.keyEntries[i]);
+                    }
+                }
+                else
+                {
+                    for (int i = 0; i < child.topSize; i++)
+                    {
+                        topSize = offer(top, topSize, child.top[i]);
+                    }
+                }
+            }
+        }
+
+        private void publish()
+        {
+            ProductSuggestion[] ranked = new ProductSuggestion[topSize];
+            for (int i = 0; i < topSize; i++)
+            {
+                ranked[i] = top[i].suggestion;
+            }
+            suggestions = Collections.unmodifiableList(Arrays.asList(ranked));
+        }
+
+        private void publishAll()
+        {
+            publish();
+            for (int c = 0; c < childCount; c++)
+            {
+                if (!children[c].bucket)
+                {
+                    children[c].publishAll();
+                }
+            }
+        }
+    }
+}
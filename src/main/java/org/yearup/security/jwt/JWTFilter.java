@@ -2,10 +2,13 @@ package org.yearup.security.jwt;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
+import org.yearup.logging.LogFields;
+import org.yearup.monitoring.RequestTimings;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -34,17 +37,25 @@ public class JWTFilter extends GenericFilterBean {
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+        RequestTimings timings = RequestTimings.current();
+        long start = timings != null ? System.nanoTime() : 0;
+
         String jwt = resolveToken(httpServletRequest);
         String requestURI = httpServletRequest.getRequestURI();
 
         if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
             Authentication authentication = tokenProvider.getAuthentication(jwt);
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            MDC.put(LogFields.USER_ID, authentication.getName());
             LOG.debug("set Authentication to custom security context for '{}', uri: {}", authentication.getName(), requestURI);
         } else {
             LOG.debug("no valid JWT token found, uri: {}", requestURI);
         }
 
+        if (timings != null) {
+            timings.add(RequestTimings.Phase.AUTH, System.nanoTime() - start);
+        }
+
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
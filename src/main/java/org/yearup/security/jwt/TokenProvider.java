@@ -10,6 +10,8 @@ import io.jsonwebtoken.MalformedJwtException; // For specific exception handling
 import io.jsonwebtoken.UnsupportedJwtException; // For specific exception handling
 import io.jsonwebtoken.security.SecurityException; // For specific exception handling
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -33,6 +35,7 @@ public class TokenProvider implements InitializingBean {
     private final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
+    private static final String VALIDATION_METRIC = "easyshop.jwt.validations";
 
     // This will hold the secret string value from application.properties
     private final String secretString;
@@ -41,13 +44,34 @@ public class TokenProvider implements InitializingBean {
     // This will hold the actual java.security.Key object used for signing/verification
     private Key key;
 
+    // One counter per validateToken outcome, registered up front so the hot path only increments
+    private final Counter validTokens;
+    private final Counter invalidSignatures;
+    private final Counter expiredTokens;
+    private final Counter unsupportedTokens;
+    private final Counter emptyTokens;
+
     // Constructor to inject properties from application.properties
     public TokenProvider(
             @Value("${jwt.secret}") String secretString, // Inject the secret string
-            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds)
+            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds,
+            MeterRegistry meterRegistry)
     {
         this.secretString = secretString;
         this.tokenTimeout = tokenTimeoutSeconds * 1000; // Convert to milliseconds
+
+        this.validTokens = validationCounter(meterRegistry, "valid");
+        this.invalidSignatures = validationCounter(meterRegistry, "invalid_signature");
+        this.expiredTokens = validationCounter(meterRegistry, "expired");
+        this.unsupportedTokens = validationCounter(meterRegistry, "unsupported");
+        this.emptyTokens = validationCounter(meterRegistry, "empty");
+    }
+
+    private static Counter validationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(VALIDATION_METRIC)
+                .description("JWT validations by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -106,14 +130,19 @@ public class TokenProvider implements InitializingBean {
     public boolean validateToken(String authToken) {
         try {
             Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken); // Use the 'key' initialized from properties
+            validTokens.increment();
             return true;
         } catch (SecurityException | MalformedJwtException e) {
+            invalidSignatures.increment();
             logger.info("Invalid JWT signature.", e); // Log the specific type of exception
         } catch (ExpiredJwtException e) {
+            expiredTokens.increment();
             logger.info("Expired JWT token.", e);
         } catch (UnsupportedJwtException e) {
+            unsupportedTokens.increment();
             logger.info("Unsupported JWT token.", e);
         } catch (IllegalArgumentException e) {
+            emptyTokens.increment();
             logger.info("JWT token compact of handler are invalid.", e);
         }
         return false;
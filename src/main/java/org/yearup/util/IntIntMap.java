@@ -0,0 +1,159 @@
+package org.yearup.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from int to int, for indexes with millions of entries where a
+ * {@code HashMap<Integer, Integer>} would spend most of its memory on boxes and entry objects.
+ * <p>
+ * {@link Integer#MIN_VALUE} marks empty slots and cannot be used as a key. Not thread-safe.
+ */
+public final class IntIntMap
+{
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean containsKey(int key)
+    {
+        return keys[slot(key)] != EMPTY;
+    }
+
+    public int get(int key, int missing)
+    {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? missing : values[slot];
+    }
+
+    public void put(int key, int value)
+    {
+        if (key == EMPTY)
+        {
+            throw new IllegalArgumentException("Integer.MIN_VALUE cannot be used as a key");
+        }
+
+        int slot = slot(key);
+        if (keys[slot] == EMPTY)
+        {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        if (size * 2 > keys.length)
+        {
+            grow();
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key}, starting from zero if it is not there yet.
+     */
+    public int addTo(int key, int delta)
+    {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY)
+        {
+            put(key, delta);
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    public void remove(int key)
+    {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY)
+        {
+            return;
+        }
+        keys[slot] = EMPTY;
+        size--;
+
+        // shift later entries of the same probe run back, so lookups never stop early at the hole
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY)
+        {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask))
+            {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                keys[next] = EMPTY;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer
+    {
+        void accept(int key, int value);
+    }
+
+    public void forEach(EntryConsumer consumer)
+    {
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != EMPTY)
+            {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(int key)
+    {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow()
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != EMPTY)
+            {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package org.yearup.caching;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.yearup.data.CatalogVersion;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogResponseCacheFilterTest
+{
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    @Test
+    public void cachedBodies_shouldStayWithinTheirBytes_droppingTheLeastRecentlyServed() throws Exception
+    {
+        // room for two of these responses, not three
+        CatalogResponseCacheFilter filter = new CatalogResponseCacheFilter(new CatalogVersion(), 3000, new SimpleMeterRegistry());
+
+        get(filter, "1");
+        get(filter, "2");
+        get(filter, "1");
+        get(filter, "3");
+        assertEquals(3, rendered.get());
+
+        // 2 was served least recently, so 3 pushed it out
+        get(filter, "1");
+        get(filter, "3");
+        assertEquals(3, rendered.get());
+        get(filter, "2");
+        assertEquals(4, rendered.get());
+    }
+
+    @Test
+    public void key_shouldOnlyHold_theParametersTheEndpointReads()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addParameter("utm_source", "mail");
+        request.addParameter("color", "Red");
+        request.addParameter("ids", "3", "1");
+        request.addParameter("cat", "1");
+
+        assertEquals("/products?cat=1&color=Red&ids=3&ids=1", CatalogResponseCacheFilter.key(request));
+    }
+
+    private void get(CatalogResponseCacheFilter filter, String category) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addParameter("cat", category);
+        FilterChain chain = (req, res) -> {
+            rendered.incrementAndGet();
+            byte[] body = new byte[1000];
+            Arrays.fill(body, (byte) 'a');
+            res.setContentType("application/json");
+            res.getOutputStream().write(body);
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(1000, response.getContentAsString(StandardCharsets.UTF_8).length());
+    }
+}
@@ -0,0 +1,112 @@
+package org.yearup.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-thread tally of the JDBC work done through a {@link QueryCountingDataSource}.
+ * <p>
+ * MockMvc runs the whole request on the calling thread, so wrapping a request in {@link #measure(Action)}
+ * captures exactly the round trips that request made, even when test classes run in parallel.
+ *
+ * <pre>
+ * QueryCounter.measure(() -&gt; mvc.perform(get("/cart")).andExpect(status().isOk()))
+ *             .assertStatementsAtMost(2);
+ * </pre>
+ */
+public final class QueryCounter
+{
+    private static final ThreadLocal<Counts> CURRENT = ThreadLocal.withInitial(Counts::new);
+
+    private QueryCounter()
+    {
+    }
+
+    public static void reset()
+    {
+        CURRENT.set(new Counts());
+    }
+
+    public static Counts current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the action with fresh counters and returns what it did.
+     */
+    public static Counts measure(Action action) throws Exception
+    {
+        reset();
+        action.run();
+        Counts counts = current();
+        reset();
+        return counts;
+    }
+
+    static void connectionOpened()
+    {
+        CURRENT.get().connections++;
+    }
+
+    static void statementExecuted()
+    {
+        CURRENT.get().statements++;
+    }
+
+    static void rowFetched()
+    {
+        CURRENT.get().rows++;
+    }
+
+    @FunctionalInterface
+    public interface Action
+    {
+        void run() throws Exception;
+    }
+
+    public static class Counts
+    {
+        private int connections;
+        private int statements;
+        private int rows;
+
+        public int getConnections()
+        {
+            return connections;
+        }
+
+        public int getStatements()
+        {
+            return statements;
+        }
+
+        public int getRows()
+        {
+            return rows;
+        }
+
+        public Counts assertConnectionsAtMost(int max)
+        {
+            assertTrue(connections <= max, "Expected at most " + max + " connection checkouts but was " + this);
+            return this;
+        }
+
+        public Counts assertStatementsAtMost(int max)
+        {
+            assertTrue(statements <= max, "Expected at most " + max + " statements but was " + this);
+            return this;
+        }
+
+        public Counts assertRowsAtMost(int max)
+        {
+            assertTrue(rows <= max, "Expected at most " + max + " rows fetched but was " + this);
+            return this;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "{connections=" + connections + ", statements=" + statements + ", rows=" + rows + "}";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.yearup.configuration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every DataSource bean in a {@link QueryCountingDataSource} so endpoint tests can pin how many
+ * round trips a request makes.
+ */
+@TestConfiguration
+public class QueryCountingConfig
+{
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor()
+    {
+        return new BeanPostProcessor()
+        {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName)
+            {
+                if (bean instanceof DataSource && !(bean instanceof QueryCountingDataSource))
+                {
+                    return new QueryCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
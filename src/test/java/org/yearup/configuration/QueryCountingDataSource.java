@@ -0,0 +1,114 @@
+package org.yearup.configuration;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource wrapper that reports connection checkouts, executed statements and fetched rows to
+ * {@link QueryCounter}. Connections, statements and result sets are wrapped in JDK proxies so the DAOs
+ * under test run unchanged.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource
+{
+    public QueryCountingDataSource(DataSource targetDataSource)
+    {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        return countConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        return countConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countConnection(Connection connection)
+    {
+        QueryCounter.connectionOpened();
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof CallableStatement)
+            {
+                return countStatement(CallableStatement.class, (CallableStatement) result);
+            }
+            if (result instanceof PreparedStatement)
+            {
+                return countStatement(PreparedStatement.class, (PreparedStatement) result);
+            }
+            if (result instanceof Statement)
+            {
+                return countStatement(Statement.class, (Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T countStatement(Class<T> type, T statement)
+    {
+        return proxy(type, statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute"))
+            {
+                QueryCounter.statementExecuted();
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof ResultSet)
+            {
+                return countRows((ResultSet) result);
+            }
+            return result;
+        });
+    }
+
+    private static ResultSet countRows(ResultSet resultSet)
+    {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result))
+            {
+                QueryCounter.rowFetched();
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler)
+    {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    private interface Handler<T>
+    {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+}
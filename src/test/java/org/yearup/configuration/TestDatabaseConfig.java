@@ -1,86 +1,38 @@
 package org.yearup.configuration;
 
-import org.apache.ibatis.jdbc.ScriptRunner;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.yearup.configurations.EmbeddedSchema;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.Reader;
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
-@Configuration
+// @TestConfiguration keeps this out of the component scan used by @SpringBootTest
+@TestConfiguration
 public class TestDatabaseConfig
 {
-    private final String serverUrl;
-    private final String testDb;
-    private final String username;
-    private final String password;
-
-    @Autowired
-    public TestDatabaseConfig(@Value("${datasource.url}") String serverUrl,
-                              @Value("${datasource.username}") String username,
-                              @Value("${datasource.password}") String password,
-                              @Value("${datasource.testdb}") String testDb)
-    {
-        this.serverUrl = serverUrl;
-        this.testDb = testDb;
-        this.username = username;
-        this.password = password;
-    }
-
-    @PostConstruct
-    public void setup() {
-
-        try(Connection connection = DriverManager.getConnection(serverUrl + "/sys", username, password);
-            Statement statement = connection.createStatement();
-        )
-        {
-            statement.execute("DROP DATABASE IF EXISTS " + testDb + ";");
-            statement.execute("CREATE DATABASE " + testDb + ";");
-        }
-        catch (SQLException ignored) {}
-    }
+    private final String url = EmbeddedSchema.newDatabaseUrl("easyshop_test");
 
     @PreDestroy
-    public void cleanup() {
-
-        try(Connection connection = DriverManager.getConnection(serverUrl + "/sys", username, password);
-            Statement statement = connection.createStatement();
-        )
-        {
-            statement.execute("DROP DATABASE IF EXISTS " + testDb + ";");
-        }
-        catch (SQLException ignored){}
-
+    public void cleanup()
+    {
+        EmbeddedSchema.shutdown(url);
     }
 
-
     @Bean
-    public DataSource dataSource() throws SQLException, IOException
+    public DataSource dataSource() throws SQLException
     {
         SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
-        dataSource.setUrl(String.format("%s/%s", serverUrl, testDb));
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
+        dataSource.setUrl(url);
+        dataSource.setUsername(EmbeddedSchema.USERNAME);
+        dataSource.setPassword("");
         dataSource.setAutoCommit(false);
         dataSource.setSuppressClose(true);
 
-        ScriptRunner runner = new ScriptRunner(dataSource.getConnection());
-        Reader reader = new BufferedReader(new FileReader((new ClassPathResource("test-data.sql")).getFile().getAbsolutePath()));
-        runner.runScript(reader);
-        dataSource.getConnection().commit();
+        EmbeddedSchema.load(dataSource.getConnection(), new FileSystemResource("database/create_database.sql"));
 
         return dataSource;
     }
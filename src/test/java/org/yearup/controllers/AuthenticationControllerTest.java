@@ -0,0 +1,39 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.yearup.configuration.QueryCounter;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthenticationControllerTest extends BaseControllerTestClass
+{
+    @Test
+    public void login_shouldRun_twoStatements() throws Exception
+    {
+        // one lookup for authentication, one for the response body
+        QueryCounter.measure(() -> mvc.perform(post("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"user\", \"password\": \"password\"}"))
+                .andExpect(status().isOk()))
+                .assertConnectionsAtMost(2)
+                .assertStatementsAtMost(2);
+    }
+
+    @Test
+    public void register_shouldRun_threeStatements() throws Exception
+    {
+        String username = "budget-" + UUID.randomUUID().toString().substring(0, 8);
+        String body = "{\"username\": \"" + username + "\", \"password\": \"password\", " +
+                "\"confirmPassword\": \"password\", \"role\": \"USER\"}";
+
+        // exists check, user insert, profile insert
+        QueryCounter.measure(() -> mvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()))
+                .assertConnectionsAtMost(3)
+                .assertStatementsAtMost(3);
+    }
+}
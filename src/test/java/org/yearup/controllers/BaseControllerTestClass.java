@@ -0,0 +1,25 @@
+package org.yearup.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.yearup.configuration.QueryCountingConfig;
+
+/**
+ * Boots the whole application with a counting DataSource so each endpoint test can pin the number of
+ * database round trips its request is allowed to make.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+public abstract class BaseControllerTestClass
+{
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+}
@@ -0,0 +1,117 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.yearup.configuration.QueryCounter;
+import org.yearup.models.Category;
+import org.yearup.search.ProductLeaderboards;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CategoriesControllerTest extends BaseControllerTestClass
+{
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductLeaderboards productLeaderboards;
+
+    @Test
+    public void getAll_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/categories")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1);
+    }
+
+    @Test
+    public void getById_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/categories/1")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1)
+                .assertRowsAtMost(1);
+    }
+
+    @Test
+    public void getProductsById_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/categories/1/products")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1);
+    }
+
+    @Test
+    public void getAllWithProducts_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/categories")
+                                .param("include", "products")
+                                .param("productLimit", "2")
+                                .param("fields", "name,featured"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[0].categoryId").value(1))
+                        .andExpect(jsonPath("$[0].products.length()").value(2))
+                        .andExpect(jsonPath("$[0].products[0].featured").value(true))
+                        .andExpect(jsonPath("$[0].products[0].price").doesNotExist())
+                        .andExpect(jsonPath("$[1].products.length()").value(2)))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1);
+
+        mvc.perform(get("/categories").param("include", "products").param("productOrder", "price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].products[0].price").isNumber())
+                .andExpect(jsonPath("$[0].products[0].description").isString());
+        mvc.perform(get("/categories").param("include", "reviews")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void topSellers_shouldFollowNewOrders_withoutTheDatabase() throws Exception
+    {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO orders (order_id, user_id, date, address, city, state, zip) " +
+                "VALUES (9001, 1, NOW(), '1 Main St', 'Dallas', 'TX', '75001')");
+        jdbc.update("INSERT INTO order_line_items (order_id, product_id, sales_price, quantity) VALUES (9001, 2, 10, 3)");
+        jdbc.update("INSERT INTO order_line_items (order_id, product_id, sales_price, quantity) VALUES (9001, 1, 10, 1)");
+        productLeaderboards.pollSales();
+
+        QueryCounter.measure(() -> mvc.perform(get("/categories/1/top-sellers").param("fields", "name"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[0].productId").value(2))
+                        .andExpect(jsonPath("$[1].productId").value(1))
+                        .andExpect(jsonPath("$[0].price").doesNotExist()))
+                .assertConnectionsAtMost(0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void adminWrites_shouldStay_withinTheirBudgets() throws Exception
+    {
+        String body = objectMapper.writeValueAsString(new Category(0, "Budget Category", "Temporary."));
+        String[] location = new String[1];
+
+        QueryCounter.measure(() -> {
+            String json = mvc.perform(post("/categories").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            location[0] = "/categories/" + objectMapper.readValue(json, Category.class).getCategoryId();
+        }).assertStatementsAtMost(1);
+
+        QueryCounter.measure(() -> mvc.perform(put(location[0]).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk()))
+                .assertStatementsAtMost(1);
+
+        // existence check, then delete
+        QueryCounter.measure(() -> mvc.perform(delete(location[0])).andExpect(status().isNoContent()))
+                .assertStatementsAtMost(2);
+    }
+}
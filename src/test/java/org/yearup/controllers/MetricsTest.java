@@ -0,0 +1,33 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMetrics
+@TestPropertySource(properties = "management.endpoints.web.exposure.include=prometheus")
+class MetricsTest extends BaseControllerTestClass
+{
+    @Test
+    public void prometheus_shouldExpose_endpointDaoJwtAndPoolMetrics() throws Exception
+    {
+        mvc.perform(get("/products")).andExpect(status().isOk());
+        mvc.perform(get("/cart").header("Authorization", "Bearer not-a-token")).andExpect(status().isUnauthorized());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds_count{"),
+                        containsString("uri=\"/products\""),
+                        containsString("dao=\"MySqlProductDao\""),
+                        containsString("method=\"search\""),
+                        containsString("easyshop_jwt_validations_total{outcome=\"invalid_signature\""),
+                        containsString("jdbc_connections_active"))));
+    }
+}
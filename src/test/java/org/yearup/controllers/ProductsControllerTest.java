@@ -0,0 +1,430 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.yearup.configuration.QueryCounter;
+import org.yearup.data.stats.ProductCounters;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.search.ProductRecommendations;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductsControllerTest extends BaseControllerTestClass
+{
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductCounters productCounters;
+
+    @Autowired
+    private ProductRecommendations productRecommendations;
+
+    @Test
+    public void getAllProducts_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1);
+    }
+
+    @Test
+    public void getProductById_shouldRun_oneStatement() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products/1")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1)
+                .assertRowsAtMost(1);
+    }
+
+    @Test
+    public void revalidation_shouldAnswer304_fromTheVersionAlone() throws Exception
+    {
+        String etag = mvc.perform(get("/products/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        QueryCounter.measure(() -> mvc.perform(get("/products/2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+                .andExpect(content().string("")))
+                .assertStatementsAtMost(1)
+                .assertRowsAtMost(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void update_shouldChange_theETag() throws Exception
+    {
+        Product product = new Product(0, "Versioned Widget", Money.parse("4.99"), 1, "A widget.", "Blue", 5, false, "widget.jpg");
+        String json = mvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String location = "/products/" + objectMapper.readValue(json, Product.class).getProductId();
+
+        String before = mvc.perform(get(location)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        product.setStock(4);
+        mvc.perform(put(location).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isNoContent());
+
+        // the same rules as PATCH, import and bulk adjust
+        product.setStock(-1);
+        mvc.perform(put(location).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isBadRequest());
+        product.setStock(4);
+        product.setCategoryId(999);
+        mvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isBadRequest());
+
+        String after = mvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void search_shouldBeServed_fromTheIndex() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products/search?q=smartphones&cat=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Smartphone")))
+                .assertConnectionsAtMost(0);
+
+        mvc.perform(get("/products/search").param("q", " ")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void suggest_shouldMatchWordStarts_withoutTheDatabase() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products/suggest").param("prefix", "  SHIRT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Men's T-Shirt")))
+                .assertConnectionsAtMost(0);
+
+        mvc.perform(get("/products/suggest").param("prefix", "smart").param("limit", "11")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void featured_shouldBeServed_withoutTheDatabase() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products/featured").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].featured").value(true))
+                .andExpect(jsonPath("$[2].featured").value(true)))
+                .assertConnectionsAtMost(0);
+
+        mvc.perform(get("/products/featured").param("limit", "21")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void facets_shouldBeCounted_withoutTheDatabase() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products/facets?cat=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").isNumber())
+                .andExpect(jsonPath("$.categories['2']").isNumber())
+                .andExpect(jsonPath("$.prices[0].min").value(0.0)))
+                .assertConnectionsAtMost(0);
+    }
+
+    @Test
+    public void fields_shouldNarrowTheResponse() throws Exception
+    {
+        String full = mvc.perform(get("/products")).andReturn().getResponse().getContentAsString();
+        String grid = mvc.perform(get("/products").param("fields", "name,price,imageUrl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productId").isNumber())
+                .andExpect(jsonPath("$[0].imageUrl").isString())
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].stock").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(grid.length() * 2 < full.length(), "grid " + grid.length() + " bytes, full " + full.length());
+
+        mvc.perform(get("/products/1").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Smartphone"))
+                .andExpect(jsonPath("$.price").doesNotExist());
+
+        mvc.perform(get("/products").param("fields", "name,secret")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getByIds_shouldRun_oneStatement_inTheOrderAsked() throws Exception
+    {
+        QueryCounter.measure(() -> mvc.perform(get("/products").param("ids", "3,1,999999,2,3"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.length()").value(3))
+                        .andExpect(jsonPath("$[0].productId").value(3))
+                        .andExpect(jsonPath("$[1].productId").value(1))
+                        .andExpect(jsonPath("$[2].productId").value(2)))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(1)
+                .assertRowsAtMost(3);
+
+        mvc.perform(get("/products").param("ids", "1,2").param("cat", "1")).andExpect(status().isBadRequest());
+        mvc.perform(get("/products").param("ids", "1,x")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void views_shouldBeCounted_withoutWritingPerView() throws Exception
+    {
+        QueryCounter.measure(() -> {
+            mvc.perform(get("/products/11")).andExpect(status().isOk());
+            mvc.perform(get("/products/11")).andExpect(status().isOk());
+        }).assertStatementsAtMost(2);
+
+        mvc.perform(get("/products/11/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.views").value(2));
+
+        productCounters.flush();
+        mvc.perform(get("/products/11")).andExpect(status().isOk());
+        productCounters.flush();
+        mvc.perform(get("/products/11/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.views").value(3))
+                .andExpect(jsonPath("$.cartAdds").value(0));
+        mvc.perform(get("/products/999999/stats")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void related_shouldFollowNewOrders_withoutTheDatabase() throws Exception
+    {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (int orderId = 9002; orderId <= 9004; orderId++)
+        {
+            jdbc.update("INSERT INTO orders (order_id, user_id, date, address, city, state, zip) " +
+                    "VALUES (?, 1, NOW(), '1 Main St', 'Dallas', 'TX', '75001')", orderId);
+            jdbc.update("INSERT INTO order_line_items (order_id, product_id, sales_price, quantity) VALUES (?, 25, 10, 1)", orderId);
+            jdbc.update("INSERT INTO order_line_items (order_id, product_id, sales_price, quantity) VALUES (?, ?, 10, 1)",
+                    orderId, orderId == 9004 ? 28 : 27);
+        }
+        productRecommendations.pollSales();
+
+        QueryCounter.measure(() -> mvc.perform(get("/products/25/related").param("fields", "name"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.length()").value(2))
+                        .andExpect(jsonPath("$[0].productId").value(27))
+                        .andExpect(jsonPath("$[1].productId").value(28))
+                        .andExpect(jsonPath("$[0].price").doesNotExist()))
+                .assertConnectionsAtMost(0);
+
+        mvc.perform(get("/products/999999/related")).andExpect(status().isNotFound());
+        mvc.perform(get("/products/25/related").param("limit", "11")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void import_shouldWrite_inBatches_andReportBadRows() throws Exception
+    {
+        StringBuilder csv = new StringBuilder("name,price,categoryId,stock,color\n");
+        for (int i = 1; i <= 1200; i++)
+        {
+            csv.append("Imported Lamp ").append(i).append(",19.99,3,4,Teal\n");
+        }
+        csv.append("Imported Chair,-5,3,1,Teal\n");
+        csv.append("Imported Table,5,999,1,Teal\n");
+
+        // the category ids, then 1200 inserts as three batches in one transaction
+        QueryCounter.measure(() -> mvc.perform(post("/products/import").contentType("text/csv").content(csv.toString()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.created").value(1200))
+                        .andExpect(jsonPath("$.rejected").value(2))
+                        .andExpect(jsonPath("$.errors[0].line").value(1202))
+                        .andExpect(jsonPath("$.errors[1].message").value("No category with ID 999.")))
+                .assertConnectionsAtMost(2)
+                .assertStatementsAtMost(4);
+
+        int lampId = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT product_id FROM products WHERE name = 'Imported Lamp 7'", Integer.class);
+        String ndjson = "{\"productId\": " + lampId + ", \"name\": \"Imported Lamp 7\", \"price\": 17.50, \"categoryId\": 3}\n" +
+                "{\"productId\": 999999, \"name\": \"Nothing\", \"price\": 1, \"categoryId\": 3}\n" +
+                "{\"name\": \n" +
+                "null\n";
+
+        mvc.perform(post("/products/import").contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("No product with ID 999999."))
+                .andExpect(jsonPath("$.errors[1].line").value(3))
+                .andExpect(jsonPath("$.errors[2].line").value(4))
+                .andExpect(jsonPath("$.errors[2].message").value("Not a valid product: expected a JSON object, not null."));
+
+        mvc.perform(get("/products/" + lampId)).andExpect(jsonPath("$.price").value(17.5));
+        mvc.perform(post("/products/import").contentType("text/csv").content("name,sku\n")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void patch_shouldWrite_onlyTheGivenColumns_andCheckIfMatch() throws Exception
+    {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        String description = jdbc.queryForObject("SELECT description FROM products WHERE product_id = 50", String.class);
+        String etag = mvc.perform(get("/products/50")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // the UPDATE of stock alone, then the row read back
+        String[] patched = new String[1];
+        QueryCounter.measure(() -> patched[0] = mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON)
+                                .header(HttpHeaders.IF_MATCH, etag)
+                                .content("{\"stock\": 3}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.stock").value(3))
+                        .andExpect(jsonPath("$.description").value(description))
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(2);
+        assertNotEquals(etag, patched[0]);
+
+        // someone else's write came first
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .content("{\"stock\": 4}"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(get("/products/50")).andExpect(jsonPath("$.stock").value(3));
+
+        // any tag of a list may match, and nothing matches a product that is not there
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, etag + ", " + patched[0])
+                        .content("{\"stock\": 3}"))
+                .andExpect(status().isOk());
+        mvc.perform(patch("/products/999999").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .content("{\"stock\": 1}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"color\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.color").doesNotExist());
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"productId\": 7}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"stock\": -1}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/products/999999").contentType(MediaType.APPLICATION_JSON).content("{\"stock\": 1}"))
+                .andExpect(status().isNotFound());
+
+        // the same column sizes and categories the importer checks
+        String longName = String.join("", Collections.nCopies(101, "a"));
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"" + longName + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("name is longer than 100 characters."));
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"price\": 100000000}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/products/50").contentType(MediaType.APPLICATION_JSON).content("{\"categoryId\": 999}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("No category with ID 999."));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void bulkAdjust_shouldChange_priceAndStock_setBased() throws Exception
+    {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        BigDecimal price = jdbc.queryForObject("SELECT price FROM products WHERE product_id = 40", BigDecimal.class);
+        String name = jdbc.queryForObject("SELECT name FROM products WHERE product_id = 40", String.class);
+        double raised = price.multiply(new BigDecimal("1.10")).setScale(2, RoundingMode.HALF_UP).doubleValue();
+
+        // the matching ids locked, one UPDATE of those ids, then one SELECT of the changed rows for the in-memory views
+        QueryCounter.measure(() -> mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"productIds\": [40, 41], \"pricePercent\": 10, \"stockChange\": -100000}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.updated").value(2))
+                        .andExpect(jsonPath("$.notFound.length()").value(0)))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(3);
+
+        mvc.perform(get("/products/40"))
+                .andExpect(jsonPath("$.price").value(raised))
+                .andExpect(jsonPath("$.stock").value(0));
+        mvc.perform(get("/products/search").param("q", name).param("fields", "productId,price"))
+                .andExpect(jsonPath("$[?(@.productId == 40)].price", hasItem(raised)));
+
+        // a batch per statement shape, then one read of the changed rows
+        QueryCounter.measure(() -> mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"prices\": {\"40\": 12.34}, \"stock\": {\"41\": 7, \"999999\": 3}}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.updated").value(2))
+                        .andExpect(jsonPath("$.notFound[0]").value(999999)))
+                .assertConnectionsAtMost(1)
+                .assertStatementsAtMost(3);
+
+        mvc.perform(get("/products/41")).andExpect(jsonPath("$.stock").value(7));
+        mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON).content("{\"pricePercent\": 10}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON).content("{\"productIds\": [null], \"stockChange\": 1}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON).content("{\"prices\": {\"40\": 100000000}}"))
+                .andExpect(status().isBadRequest());
+
+        // a change that would overflow DECIMAL(10, 2) stops at its largest price
+        mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIds\": [40], \"priceChange\": 1000000000}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+        mvc.perform(get("/products/40")).andExpect(jsonPath("$.price").value(99999999.99));
+        mvc.perform(post("/products/bulk-adjust").contentType(MediaType.APPLICATION_JSON).content("{\"prices\": {\"40\": 12.34}}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getMissingProduct_shouldReturn_404WithMessage() throws Exception
+    {
+        mvc.perform(get("/products/999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.message").value("Product not found with ID: 999999"))
+                .andExpect(jsonPath("$.path").value("/products/999999"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void adminWrites_shouldStay_withinTheirBudgets() throws Exception
+    {
+        Product product = new Product(0, "Budget Widget", Money.parse("9.99"), 1, "A widget.", "Red", 5, false, "widget.jpg");
+        String body = objectMapper.writeValueAsString(product);
+        String[] location = new String[1];
+
+        // category check, insert, then read the new row back
+        QueryCounter.measure(() -> {
+            String json = mvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            location[0] = "/products/" + objectMapper.readValue(json, Product.class).getProductId();
+        }).assertStatementsAtMost(3);
+
+        // category check, existence check, then update
+        QueryCounter.measure(() -> mvc.perform(put(location[0]).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNoContent()))
+                .assertStatementsAtMost(3);
+
+        // existence check, then delete
+        QueryCounter.measure(() -> mvc.perform(delete(location[0])).andExpect(status().isNoContent()))
+                .assertStatementsAtMost(2);
+    }
+}
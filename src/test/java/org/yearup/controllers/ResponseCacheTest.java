@@ -0,0 +1,80 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.StreamUtils;
+import org.yearup.configuration.QueryCounter;
+import org.yearup.models.Category;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// its own context, so catalog writes made by other test classes do not invalidate this one's cache
+@TestPropertySource(properties = "easyshop.response-cache.max-size=1MB")
+class ResponseCacheTest extends BaseControllerTestClass
+{
+    @Test
+    public void repeatedSearch_shouldBeServed_withoutTouchingTheDatabase() throws Exception
+    {
+        String first = mvc.perform(get("/products?color=Red&cat=1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] second = new String[1];
+        QueryCounter.measure(() -> second[0] = mvc.perform(get("/products?cat=1&color=Red"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn().getResponse().getContentAsString())
+                .assertConnectionsAtMost(0);
+
+        assertEquals(first, second[0]);
+
+        // a parameter the endpoint does not read does not make a new entry
+        QueryCounter.measure(() -> mvc.perform(get("/products?cat=1&color=Red&utm_source=mail")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(0);
+    }
+
+    @Test
+    public void cachedResponse_shouldBeGzipped_whenTheClientAcceptsIt() throws Exception
+    {
+        String plain = mvc.perform(get("/categories/2/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] gzipped = mvc.perform(get("/categories/2/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] unzipped = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+        assertEquals(plain, new String(unzipped, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void catalogWrite_shouldInvalidate_cachedResponses() throws Exception
+    {
+        mvc.perform(get("/categories")).andExpect(status().isOk());
+        QueryCounter.measure(() -> mvc.perform(get("/categories")).andExpect(status().isOk()))
+                .assertConnectionsAtMost(0);
+
+        String body = objectMapper.writeValueAsString(new Category(0, "Cache Buster", "Temporary."));
+        mvc.perform(post("/categories").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+
+        mvc.perform(get("/categories"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Cache Buster")));
+    }
+}
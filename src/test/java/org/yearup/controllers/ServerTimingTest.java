@@ -0,0 +1,29 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "easyshop.server-timing.enabled=true")
+class ServerTimingTest extends BaseControllerTestClass
+{
+    @Test
+    public void getProducts_shouldReport_everyPhase() throws Exception
+    {
+        mvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("[{")))
+                .andExpect(header().string("Server-Timing", containsString("auth;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("db-borrow;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("sql;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("mapping;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("serialize;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
+    }
+}
@@ -0,0 +1,136 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.yearup.configuration.QueryCounter;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.data.UserDao;
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(username = ShoppingCartControllerTest.USERNAME)
+class ShoppingCartControllerTest extends BaseControllerTestClass
+{
+    static final String USERNAME = "user";
+
+    @Autowired
+    private ShoppingCartDao shoppingCartDao;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    // products fillCart had to create, removed again so other classes sharing the database never see them
+    private final List<Integer> fillers = new ArrayList<>();
+
+    @AfterEach
+    public void emptyCart()
+    {
+        shoppingCartDao.clearCart(userId());
+        for (int productId : fillers)
+        {
+            productDao.delete(productId);
+        }
+        fillers.clear();
+    }
+
+    @Test
+    public void getCart_with20Items_shouldRun_twoStatements() throws Exception
+    {
+        fillCart(20);
+
+        // user lookup, then one joined cart query
+        QueryCounter.measure(() -> mvc.perform(get("/cart"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(20)))
+                .assertConnectionsAtMost(2)
+                .assertStatementsAtMost(2)
+                .assertRowsAtMost(21);
+    }
+
+    @Test
+    public void addProductToCart_shouldRun_threeStatements() throws Exception
+    {
+        // user lookup, existing line check, insert
+        QueryCounter.measure(() -> mvc.perform(post("/cart/products/1")).andExpect(status().isCreated()))
+                .assertConnectionsAtMost(2)
+                .assertStatementsAtMost(3);
+    }
+
+    @Test
+    public void updateProductQuantity_shouldRun_threeStatements() throws Exception
+    {
+        fillCart(1);
+        int productId = firstProductId();
+
+        // user lookup, cart read, update
+        QueryCounter.measure(() -> mvc.perform(put("/cart/products/" + productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 3}"))
+                .andExpect(status().isNoContent()))
+                .assertStatementsAtMost(3);
+    }
+
+    @Test
+    public void removeProductFromCart_shouldRun_threeStatements() throws Exception
+    {
+        fillCart(1);
+        int productId = firstProductId();
+
+        // user lookup, cart read, delete
+        QueryCounter.measure(() -> mvc.perform(delete("/cart/products/" + productId)).andExpect(status().isNoContent()))
+                .assertStatementsAtMost(3);
+    }
+
+    @Test
+    public void clearCart_shouldRun_twoStatements() throws Exception
+    {
+        fillCart(5);
+
+        QueryCounter.measure(() -> mvc.perform(delete("/cart")).andExpect(status().isNoContent()))
+                .assertStatementsAtMost(2);
+    }
+
+    private int userId()
+    {
+        return userDao.getIdByUsername(USERNAME);
+    }
+
+    private int firstProductId()
+    {
+        return productDao.search(null, null, null, null).get(0).getProductId();
+    }
+
+    private void fillCart(int itemCount)
+    {
+        List<Product> products = new ArrayList<>(productDao.search(null, null, null, null));
+        for (int i = products.size(); i < itemCount; i++)
+        {
+            Product filler = productDao.create(new Product(0, "Cart Filler " + i, Money.parse("1.00"), 1, "", "Gray", 1, false, ""));
+            fillers.add(filler.getProductId());
+            products.add(filler);
+        }
+
+        int userId = userId();
+        for (int i = 0; i < itemCount; i++)
+        {
+            shoppingCartDao.addProductToCart(userId, products.get(i).getProductId());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.yearup.data.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest
+{
+    @Test
+    public void concurrentCalls_forTheSameKey_shouldShareOneLoad() throws Exception
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<String> results = new ArrayList<>();
+        Runnable caller = () -> {
+            String result = flight.call("key", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            });
+            synchronized (results)
+            {
+                results.add(result);
+            }
+        };
+
+        Thread leader = new Thread(caller);
+        leader.start();
+        started.await();
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            Thread waiter = new Thread(caller);
+            waiters.add(waiter);
+            waiter.start();
+        }
+        // every waiter is parked on the leader's result before it is released
+        for (Thread waiter : waiters)
+        {
+            while (waiter.getState() != Thread.State.TIMED_WAITING)
+            {
+                Thread.sleep(5);
+            }
+        }
+
+        release.countDown();
+        leader.join();
+        for (Thread waiter : waiters)
+        {
+            waiter.join();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(9, results.size());
+        assertEquals(8.0, registry.get("easyshop.coalescing.calls").tag("result", "coalesced").counter().count());
+
+        // the next call starts afresh
+        assertEquals("again", flight.call("key", () -> "again"));
+    }
+
+    @Test
+    public void bulkCall_shouldWaitForKeysInFlight_andLoadOnlyTheRest() throws Exception
+    {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread single = new Thread(() -> flight.call("a", () -> {
+            started.countDown();
+            await(release);
+            return "A";
+        }));
+        single.start();
+        started.await();
+
+        List<List<String>> loaded = new ArrayList<>();
+        Map<String, String> values = new HashMap<>();
+        Thread bulk = new Thread(() -> values.putAll(flight.callAll(Arrays.asList("a", "b", "c", "b"), keys -> {
+            loaded.add(keys);
+            Map<String, String> found = new HashMap<>();
+            found.put("b", "B");
+            return found;
+        })));
+        bulk.start();
+        while (bulk.getState() != Thread.State.TIMED_WAITING)
+        {
+            Thread.sleep(5);
+        }
+
+        release.countDown();
+        single.join();
+        bulk.join();
+
+        // b and c in one load, a from the single call; c was not found
+        assertEquals(Collections.singletonList(Arrays.asList("b", "c")), loaded);
+        assertEquals("A", values.get("a"));
+        assertEquals("B", values.get("b"));
+        assertTrue(values.containsKey("c"));
+        assertNull(values.get("c"));
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
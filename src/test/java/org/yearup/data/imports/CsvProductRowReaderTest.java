@@ -0,0 +1,90 @@
+package org.yearup.data.imports;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.exceptions.BadRequestException;
+import org.yearup.models.Money;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvProductRowReaderTest
+{
+    private static CsvProductRowReader reader(String csv) throws IOException
+    {
+        return new CsvProductRowReader(new StringReader(csv));
+    }
+
+    @Test
+    public void quotedValues_shouldKeepCommasQuotesAndLineBreaks() throws IOException
+    {
+        CsvProductRowReader reader = reader("price,name,categoryId,description,featured\r\n" +
+                "9.99,\"Lamp, \"\"Brass\"\"\",3,\"Two\nlines\",true\r\n" +
+                "\r\n" +
+                "5,Rug,3,,\n");
+
+        ProductImportRow lamp = reader.next();
+        assertEquals(2, lamp.getLine());
+        assertEquals("Lamp, \"Brass\"", lamp.getProduct().getName());
+        assertEquals("Two\nlines", lamp.getProduct().getDescription());
+        assertEquals(Money.parse("9.99"), lamp.getProduct().getPrice());
+        assertTrue(lamp.getProduct().isFeatured());
+
+        // the quoted line break moved the rug down a line, and the blank line is skipped
+        ProductImportRow rug = reader.next();
+        assertEquals(5, rug.getLine());
+        assertEquals("Rug", rug.getProduct().getName());
+        assertEquals(0, rug.getProduct().getProductId());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void badValues_shouldBeReported_byLine() throws IOException
+    {
+        CsvProductRowReader reader = reader("name,price,categoryId,stock\n" +
+                "Lamp,9.999,3,1\n" +
+                "Rug,5,3\n" +
+                "Chair,5,3,many\n" +
+                "Table,\"5,3,1\n");
+
+        assertEquals("price '9.999' is not a valid amount.", reader.next().getError());
+        assertEquals("Expected 4 values but found 3.", reader.next().getError());
+        assertEquals("stock 'many' is not a valid whole number.", reader.next().getError());
+        ProductImportRow unterminated = reader.next();
+        assertEquals(5, unterminated.getLine());
+        assertEquals("A quoted value is never closed.", unterminated.getError());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void longRecord_shouldBeReported_andTheNextOneRead() throws IOException
+    {
+        StringBuilder description = new StringBuilder();
+        while (description.length() <= CsvProductRowReader.MAX_RECORD_LENGTH)
+        {
+            description.append("word, \"\"quoted\"\"\n");
+        }
+        CsvProductRowReader reader = reader("name,price,categoryId,description\n" +
+                "Lamp,9.99,3,\"" + description + "\"\n" +
+                "Rug,5,3,Soft\n");
+
+        assertEquals("The record is longer than " + CsvProductRowReader.MAX_RECORD_LENGTH + " characters.", reader.next().getError());
+        ProductImportRow rug = reader.next();
+        assertEquals("Rug", rug.getProduct().getName());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void header_shouldNameKnownFields_includingTheRequiredOnes()
+    {
+        assertThrows(BadRequestException.class, () -> reader("name,price,categoryId,sku\n"));
+        assertThrows(BadRequestException.class, () -> reader("name,price\n"));
+        assertThrows(BadRequestException.class, () -> reader("name,price,categoryId,name\n"));
+        assertThrows(BadRequestException.class, () -> reader(""));
+    }
+}
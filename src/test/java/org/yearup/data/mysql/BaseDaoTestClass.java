@@ -3,6 +3,7 @@ package org.yearup.data.mysql;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.yearup.configuration.TestDatabaseConfig;
@@ -13,6 +14,8 @@ import java.sql.SQLException;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = TestDatabaseConfig.class)
+// a fresh context per test class means a fresh embedded database, so classes can run in parallel
+@DirtiesContext
 public abstract class BaseDaoTestClass
 {
     @Autowired
@@ -3,21 +3,32 @@ package org.yearup.data.mysql;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.yearup.data.CatalogVersion;
+import org.yearup.models.Money;
 import org.yearup.models.Product;
+import org.yearup.models.ProductField;
 
-import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MySqlProductDaoTest extends BaseDaoTestClass
 {
     private MySqlProductDao dao;
+    private CatalogVersion catalogVersion;
 
     @BeforeEach
     public void setup()
     {
-        dao = new MySqlProductDao(dataSource);
+        catalogVersion = new CatalogVersion();
+        dao = new MySqlProductDao(dataSource, catalogVersion);
     }
 
     @Test
@@ -29,7 +40,7 @@ class MySqlProductDaoTest extends BaseDaoTestClass
         {{
             setProductId(1);
             setName("Smartphone");
-            setPrice(new BigDecimal("499.99"));
+            setPrice(Money.parse("499.99"));
             setCategoryId(1);
             setDescription("A powerful and feature-rich smartphone for all your communication needs.");
             setColor("Black");
@@ -45,4 +56,60 @@ class MySqlProductDaoTest extends BaseDaoTestClass
         assertEquals(expected.getPrice(), actual.getPrice(), "Because I tried to get product 1 from the database.");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getById_withFields_shouldOnlyReadThoseColumns()
+    {
+        var actual = dao.getById(1, EnumSet.of(ProductField.NAME, ProductField.PRICE));
+
+        assertEquals(1, actual.getProductId());
+        assertEquals("Smartphone", actual.getName());
+        assertEquals(Money.parse("499.99"), actual.getPrice());
+        assertNull(actual.getDescription(), "Because the description column was not selected.");
+        assertNotNull(actual.getRevision());
+    }
+
+    @Test
+    public void saveAll_shouldCreateAndUpdate_inBatches()
+    {
+        Product lamp = new Product(0, "Desk Lamp", Money.parse("24.99"), 3, "", "Black", 5, false, "lamp.jpg");
+        Product rug = new Product(0, "Rug", Money.parse("89.00"), 3, "", "Red", 2, false, "rug.jpg");
+        Product camera = new Product(5, "Digital Camera", Money.parse("549.99"), 1, "Now cheaper.", "Silver", 15, true, "camera.jpg");
+        Product missing = new Product(999999, "Nothing", Money.parse("1.00"), 1, "", "Black", 0, false, "");
+
+        // a batch size of one sends each kind of write as several batches
+        List<Product> saved = dao.saveAll(Arrays.asList(lamp, camera, rug, missing), 1);
+
+        assertEquals(4, saved.size());
+        assertEquals("Desk Lamp", dao.getById(saved.get(0).getProductId()).getName());
+        assertEquals("Rug", dao.getById(saved.get(2).getProductId()).getName());
+        assertEquals(Money.parse("549.99"), dao.getById(5).getPrice());
+        assertEquals(2, dao.getById(5).getRevision().getVersion());
+        assertNull(saved.get(3), "Because there is no product 999999 to update.");
+    }
+
+    @Test
+    public void saveAll_shouldSaveNothing_whenOneRowFails()
+    {
+        Product lamp = new Product(0, "Floor Lamp", Money.parse("54.99"), 3, "", "Black", 5, false, "lamp.jpg");
+        Product orphan = new Product(0, "Orphan", Money.parse("1.00"), 999, "", "Black", 0, false, "");
+
+        assertThrows(RuntimeException.class, () -> dao.saveAll(Arrays.asList(lamp, orphan), 500));
+
+        assertTrue(dao.search(null, null, null, null).stream().noneMatch(product -> product.getName().equals("Floor Lamp")),
+                "Because the row before the failing one was rolled back with it.");
+    }
+
+    @Test
+    public void delete_shouldBumpTheCatalogVersion_onlyWhenARowIsDeleted()
+    {
+        Product lamp = dao.create(new Product(0, "Spare Lamp", Money.parse("12.00"), 3, "", "Black", 1, false, "lamp.jpg"));
+        long before = catalogVersion.get();
+
+        dao.delete(999999);
+        assertEquals(before, catalogVersion.get(), "Because deleting a missing product changes no cached response.");
+
+        dao.delete(lamp.getProductId());
+        assertTrue(catalogVersion.get() > before);
+        assertNull(dao.getById(lamp.getProductId()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.yearup.data.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.yearup.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LastGoodReadsTest
+{
+    @Test
+    public void databaseOutage_shouldServeTheLastGoodResult_andFailFastWithoutOne()
+    {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        LastGoodReads reads = new LastGoodReads(breaker, 1024 * 1024, 1, new SimpleMeterRegistry());
+        AtomicBoolean down = new AtomicBoolean();
+        AtomicBoolean calledWhileOpen = new AtomicBoolean();
+
+        try
+        {
+            assertEquals("fresh", reads.read("key", () -> "fresh"));
+
+            down.set(true);
+            for (int i = 0; i < 2; i++)
+            {
+                assertEquals("fresh", reads.read("key", () -> {
+                    if (down.get())
+                    {
+                        throw new IllegalStateException("database down");
+                    }
+                    return "unused";
+                }));
+            }
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+            // open: answered from memory without waiting on the database
+            assertEquals("fresh", reads.read("key", () -> {
+                calledWhileOpen.set(!Thread.currentThread().getName().equals("catalog-refresh"));
+                throw new IllegalStateException("database down");
+            }));
+            assertFalse(calledWhileOpen.get());
+
+            assertThrows(ServiceUnavailableException.class, () -> reads.read("never-read", () -> "unused"));
+        }
+        finally
+        {
+            reads.shutdown();
+        }
+    }
+
+    @Test
+    public void keptResults_shouldStayWithinTheirBytes_droppingTheLeastRecentlyUsed()
+    {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // room for two one-character results, not three
+        LastGoodReads reads = new LastGoodReads(breaker, 2 * ResultSizes.of("A") + 1, 1, registry);
+        Supplier<String> down = () -> {
+            throw new IllegalStateException("database down");
+        };
+
+        try
+        {
+            reads.read("a", () -> "A");
+            reads.read("b", () -> "B");
+            reads.read("a", () -> "A");
+            reads.read("c", () -> "C");
+            assertEquals(2 * ResultSizes.of("A"), registry.get("easyshop.resilience.kept.bytes").gauge().value());
+
+            // b was used least recently, so c pushed it out; its failure opens the breaker
+            assertThrows(IllegalStateException.class, () -> reads.read("b", down));
+            assertEquals("A", reads.read("a", down));
+            assertEquals("C", reads.read("c", down));
+            assertThrows(ServiceUnavailableException.class, () -> reads.readWithoutFallback(() -> "unused"));
+        }
+        finally
+        {
+            reads.shutdown();
+        }
+    }
+}
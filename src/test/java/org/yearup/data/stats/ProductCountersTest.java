@@ -0,0 +1,102 @@
+package org.yearup.data.stats;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.data.ProductStatsDao;
+import org.yearup.models.ProductStats;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCountersTest
+{
+    // product id -> {views, cart adds}
+    private final Map<Integer, long[]> stored = new HashMap<>();
+    private int writes;
+    private boolean failWrites;
+
+    private final ProductStatsDao dao = new ProductStatsDao()
+    {
+        @Override
+        public ProductStats getByProductId(int productId)
+        {
+            long[] counts = stored.getOrDefault(productId, new long[2]);
+            return new ProductStats(productId, counts[0], counts[1]);
+        }
+
+        @Override
+        public void addAll(List<ProductStats> deltas)
+        {
+            if (failWrites)
+            {
+                throw new RuntimeException("database down");
+            }
+            writes++;
+            for (ProductStats delta : deltas)
+            {
+                long[] counts = stored.computeIfAbsent(delta.getProductId(), id -> new long[2]);
+                counts[0] += delta.getViews();
+                counts[1] += delta.getCartAdds();
+            }
+        }
+    };
+
+    @Test
+    public void flush_shouldWriteEveryCount_onceAndInOneBatch() throws Exception
+    {
+        ProductCounters counters = new ProductCounters(dao, Duration.ofHours(1));
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++)
+        {
+            threads.execute(() -> {
+                for (int i = 0; i < 10_000; i++)
+                {
+                    counters.recordView(1 + i % 3);
+                    if (i % 10 == 0)
+                    {
+                        counters.recordCartAdd(1);
+                    }
+                }
+            });
+        }
+        threads.shutdown();
+        threads.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(26_672, counters.get(1).getViews(), "Because unflushed counts are read from memory.");
+        counters.flush();
+        counters.flush();
+
+        assertEquals(1, writes, "Because the second flush had nothing new to write.");
+        assertEquals(26_672, stored.get(1)[0]);
+        assertEquals(8_000, stored.get(1)[1]);
+        assertEquals(80_000, stored.get(1)[0] + stored.get(2)[0] + stored.get(3)[0]);
+        assertEquals(26_672, counters.get(1).getViews(), "Because written counts are not counted again.");
+        counters.shutdown();
+    }
+
+    @Test
+    public void failedFlush_shouldKeepItsCounts_forTheNextOne()
+    {
+        ProductCounters counters = new ProductCounters(dao, Duration.ofHours(1));
+        counters.recordView(5);
+        counters.recordView(5);
+
+        failWrites = true;
+        assertThrows(RuntimeException.class, counters::flush);
+        counters.recordCartAdd(5);
+
+        failWrites = false;
+        counters.flush();
+        assertEquals(2, stored.get(5)[0]);
+        assertEquals(1, stored.get(5)[1]);
+        assertEquals(2, counters.get(5).getViews());
+        counters.shutdown();
+    }
+}
@@ -0,0 +1,64 @@
+package org.yearup.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountingAsyncAppenderTest
+{
+    @Test
+    public void fullQueue_shouldDropAndCount_insteadOfBlocking() throws Exception
+    {
+        LoggerContext context = new LoggerContext();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // a console that hangs until released, like stdout during an incident
+        AppenderBase<ILoggingEvent> stuck = new AppenderBase<>()
+        {
+            @Override
+            protected void append(ILoggingEvent event)
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        stuck.setContext(context);
+        stuck.start();
+
+        CountingAsyncAppender appender = new CountingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(stuck);
+        appender.start();
+
+        long droppedBefore = CountingAsyncAppender.droppedEvents().sum();
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++)
+        {
+            appender.doAppend(new LoggingEvent("test", context.getLogger("test"), Level.ERROR, "event " + i, null, null));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        release.countDown();
+        appender.stop();
+
+        assertTrue(elapsedMillis < 1000, "logging blocked for " + elapsedMillis + "ms");
+        assertTrue(CountingAsyncAppender.droppedEvents().sum() - droppedBefore >= 90, "dropped events were not counted");
+    }
+}
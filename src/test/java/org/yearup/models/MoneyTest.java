@@ -0,0 +1,50 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest
+{
+    @Test
+    public void parse_shouldRead_decimalColumnText()
+    {
+        assertEquals(49999, Money.parse("499.99").getCents());
+        assertEquals(50, Money.parse("0.5").getCents());
+        assertEquals(-500, Money.parse("-5").getCents());
+        assertEquals(1, Money.parse(".01").getCents());
+    }
+
+    @Test
+    public void parse_shouldReject_fractionsOfACent()
+    {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.001"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("abc"));
+    }
+
+    @Test
+    public void times_shouldThrow_onOverflow()
+    {
+        Money big = Money.ofCents(Long.MAX_VALUE / 2 + 1);
+
+        assertThrows(ArithmeticException.class, () -> big.times(2));
+        assertThrows(ArithmeticException.class, () -> big.plus(big));
+    }
+
+    @Test
+    public void json_shouldMatch_bigDecimalFormat() throws Exception
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        Money price = Money.parse("1499.90");
+
+        String json = mapper.writeValueAsString(price);
+
+        assertEquals(mapper.writeValueAsString(new BigDecimal("1499.90")), json);
+        assertEquals(price, mapper.readValue(json, Money.class));
+        assertEquals(price, mapper.readValue("\"1499.9\"", Money.class));
+    }
+}
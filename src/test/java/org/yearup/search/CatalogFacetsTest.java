@@ -0,0 +1,64 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Money;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.yearup.search.SearchFixtures.product;
+
+class CatalogFacetsTest
+{
+    private static CatalogFacets facets()
+    {
+        CatalogFacets facets = new CatalogFacets(Arrays.asList(Money.parse("25"), Money.parse("100")));
+        facets.rebuild(() -> Arrays.asList(
+                product(1, "Product 1", "", "10.00", 1, "Red", false),
+                product(2, "Product 2", "", "25.00", 1, "red", false),
+                product(3, "Product 3", "", "150.00", 1, "Blue", false),
+                product(4, "Product 4", "", "30.00", 2, "Red", false),
+                product(5, "Product 5", "", "99.99", 2, null, false)));
+        return facets;
+    }
+
+    private static String prices(ProductFacets facets)
+    {
+        return facets.getPrices().stream()
+                .map(bucket -> bucket.getMin() + "-" + bucket.getMax() + ":" + bucket.getCount())
+                .collect(Collectors.joining(" "));
+    }
+
+    @Test
+    public void count_shouldApplyEveryFilterButTheFacetsOwn()
+    {
+        ProductFacets facets = facets().count(new ProductFilter(1, null, new BigDecimal("100"), "RED"));
+
+        assertEquals(2, facets.getTotal());
+        // category ignores cat=1: red and at most 100 in both categories
+        assertEquals("{1=2, 2=1}", facets.getCategories().toString());
+        // colour ignores color=RED: category 1 at most 100
+        assertEquals("{Red=2}", facets.getColors().toString());
+        // price ignores maxPrice: red in category 1, a price on a bound starts the next bucket
+        assertEquals("0.00-25.00:1 25.00-100.00:1 100.00-null:0", prices(facets));
+    }
+
+    @Test
+    public void writes_shouldBeReflected_withoutARebuild()
+    {
+        CatalogFacets facets = facets();
+        facets.productDeleted(1);
+        facets.productSaved(product(3, "Product 3", "", "20.00", 2, "Green", false));
+        facets.productSaved(product(6, "Product 6", "", "500.00", 3, "blue", false));
+
+        ProductFacets counts = facets.count(ProductFilter.NONE);
+        assertEquals(5, counts.getTotal());
+        assertEquals("{1=1, 2=3, 3=1}", counts.getCategories().toString());
+        // colours group case-insensitively under the first spelling seen
+        assertEquals("{Red=2, Blue=1, Green=1}", counts.getColors().toString());
+        assertEquals("0.00-25.00:1 25.00-100.00:3 100.00-null:1", prices(facets.count(ProductFilter.NONE)));
+    }
+}
@@ -0,0 +1,60 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.yearup.search.SearchFixtures.ids;
+import static org.yearup.search.SearchFixtures.product;
+
+class ProductIndexTest
+{
+    @Test
+    public void search_shouldRankNameMatchesFirst_andMatchStemmedForms()
+    {
+        ProductIndex index = new ProductIndex();
+        index.rebuild(() -> Arrays.asList(
+                product(1, "Trail Running Shoes", "Grippy soles for muddy trails.", "89.99", 1, "Black", false),
+                product(2, "Rain Jacket", "Light enough for running in the rain.", "59.99", 2, "Blue", false),
+                product(3, "Coffee Mug", "Holds a lot of coffee.", "9.99", 3, "White", false)));
+
+        assertEquals(Arrays.asList(1, 2), ids(index.search("runs", ProductFilter.NONE, 10)));
+        assertEquals(Arrays.asList(1), ids(index.search("SHOE", ProductFilter.NONE, 10)));
+        assertTrue(index.search("the", ProductFilter.NONE, 10).isEmpty());
+    }
+
+    @Test
+    public void search_shouldApplyTheCatalogFilters()
+    {
+        ProductIndex index = new ProductIndex();
+        index.rebuild(() -> Arrays.asList(
+                product(1, "Wool Sweater", "Warm.", "80.00", 1, "Red", false),
+                product(2, "Cotton Sweater", "Soft.", "40.00", 1, "Blue", false),
+                product(3, "Sweater Vest", "Warm.", "30.00", 2, "Red", false)));
+
+        assertEquals(Arrays.asList(1), ids(index.search("sweater", new ProductFilter(1, null, null, "red"), 10)));
+        assertEquals(Arrays.asList(2, 3), ids(index.search("sweaters", new ProductFilter(null, null, new BigDecimal("50"), null), 10)));
+        assertEquals(1, index.search("sweater", ProductFilter.NONE, 1).size());
+        // bounds past any price hold, rather than wrapping around
+        assertEquals(3, index.search("sweater", new ProductFilter(null, null, new BigDecimal("1E30"), null), 10).size());
+        assertEquals(0, index.search("sweater", new ProductFilter(null, new BigDecimal("1E30"), null, null), 10).size());
+    }
+
+    @Test
+    public void writes_shouldBeReflected_withoutARebuild()
+    {
+        ProductIndex index = new ProductIndex();
+        index.rebuild(() -> Arrays.asList(product(1, "Desk Lamp", "Bright.", "25.00", 1, "Black", false)));
+
+        index.productSaved(product(2, "Floor Lamp", "Tall.", "45.00", 1, "White", false));
+        index.productSaved(product(1, "Desk Light", "Bright.", "25.00", 1, "Black", false));
+        assertEquals(Arrays.asList(2), ids(index.search("lamp", ProductFilter.NONE, 10)));
+
+        index.productDeleted(2);
+        assertTrue(index.search("lamp", ProductFilter.NONE, 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,102 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.yearup.search.SearchFixtures.ids;
+import static org.yearup.search.SearchFixtures.product;
+
+class ProductLeaderboardsTest
+{
+    // order lines as {product id, quantity}; a line's id is its position plus one
+    private final List<int[]> lines = new ArrayList<>();
+    // ids of lines inserted by a transaction that has not committed yet
+    private final Set<Integer> uncommitted = new HashSet<>();
+
+    private final ProductLeaderboards leaderboards = new ProductLeaderboards((counted, unitsSold) -> {
+        for (int i = counted.getFloor(); i < lines.size(); i++)
+        {
+            if (!uncommitted.contains(i + 1) && counted.add(i + 1))
+            {
+                unitsSold.addTo(lines.get(i)[0], lines.get(i)[1]);
+            }
+        }
+        counted.advance(lines.size());
+    });
+
+    private void sell(int productId, int quantity)
+    {
+        lines.add(new int[]{productId, quantity});
+    }
+
+    @Test
+    public void boards_shouldRankByUnitsSold_andFollowNewSales()
+    {
+        sell(1, 2);
+        sell(2, 5);
+        sell(3, 1);
+        leaderboards.rebuild(() -> Arrays.asList(
+                product(1, "Product 1", "", "10.00", 1, "Red", true),
+                product(2, "Product 2", "", "10.00", 1, "Red", false),
+                product(3, "Product 3", "", "10.00", 1, "Red", true),
+                product(4, "Product 4", "", "10.00", 1, "Red", false),
+                product(5, "Product 5", "", "10.00", 2, "Red", true)));
+
+        // product 4 never sold, so it is not a top seller; featured products rank with or without sales
+        assertEquals(Arrays.asList(2, 1, 3), ids(leaderboards.topSellers(1, 10)));
+        assertEquals(Arrays.asList(1, 3, 5), ids(leaderboards.featured(10)));
+        assertEquals(Arrays.asList(2, 1), ids(leaderboards.topSellers(1, 2)));
+
+        sell(3, 3);
+        sell(4, 1);
+        leaderboards.pollSales();
+
+        assertEquals(Arrays.asList(2, 3, 1, 4), ids(leaderboards.topSellers(1, 10)));
+        assertEquals(Arrays.asList(3, 1, 5), ids(leaderboards.featured(10)));
+    }
+
+    @Test
+    public void lateCommits_shouldStillBeCounted()
+    {
+        sell(1, 2);
+        sell(2, 1);
+        leaderboards.rebuild(() -> Arrays.asList(product(1), product(2)));
+
+        // line 3 commits after line 4 has been counted
+        sell(2, 5);
+        uncommitted.add(3);
+        sell(1, 1);
+        leaderboards.pollSales();
+        assertEquals(Arrays.asList(1, 2), ids(leaderboards.topSellers(1, 10)));
+
+        uncommitted.clear();
+        leaderboards.pollSales();
+        leaderboards.pollSales();
+        assertEquals(Arrays.asList(2, 1), ids(leaderboards.topSellers(1, 10)));
+    }
+
+    @Test
+    public void productWrites_shouldMoveProductsBetweenBoards()
+    {
+        sell(1, 2);
+        sell(2, 5);
+        leaderboards.rebuild(() -> Arrays.asList(product(1, "Product 1", "", "10.00", 1, "Red", true), product(2, "Product 2", "", "10.00", 1, "Red", true)));
+
+        leaderboards.productSaved(product(2, "Product 2", "", "10.00", 2, "Red", false));
+        assertEquals(Arrays.asList(1), ids(leaderboards.topSellers(1, 10)));
+        assertEquals(Arrays.asList(2), ids(leaderboards.topSellers(2, 10)));
+        assertEquals(Arrays.asList(1), ids(leaderboards.featured(10)));
+
+        leaderboards.productDeleted(1);
+        assertEquals(Collections.emptyList(), ids(leaderboards.topSellers(1, 10)));
+        assertEquals(Collections.emptyList(), ids(leaderboards.featured(10)));
+    }
+}
@@ -0,0 +1,135 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.data.OrderLines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.yearup.search.SearchFixtures.ids;
+import static org.yearup.search.SearchFixtures.products;
+
+class ProductRecommendationsTest
+{
+    // order lines as {order id, product id}; a line's id is its position plus one
+    private final List<int[]> lines = new ArrayList<>();
+    // ids of lines inserted by a transaction that has not committed yet
+    private final Set<Integer> uncommitted = new HashSet<>();
+
+    private final ProductRecommendations recommendations = new ProductRecommendations(counted -> {
+        OrderLines read = new OrderLines(lines.size());
+        List<Integer> orderIds = new ArrayList<>();
+        for (int i = counted.getFloor(); i < lines.size(); i++)
+        {
+            if (!uncommitted.contains(i + 1))
+            {
+                orderIds.add(lines.get(i)[0]);
+            }
+        }
+        orderIds.stream().distinct().sorted().forEach(orderId -> {
+            for (int i = 0; i < lines.size(); i++)
+            {
+                if (lines.get(i)[0] == orderId && !uncommitted.contains(i + 1))
+                {
+                    read.add(orderId, i + 1, lines.get(i)[1]);
+                }
+            }
+        });
+        read.setLastLineItemId(lines.size());
+        return read;
+    }, ForkJoinPool.commonPool());
+
+    private void order(int orderId, int... productIds)
+    {
+        for (int productId : productIds)
+        {
+            lines.add(new int[]{orderId, productId});
+        }
+    }
+
+    @Test
+    public void related_shouldRankByOrdersShared_andFollowNewOrders()
+    {
+        order(1, 1, 2, 3);
+        order(2, 1, 2);
+        order(3, 1, 4, 4);
+        recommendations.rebuild(() -> products(5));
+
+        assertEquals(Arrays.asList(2, 3, 4), ids(recommendations.related(1, 10)));
+        assertEquals(Arrays.asList(1, 3), ids(recommendations.related(2, 10)));
+        assertEquals(Arrays.asList(2), ids(recommendations.related(1, 1)));
+        assertEquals(Collections.emptyList(), ids(recommendations.related(5, 10)));
+        assertNull(recommendations.related(6, 10));
+
+        // a new order, and new lines on an order already counted: 4 is now bought with 1 three times
+        order(4, 1, 4);
+        order(3, 5);
+        lines.add(new int[]{2, 4});
+        recommendations.pollSales();
+
+        assertEquals(Arrays.asList(4, 2, 3, 5), ids(recommendations.related(1, 10)));
+        assertEquals(Arrays.asList(1, 4), ids(recommendations.related(5, 10)));
+        assertEquals(Arrays.asList(1, 2, 5), ids(recommendations.related(4, 10)));
+
+        recommendations.productDeleted(4);
+        assertEquals(Arrays.asList(2, 3, 5), ids(recommendations.related(1, 10)));
+    }
+
+    @Test
+    public void lateCommits_shouldStillBeCounted()
+    {
+        order(1, 1, 2);
+        recommendations.rebuild(() -> products(5));
+
+        // order 2 commits after order 3, whose lines have higher ids
+        order(2, 1, 3);
+        uncommitted.addAll(Arrays.asList(3, 4));
+        order(3, 1, 4);
+        recommendations.pollSales();
+        assertEquals(Arrays.asList(2, 4), ids(recommendations.related(1, 10)));
+
+        uncommitted.clear();
+        recommendations.pollSales();
+        recommendations.pollSales();
+        assertEquals(Arrays.asList(2, 3, 4), ids(recommendations.related(1, 10)));
+        assertEquals(Arrays.asList(1), ids(recommendations.related(3, 10)));
+    }
+
+    @Test
+    public void parallelBuild_shouldCount_likeOneOrderAtATime()
+    {
+        // enough orders for the build to split several times; product 1 is in every order
+        Random random = new Random(42);
+        int orders = ProductRecommendations.ORDERS_PER_TASK * 5;
+        int[][] together = new int[31][31];
+        for (int orderId = 1; orderId <= orders; orderId++)
+        {
+            int other = 2 + random.nextInt(29);
+            order(orderId, 1, other);
+            together[1][other]++;
+        }
+
+        // half of them counted by the build, the rest by polls
+        List<int[]> all = new ArrayList<>(lines);
+        lines.subList(all.size() / 2, all.size()).clear();
+        recommendations.rebuild(() -> products(30));
+        lines.addAll(all.subList(lines.size(), all.size()));
+        recommendations.pollSales();
+
+        List<Integer> expected = IntStream.rangeClosed(2, 30).boxed()
+                .sorted((a, b) -> together[1][a] != together[1][b] ? together[1][b] - together[1][a] : a - b)
+                .limit(ProductRecommendations.MAX_RELATED)
+                .collect(Collectors.toList());
+        assertEquals(expected, ids(recommendations.related(1, ProductRecommendations.MAX_RELATED)));
+    }
+}
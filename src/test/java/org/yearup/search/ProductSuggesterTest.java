@@ -0,0 +1,70 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.yearup.search.SearchFixtures.product;
+import static org.yearup.search.SearchFixtures.suggestionIds;
+
+class ProductSuggesterTest
+{
+    @Test
+    public void suggest_shouldMatchAnyWordStart_featuredThenBestSellersFirst()
+    {
+        Map<Integer, Integer> unitsSold = new HashMap<>();
+        unitsSold.put(2, 500);
+        unitsSold.put(3, 20);
+
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.rebuild(() -> Arrays.asList(
+                product(1, "Trail Running Shoes", "", "10.00", 1, "Black", false),
+                product(2, "Running Socks", "", "10.00", 1, "Black", false),
+                product(3, "Men's Running Shorts", "", "10.00", 1, "Black", false),
+                product(4, "Rain Jacket", "", "10.00", 1, "Black", true)), unitsSold);
+
+        assertEquals(Arrays.asList(4, 2, 3, 1), suggestionIds(suggester.suggest("r", 10)));
+        assertEquals(Arrays.asList(2, 3), suggestionIds(suggester.suggest("  RUNNING  S", 2)));
+        assertEquals(Arrays.asList(3, 1), suggestionIds(suggester.suggest("running sh", 10)));
+        assertEquals(Arrays.asList(3), suggestionIds(suggester.suggest("m", 10)));
+        assertTrue(suggester.suggest("unning", 10).isEmpty());
+    }
+
+    @Test
+    public void busyPrefixes_shouldStayCorrect_acrossWrites()
+    {
+        // enough names under "lamp" to turn its buckets into trie nodes with precomputed lists
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= ProductSuggester.BUCKET_CAPACITY * 4; id++)
+        {
+            products.add(product(id, "Lamp " + id, "", "10.00", 1, "Black", false));
+        }
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.rebuild(() -> products, Collections.emptyMap());
+
+        assertEquals(Arrays.asList(1, 2, 3), suggestionIds(suggester.suggest("lamp", 3)));
+        assertEquals(Arrays.asList(10, 100, 101), suggestionIds(suggester.suggest("lamp 10", 3)));
+
+        suggester.productSaved(product(101, "Lamp 101", "", "10.00", 1, "Black", true));
+        suggester.productDeleted(1);
+        suggester.productSaved(product(1000, "Desk Lamp", "", "10.00", 1, "Black", false));
+
+        assertEquals(Arrays.asList(101, 2, 3), suggestionIds(suggester.suggest("lamp", 3)));
+        assertEquals(Arrays.asList(101, 10, 100), suggestionIds(suggester.suggest("lamp 10", 3)));
+        assertEquals(Arrays.asList(1000), suggestionIds(suggester.suggest("desk", 10)));
+
+        suggester.productSaved(product(101, "Floor Light", "", "10.00", 1, "Black", false));
+        assertEquals(Arrays.asList(2, 3, 4), suggestionIds(suggester.suggest("lamp", 3)));
+        assertEquals(Arrays.asList(101), suggestionIds(suggester.suggest("light", 10)));
+        assertEquals(ProductSuggester.BUCKET_CAPACITY * 4, suggester.size());
+    }
+}
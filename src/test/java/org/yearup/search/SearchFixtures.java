@@ -0,0 +1,43 @@
+package org.yearup.search;
+
+import org.yearup.models.Money;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// catalog products and result helpers shared by the search view tests
+final class SearchFixtures
+{
+    private SearchFixtures()
+    {
+    }
+
+    static Product product(int id, String name, String description, String price, int categoryId, String color, boolean featured)
+    {
+        return new Product(id, name, Money.parse(price), categoryId, description, color, 10, featured, "image.jpg");
+    }
+
+    // a placeholder product, for tests where only the id matters
+    static Product product(int id)
+    {
+        return product(id, "Product " + id, "", "10.00", 1, "Red", false);
+    }
+
+    static List<Product> products(int count)
+    {
+        return IntStream.rangeClosed(1, count).mapToObj(SearchFixtures::product).collect(Collectors.toList());
+    }
+
+    static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).collect(Collectors.toList());
+    }
+
+    static List<Integer> suggestionIds(List<ProductSuggestion> suggestions)
+    {
+        return suggestions.stream().map(ProductSuggestion::getProductId).collect(Collectors.toList());
+    }
+}